@@ -0,0 +1,28 @@
+package com.thread.dump.parser.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Same as the JMH launcher, with the GC profiler always on so the allocation rate is reported next to the times.
+ * Takes the usual JMH arguments, e.g. a benchmark name regex, -f, -wi, -i or -p sample=11.0.2.0.txt
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public final class Main {
+
+	public static void main(final String[] args) throws Exception {
+		final CommandLineOptions commandLine = new CommandLineOptions(args);
+		final Options options = new OptionsBuilder()
+				.parent(commandLine)
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+
+	private Main() {}
+
+}
@@ -0,0 +1,62 @@
+package com.thread.dump.parser.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The thread dumps under samples/, JDK 8 through 15.
+ *
+ * <p>They are looked up in the directory given by the "samples" system property, then in ./samples and ../samples,
+ * so the benchmarks can be run from the project root or from the benchmarks module.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+final class Samples {
+
+	static final String ALL = "all";
+
+	private static File directory() {
+		final String property = System.getProperty("samples");
+		if (property != null) {
+			return new File(property);
+		}
+		final File local = new File("samples");
+		return local.isDirectory() ? local : new File("../samples");
+	}
+
+	/**
+	 * @param sample a file name, or "all" for every sample.
+	 */
+	static List<File> files(final String sample) {
+		final File[] files = directory().listFiles(File::isFile);
+		if (files == null || files.length == 0) {
+			throw new IllegalStateException("No thread dumps found in " + directory().getAbsolutePath()
+					+ ", set -Dsamples=<path to the samples directory>");
+		}
+		Arrays.sort(files);
+		if (ALL.equals(sample)) {
+			return Arrays.asList(files);
+		}
+		final File file = new File(directory(), sample);
+		if (!file.isFile()) {
+			throw new IllegalArgumentException("Unknown sample: " + file.getAbsolutePath());
+		}
+		return Arrays.asList(file);
+	}
+
+	static List<String> read(final List<File> files) throws IOException {
+		final List<String> contents = new ArrayList<>(files.size());
+		for (final File file : files) {
+			contents.add(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+		}
+		return contents;
+	}
+
+	private Samples() {}
+
+}
@@ -0,0 +1,70 @@
+package com.thread.dump.parser.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.thread.dump.parser.ThreadDumpReader;
+
+/**
+ * Parsing whole thread dumps, every operation parses all the selected samples.
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ThreadDumpReaderBenchmark {
+
+	// A file name under samples/ or "all"
+	@Param(Samples.ALL)
+	public String sample;
+
+	private List<File> files;
+	private List<String> contents;
+
+	@Setup
+	public void setUp() throws IOException {
+		files = Samples.files(sample);
+		contents = Samples.read(files);
+	}
+
+	@Benchmark
+	public void fromFile(final Blackhole blackhole) throws IOException {
+		for (final File file : files) {
+			blackhole.consume(ThreadDumpReader.fromFile(file.getPath()));
+		}
+	}
+
+	@Benchmark
+	public void fromString(final Blackhole blackhole) throws IOException {
+		for (final String content : contents) {
+			blackhole.consume(ThreadDumpReader.fromString(content));
+		}
+	}
+
+	@Benchmark
+	public void fromMappedFile(final Blackhole blackhole) throws IOException {
+		for (final File file : files) {
+			blackhole.consume(ThreadDumpReader.fromMappedFile(file.toPath()));
+		}
+	}
+
+}
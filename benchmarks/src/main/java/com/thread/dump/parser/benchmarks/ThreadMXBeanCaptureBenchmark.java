@@ -0,0 +1,112 @@
+package com.thread.dump.parser.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.thread.dump.parser.ParseOptions;
+import com.thread.dump.parser.SamplingProfiler;
+import com.thread.dump.parser.ThreadMXBeanCapture;
+import com.thread.dump.parser.domain.ThreadInfo;
+import com.thread.dump.parser.util.StackFramePool;
+import com.thread.dump.parser.util.StackSampler;
+
+/**
+ * Capturing the threads of the running JVM, with the given number of extra threads parked the given number of
+ * frames deep. {@link #dumpAllThreads} is the bean call alone, the baseline of the captures.
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ThreadMXBeanCaptureBenchmark {
+
+	@Param({"100", "1000"})
+	public int threads;
+
+	@Param("30")
+	public int depth;
+
+	private final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+	private final List<Thread> parked = new ArrayList<>();
+	private final CountDownLatch done = new CountDownLatch(1);
+	private ParseOptions options;
+	private SamplingProfiler profiler;
+
+	@Setup
+	public void setUp() throws InterruptedException {
+		final CountDownLatch started = new CountDownLatch(threads);
+		for (int i = 0; i < threads; i++) {
+			final Thread thread = new Thread(() -> park(depth, started), "parked-" + i);
+			thread.setDaemon(true);
+			thread.start();
+			parked.add(thread);
+		}
+		started.await();
+		options = ParseOptions.defaults().withFramePool(new StackFramePool());
+		profiler = SamplingProfiler.live(new StackSampler(600, 10_000));
+	}
+
+	private void park(final int frames, final CountDownLatch started) {
+		if (frames > 0) {
+			park(frames - 1, started);
+			return;
+		}
+		started.countDown();
+		try {
+			done.await();
+		} catch (final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws InterruptedException {
+		done.countDown();
+		for (final Thread thread : parked) {
+			thread.join();
+		}
+	}
+
+	@Benchmark
+	public java.lang.management.ThreadInfo[] dumpAllThreads() {
+		return bean.dumpAllThreads(bean.isObjectMonitorUsageSupported(), bean.isSynchronizerUsageSupported());
+	}
+
+	@Benchmark
+	public List<ThreadInfo> capture() {
+		return ThreadMXBeanCapture.capture(options);
+	}
+
+	@Benchmark
+	public List<ThreadInfo> captureStacks() {
+		return ThreadMXBeanCapture.captureStacks(options);
+	}
+
+	@Benchmark
+	public StackSampler sample() {
+		profiler.sample();
+		return profiler.getSampler();
+	}
+
+}
@@ -0,0 +1,129 @@
+package com.thread.dump.parser.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.thread.dump.parser.ThreadDumpReader;
+import com.thread.dump.parser.domain.ThreadInfo;
+import com.thread.dump.parser.util.ParsingConstants;
+import com.thread.dump.parser.util.PatternConstants;
+import com.thread.dump.parser.util.ThreadParsing;
+
+/**
+ * The {@link ThreadParsing} calls, over the lines and the threads of the selected samples.
+ *
+ * <p>{@link #extractThreadInfoFromLineWithRegex} is the header regex the tokenizer replaced, building the same
+ * ThreadInfo it used to, kept as a baseline.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ThreadParsingBenchmark {
+
+	// A file name under samples/ or "all"
+	@Param(Samples.ALL)
+	public String sample;
+
+	private final List<String> headerLines = new ArrayList<>();
+	private final List<String> stateLines = new ArrayList<>();
+	private final List<List<ThreadInfo>> dumps = new ArrayList<>();
+
+	@Setup
+	public void setUp() throws IOException {
+		for (final String content : Samples.read(Samples.files(sample))) {
+			for (final String line : content.split("\r?\n")) {
+				if (line.startsWith("\"")) {
+					headerLines.add(line);
+				} else if (line.contains("java.lang.Thread.State: ")) {
+					stateLines.add(line);
+				}
+			}
+			dumps.add(ThreadDumpReader.fromString(content));
+		}
+	}
+
+	@Benchmark
+	public void extractThreadInfoFromLine(final Blackhole blackhole) {
+		for (final String line : headerLines) {
+			blackhole.consume(ThreadParsing.extractThreadInfoFromLine(line));
+		}
+	}
+
+	@Benchmark
+	public void extractThreadInfoFromLineWithRegex(final Blackhole blackhole) {
+		for (final String line : headerLines) {
+			blackhole.consume(extractThreadInfoFromLineWithRegex(line));
+		}
+	}
+
+	/**
+	 * ThreadParsing.extractThreadInfoFromLine as it was before the tokenizer, building the same ThreadInfo.
+	 */
+	private static Optional<ThreadInfo> extractThreadInfoFromLineWithRegex(final String threadHeaderLine) {
+		final Matcher matcher = PatternConstants.THREAD_NAME_MATCHER.matcher(threadHeaderLine);
+
+		if (matcher.find() && matcher.groupCount() == ParsingConstants.THREAD_NAME_FIELD_COUNT) {
+			final ThreadInfo threadInfo = new ThreadInfo();
+			threadInfo.setName(matcher.group(PatternConstants.ThreadNameFieldsIndex.NAME.get()));
+			threadInfo.setId(matcher.group(PatternConstants.ThreadNameFieldsIndex.ID.get()));
+			threadInfo.setNativeId(matcher.group(PatternConstants.ThreadNameFieldsIndex.NATIVE_ID.get()));
+
+			if (threadHeaderLine.contains(" daemon ")) {
+				threadInfo.setDaemon(true);
+			}
+			return Optional.of(threadInfo);
+		}
+		return Optional.empty();
+	}
+
+	@Benchmark
+	public void extractThreadState(final Blackhole blackhole) {
+		for (final String line : stateLines) {
+			blackhole.consume(ThreadParsing.extractThreadState(line));
+		}
+	}
+
+	@Benchmark
+	public void lockingInfo(final Blackhole blackhole) {
+		for (final List<ThreadInfo> threads : dumps) {
+			blackhole.consume(ThreadParsing.lockingInfo(threads));
+		}
+	}
+
+	@Benchmark
+	public void holds(final Blackhole blackhole) {
+		for (final List<ThreadInfo> threads : dumps) {
+			blackhole.consume(ThreadParsing.holds(threads));
+		}
+	}
+
+	@Benchmark
+	public void mostUsedMethods(final Blackhole blackhole) {
+		for (final List<ThreadInfo> threads : dumps) {
+			blackhole.consume(ThreadParsing.mostUsedMethods(threads));
+		}
+	}
+
+}
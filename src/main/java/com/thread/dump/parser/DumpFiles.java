@@ -0,0 +1,165 @@
+package com.thread.dump.parser;
+
+import java.io.BufferedInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Opens dump files, compressed or not: gzip files and zip archives are told apart by their first bytes, not by their
+ * names, and decompressed as they are read, without temporary files.
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+final class DumpFiles {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	enum Format {
+		PLAIN,
+		GZIP,
+		ZIP
+	}
+
+	static Format formatOf(final Path path) throws IOException {
+		try (final InputStream in = Files.newInputStream(path)) {
+			final byte[] magic = new byte[4];
+			int read = 0;
+			for (int n = in.read(magic); n > 0 && read < magic.length; n = in.read(magic, read, magic.length - read)) {
+				read += n;
+			}
+			return formatOf(magic, read);
+		}
+	}
+
+	private static Format formatOf(final byte[] magic, final int length) {
+		if (length >= 2 && (magic[0] & 0xFF) == 0x1F && (magic[1] & 0xFF) == 0x8B) {
+			return Format.GZIP;
+		}
+		if (length >= 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4) {
+			return Format.ZIP;
+		}
+		return Format.PLAIN;
+	}
+
+	/**
+	 * @return the text of the file; for a zip archive, the text of every entry, one after the other.
+	 */
+	static Reader newReader(final Path path) throws IOException {
+		switch (formatOf(path)) {
+			case GZIP:
+				return new InputStreamReader(new GZIPInputStream(Files.newInputStream(path), BUFFER_SIZE));
+			case ZIP:
+				return new InputStreamReader(new ZipEntriesInputStream(new ZipInputStream(new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE))));
+			default:
+				return new FileReader(path.toFile());
+		}
+	}
+
+	/**
+	 * @return the stream, decompressed if it's gzipped, e.g. a .gz file inside a zip archive.
+	 */
+	static InputStream decompressed(final InputStream in) throws IOException {
+		final BufferedInputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+		buffered.mark(2);
+		final byte[] magic = {(byte) buffered.read(), (byte) buffered.read()};
+		buffered.reset();
+		return formatOf(magic, magic.length) == Format.GZIP ? new GZIPInputStream(buffered, BUFFER_SIZE) : buffered;
+	}
+
+	/**
+	 * The entries of a zip archive, one after the other, with a blank line between them so that a dump cut at the
+	 * end of an entry doesn't run into the next one.
+	 */
+	private static final class ZipEntriesInputStream extends InputStream {
+
+		private static final byte[] SEPARATOR = {'\n', '\n'};
+
+		private final ZipInputStream zip;
+		private InputStream entry;
+		private int separator = SEPARATOR.length;
+
+		private ZipEntriesInputStream(final ZipInputStream zip) {
+			this.zip = zip;
+		}
+
+		@Override
+		public int read() throws IOException {
+			final byte[] b = new byte[1];
+			return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			while (true) {
+				if (separator < SEPARATOR.length) {
+					b[off] = SEPARATOR[separator++];
+					return 1;
+				}
+				if (entry != null) {
+					final int read = entry.read(b, off, len);
+					if (read >= 0) {
+						return read;
+					}
+					entry = null;
+					separator = 0;
+					continue;
+				}
+				final ZipEntry next = nextFile();
+				if (next == null) {
+					return -1;
+				}
+				entry = decompressed(new EntryInputStream(zip));
+			}
+		}
+
+		private ZipEntry nextFile() throws IOException {
+			for (ZipEntry next = zip.getNextEntry(); next != null; next = zip.getNextEntry()) {
+				if (!next.isDirectory()) {
+					return next;
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public void close() throws IOException {
+			zip.close();
+		}
+	}
+
+	/**
+	 * The current entry of a zip stream, closing it doesn't close the archive.
+	 */
+	private static final class EntryInputStream extends InputStream {
+
+		private final ZipInputStream zip;
+
+		private EntryInputStream(final ZipInputStream zip) {
+			this.zip = zip;
+		}
+
+		@Override
+		public int read() throws IOException {
+			return zip.read();
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) throws IOException {
+			return zip.read(b, off, len);
+		}
+	}
+
+	private DumpFiles() {}
+
+}
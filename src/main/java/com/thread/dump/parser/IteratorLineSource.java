@@ -0,0 +1,67 @@
+package com.thread.dump.parser;
+
+import java.util.Iterator;
+import java.util.Optional;
+
+import com.thread.dump.parser.util.ParsingConstants;
+import com.thread.dump.parser.util.ThreadParsing;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * {@link LineSource} over lines that are already Strings, for instance the ones coming from a {@link java.io.BufferedReader}.
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+final class IteratorLineSource implements LineSource {
+
+	private final Iterator<String> lines;
+	private String line;
+	// Characters of the lines read so far, one more for each line terminator.
+	private long consumed;
+
+	IteratorLineSource(final Iterator<String> lines) {
+		this.lines = lines;
+	}
+
+	@Override
+	public boolean advance() {
+		if (lines.hasNext()) {
+			line = lines.next();
+			consumed += line.length() + 1;
+			return true;
+		}
+		line = null;
+		return false;
+	}
+
+	@Override
+	public boolean isThreadHeader() {
+		return line.startsWith(ParsingConstants.THREAD_INFORMATION_BEGIN);
+	}
+
+	@Override
+	public boolean isBlank() {
+		return StringUtils.isBlank(line);
+	}
+
+	@Override
+	public String line() {
+		return line;
+	}
+
+	@Override
+	public Optional<Thread.State> threadState() {
+		return ThreadParsing.extractThreadState(line);
+	}
+
+	@Override
+	public String trimmedLine() {
+		return line.trim();
+	}
+
+	@Override
+	public long consumed() {
+		return consumed;
+	}
+
+}
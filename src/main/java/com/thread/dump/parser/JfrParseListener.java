@@ -0,0 +1,41 @@
+package com.thread.dump.parser;
+
+/**
+ * Records every parse as a "com.thread.dump.parser.Parse" JFR event, with the time spent in each phase.
+ * <pre>
+ * ParseOptions options = ParseOptions.defaults().withListener(new JfrParseListener());
+ * </pre>
+ *
+ * <p>Parses are only measured while a recording has the event enabled. Needs a JVM with the jdk.jfr module
+ * (11+, or 8u272+), nothing else in the parser depends on it.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public final class JfrParseListener implements ParseListener {
+
+	@Override
+	public boolean isEnabled() {
+		return new ParseEvent().isEnabled();
+	}
+
+	@Override
+	public void parsed(final ParseMetrics metrics) {
+		final ParseEvent event = new ParseEvent();
+		if (!event.isEnabled()) {
+			return;
+		}
+		event.threads = metrics.getThreads();
+		event.lines = metrics.getLines();
+		event.inputLength = metrics.getInputLength().orElse(-1L);
+		event.totalNanos = metrics.getTotalNanos();
+		event.readNanos = metrics.getReadNanos();
+		event.headerNanos = metrics.getHeaderNanos();
+		event.stackNanos = metrics.getStackNanos();
+		event.lockNanos = metrics.getLockNanos();
+		event.analysis = metrics.getAnalysis().orElse(null);
+		event.analysisNanos = metrics.getAnalysisNanos();
+		event.allocatedBytes = metrics.getAllocatedBytes().orElse(-1L);
+		event.commit();
+	}
+
+}
@@ -0,0 +1,46 @@
+package com.thread.dump.parser;
+
+import java.util.Optional;
+
+/**
+ * The lines of a thread dump, as seen by {@link ThreadDumpIterator}.
+ *
+ * <p>Implementations only have to materialize the lines the parser actually keeps,
+ * the rest of them are inspected in place.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+interface LineSource {
+
+	/**
+	 * Moves to the next line.
+	 * @return false once there are no more lines.
+	 */
+	boolean advance();
+
+	boolean isThreadHeader();
+
+	boolean isBlank();
+
+	String line();
+
+	Optional<Thread.State> threadState();
+
+	/**
+	 * @return the line without leading and trailing whitespaces, like {@link String#trim()}.
+	 */
+	String trimmedLine();
+
+	/**
+	 * @return the position of the current line in the input, in bytes, or -1 if it isn't known.
+	 */
+	default long offset() {
+		return -1;
+	}
+
+	/**
+	 * @return how much of the input was read so far: bytes, or characters when the lines are Strings already.
+	 */
+	long consumed();
+
+}
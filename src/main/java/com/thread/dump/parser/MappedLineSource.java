@@ -0,0 +1,222 @@
+package com.thread.dump.parser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * {@link LineSource} scanning the bytes of a memory mapped thread dump file.
+ *
+ * <p>Only the lines the parser keeps, thread headers and stack traces, are decoded into Strings.
+ * Everything else is inspected in place, as bytes. The file is expected to be
+ * ASCII or UTF-8, and it's mapped in windows so it can be bigger than 2 GB.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+final class MappedLineSource implements LineSource {
+
+	private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+	private static final int CHUNK_SIZE = 64 * 1024;
+
+	private static final byte[] STATE_MARKER = "java.lang.Thread.State: ".getBytes(StandardCharsets.US_ASCII);
+
+	private final FileChannel channel;
+	private final long size;
+	private final int windowSize;
+
+	private MappedByteBuffer window;
+	private long windowEnd;
+
+	// Bytes are copied in bulk from the mapping, scanning them from an array is a lot cheaper than MappedByteBuffer.get(int).
+	private byte[] chunk = new byte[CHUNK_SIZE];
+	private int chunkLength;
+	// Position of the first byte of the chunk in the file.
+	private long chunkOffset;
+
+	// Current line, [start, end) within the chunk, and the start of the next one.
+	private int start;
+	private int end;
+	private int next;
+
+	MappedLineSource(final FileChannel channel) throws IOException {
+		this(channel, WINDOW_SIZE);
+	}
+
+	MappedLineSource(final FileChannel channel, final int windowSize) throws IOException {
+		this.channel = channel;
+		this.size = channel.size();
+		this.windowSize = windowSize;
+	}
+
+	private boolean hasMoreInput() {
+		return (window != null && window.hasRemaining()) || windowEnd < size;
+	}
+
+	/**
+	 * Moves the unread bytes to the beginning of the chunk and fills the rest of it from the mapping.
+	 * @return false if there was nothing left to read.
+	 */
+	private boolean fill() {
+		if (next > 0) {
+			System.arraycopy(chunk, next, chunk, 0, chunkLength - next);
+			chunkLength -= next;
+			chunkOffset += next;
+			next = 0;
+		} else if (chunkLength == chunk.length) {
+			// A line longer than the chunk.
+			chunk = Arrays.copyOf(chunk, chunk.length * 2);
+		}
+
+		boolean filled = false;
+		while (chunkLength < chunk.length && hasMoreInput()) {
+			if (window == null || !window.hasRemaining()) {
+				map();
+			}
+			final int count = Math.min(chunk.length - chunkLength, window.remaining());
+			window.get(chunk, chunkLength, count);
+			chunkLength += count;
+			filled = true;
+		}
+		return filled;
+	}
+
+	private void map() {
+		try {
+			final int length = (int) Math.min(windowSize, size - windowEnd);
+			window = channel.map(FileChannel.MapMode.READ_ONLY, windowEnd, length);
+			windowEnd += length;
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private int findLineEnd(final int from) {
+		int i = from;
+		while (i < chunkLength && chunk[i] != '\n' && chunk[i] != '\r') {
+			i++;
+		}
+		return i;
+	}
+
+	@Override
+	public boolean advance() {
+		if (next >= chunkLength && !fill()) {
+			return false;
+		}
+
+		int i = findLineEnd(next);
+		// The line, or its \r\n terminator, could continue after the chunk.
+		while ((i == chunkLength || (i == chunkLength - 1 && chunk[i] == '\r')) && hasMoreInput()) {
+			final int scanned = i - next;
+			fill();
+			i = findLineEnd(scanned);
+		}
+
+		start = next;
+		end = i;
+
+		// Same line terminators as BufferedReader.readLine(): \n, \r or \r\n
+		if (i < chunkLength) {
+			i += (chunk[i] == '\r' && i + 1 < chunkLength && chunk[i + 1] == '\n') ? 2 : 1;
+		}
+		next = i;
+		return true;
+	}
+
+	@Override
+	public boolean isThreadHeader() {
+		return end > start && chunk[start] == '"';
+	}
+
+	@Override
+	public boolean isBlank() {
+		for (int i = start; i < end; i++) {
+			if (!Character.isWhitespace(chunk[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public String line() {
+		return decode(start, end);
+	}
+
+	@Override
+	public Optional<Thread.State> threadState() {
+		final int marker = indexOfStateMarker();
+		if (marker < 0) {
+			return Optional.empty();
+		}
+
+		final int from = marker + STATE_MARKER.length;
+		int to = from;
+		while (to < end && chunk[to] != ' ') {
+			to++;
+		}
+		return Optional.of(Thread.State.valueOf(decode(from, to)));
+	}
+
+	// Same as the STATE pattern, the marker has to come after some whitespace.
+	private int indexOfStateMarker() {
+		final int last = end - STATE_MARKER.length;
+		for (int i = start + 1; i <= last; i++) {
+			if (chunk[i] == STATE_MARKER[0] && isRegexWhitespace(chunk[i - 1]) && matchesMarkerAt(i)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private boolean matchesMarkerAt(final int position) {
+		for (int j = 1; j < STATE_MARKER.length; j++) {
+			if (chunk[position + j] != STATE_MARKER[j]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isRegexWhitespace(final byte b) {
+		return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+	}
+
+	@Override
+	public String trimmedLine() {
+		// Same as String.trim(), anything up to a space is trimmed.
+		int from = start;
+		int to = end;
+		while (from < to && isTrimmable(chunk[from])) {
+			from++;
+		}
+		while (to > from && isTrimmable(chunk[to - 1])) {
+			to--;
+		}
+		return decode(from, to);
+	}
+
+	@Override
+	public long offset() {
+		return chunkOffset + start;
+	}
+
+	@Override
+	public long consumed() {
+		return chunkOffset + next;
+	}
+
+	private static boolean isTrimmable(final byte b) {
+		return b >= 0 && b <= ' ';
+	}
+
+	private String decode(final int from, final int to) {
+		return new String(chunk, from, to - from, StandardCharsets.UTF_8);
+	}
+
+}
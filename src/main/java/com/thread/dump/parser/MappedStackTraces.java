@@ -0,0 +1,72 @@
+package com.thread.dump.parser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+import com.thread.dump.parser.domain.ThreadInfo;
+import com.thread.dump.parser.util.StackFramePool;
+
+/**
+ * The stack traces of a memory mapped thread dump file, parsed again from their bytes when they are needed.
+ *
+ * <p>The whole file stays mapped, in windows so it can be bigger than 2 GB, for as long as any of its
+ * threads is reachable. A mapping doesn't need the channel it came from to be open.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+final class MappedStackTraces {
+
+	private static final int WINDOW_SIZE = 1 << 30;
+
+	private final MappedByteBuffer[] windows;
+	private final long size;
+	private final StackFramePool framePool;
+
+	MappedStackTraces(final FileChannel channel, final StackFramePool framePool) throws IOException {
+		this.size = channel.size();
+		this.framePool = framePool;
+		this.windows = new MappedByteBuffer[(int) ((size + WINDOW_SIZE - 1) / WINDOW_SIZE)];
+		for (int i = 0; i < windows.length; i++) {
+			final long position = (long) i * WINDOW_SIZE;
+			windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, size - position));
+		}
+	}
+
+	long size() {
+		return size;
+	}
+
+	/**
+	 * @param start position of the thread header.
+	 * @param end position right after its stack trace and locked synchronizers.
+	 */
+	Supplier<ThreadInfo> loader(final long start, final long end) {
+		return () -> load(start, end);
+	}
+
+	private ThreadInfo load(final long start, final long end) {
+		final byte[] bytes = new byte[(int) (end - start)];
+		int copied = 0;
+		while (copied < bytes.length) {
+			final long position = start + copied;
+			// The window is shared by all the threads, a duplicate has a position of its own.
+			final ByteBuffer window = windows[(int) (position / WINDOW_SIZE)].duplicate();
+			window.position((int) (position % WINDOW_SIZE));
+			final int count = Math.min(bytes.length - copied, window.remaining());
+			window.get(bytes, copied, count);
+			copied += count;
+		}
+
+		final BufferedReader lines = new BufferedReader(new StringReader(new String(bytes, StandardCharsets.UTF_8)));
+		final ThreadDumpIterator threads = new ThreadDumpIterator(new IteratorLineSource(lines.lines().iterator()),
+				ParseOptions.defaults().withFramePool(framePool));
+		return threads.hasNext() ? threads.next() : new ThreadInfo();
+	}
+
+}
@@ -0,0 +1,85 @@
+package com.thread.dump.parser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import com.thread.dump.parser.domain.ThreadDump;
+
+/**
+ * Reads log files holding many consecutive thread dumps, e.g. the stdout of a JVM receiving a {@code kill -3} every few seconds.
+ *
+ * <p>Every dump is parsed on its own fork-join task as soon as its last line has been read,
+ * while the rest of the file is still being split. Gzipped files and zip archives are decompressed as they are read.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public final class MultiDumpReader {
+
+	private static List<ThreadDump> read(final Reader reader, final ForkJoinPool pool, final ParseOptions options) throws IOException {
+		// The dumps of the same file share their stack frames, their locks are recorded in order once they are all parsed.
+		final Supplier<ParseOptions> parts = options.forParts();
+		final List<ParseOptions> dumpOptions = new ArrayList<>();
+
+		final List<ForkJoinTask<ThreadDump>> dumps = new ArrayList<>();
+		final ThreadDumpSplitter splitter = new ThreadDumpSplitter(block -> {
+			final ParseOptions blockOptions = parts.get();
+			dumpOptions.add(blockOptions);
+			dumps.add(pool.submit(() -> block.parse(blockOptions)));
+		});
+
+		try (final BufferedReader br = new BufferedReader(reader)) {
+			for (String line = br.readLine(); line != null; line = br.readLine()) {
+				splitter.accept(line);
+			}
+		}
+		splitter.finish();
+
+		final List<ThreadDump> parsed = dumps.stream().map(ForkJoinTask::join).collect(Collectors.toList());
+		dumpOptions.forEach(options::addLocksOf);
+		return parsed;
+	}
+
+	public static List<ThreadDump> fromFile(final String threadDumpFilePath) throws IOException {
+		return fromFile(threadDumpFilePath, ForkJoinPool.commonPool());
+	}
+
+	public static List<ThreadDump> fromFile(final String threadDumpFilePath, final ForkJoinPool pool) throws IOException {
+		return fromFile(threadDumpFilePath, pool, ParseOptions.defaults());
+	}
+
+	public static List<ThreadDump> fromFile(final String threadDumpFilePath, final ForkJoinPool pool, final ParseOptions options) throws IOException {
+		return read(DumpFiles.newReader(Paths.get(threadDumpFilePath)), pool, options);
+	}
+
+	/**
+	 * Parses the dumps one after the other, in the calling thread, each one is handed to the consumer once parsed.
+	 * Only the dump being read is kept in memory, however many the file has. The dumps share their stack frames.
+	 */
+	public static void forEach(final String threadDumpFilePath, final Consumer<ThreadDump> consumer) throws IOException {
+		final Supplier<ParseOptions> parts = ParseOptions.defaults().forParts();
+		final ThreadDumpSplitter splitter = new ThreadDumpSplitter(block -> consumer.accept(block.parse(parts.get())));
+		try (final BufferedReader br = new BufferedReader(DumpFiles.newReader(Paths.get(threadDumpFilePath)))) {
+			for (String line = br.readLine(); line != null; line = br.readLine()) {
+				splitter.accept(line);
+			}
+		}
+		splitter.finish();
+	}
+
+	public static List<ThreadDump> fromString(final String content) throws IOException {
+		return read(new StringReader(content), ForkJoinPool.commonPool(), ParseOptions.defaults());
+	}
+
+	private MultiDumpReader() {}
+
+}
@@ -0,0 +1,64 @@
+package com.thread.dump.parser;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * The JFR event recorded by {@link JfrParseListener}, one per parse.
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+@Name("com.thread.dump.parser.Parse")
+@Label("Thread Dump Parse")
+@Category("Thread Dump Parser")
+@Description("A thread dump, or a part of it, parsed, or parsed threads analyzed")
+final class ParseEvent extends Event {
+
+	@Label("Threads")
+	long threads;
+
+	@Label("Lines")
+	long lines;
+
+	@Label("Input Length")
+	@Description("Bytes for mapped files, characters otherwise, -1 if unknown")
+	long inputLength;
+
+	@Label("Total Time")
+	@Timespan
+	long totalNanos;
+
+	@Label("Reading")
+	@Timespan
+	long readNanos;
+
+	@Label("Headers")
+	@Timespan
+	long headerNanos;
+
+	@Label("Stack Frames")
+	@Timespan
+	long stackNanos;
+
+	@Label("Locks")
+	@Timespan
+	long lockNanos;
+
+	@Label("Analysis")
+	@Description("The analysis of parsed threads measured, null for a parse")
+	String analysis;
+
+	@Label("Analysis Time")
+	@Timespan
+	long analysisNanos;
+
+	@Label("Allocated")
+	@DataAmount
+	long allocatedBytes;
+
+}
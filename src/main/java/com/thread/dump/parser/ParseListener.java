@@ -0,0 +1,24 @@
+package com.thread.dump.parser;
+
+/**
+ * Told about every parse done with the {@link ParseOptions} it was set on, see {@link ParseOptions#withListener(ParseListener)},
+ * and about the analyses of parsed threads it's given to, see {@link ParseMetrics#getAnalysis()}.
+ *
+ * <p>Parses done in parts, in parallel or one dump at a time, report each part on its own, from the thread that
+ * parsed it, so listeners should be thread safe. Lazy streams only report once they have been fully consumed.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+@FunctionalInterface
+public interface ParseListener {
+
+	void parsed(ParseMetrics metrics);
+
+	/**
+	 * Asked when a parse starts, nothing is measured for the parse if the listener isn't interested at the moment.
+	 */
+	default boolean isEnabled() {
+		return true;
+	}
+
+}
@@ -0,0 +1,197 @@
+package com.thread.dump.parser;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import com.thread.dump.parser.domain.ThreadInfo;
+import com.thread.dump.parser.util.ThreadParsing;
+
+/**
+ * What a parse went through and where its time went, given to a {@link ParseListener}.
+ *
+ * <p>The phases are timed only when there is a listener: reading the lines, parsing the thread headers, parsing the
+ * stack frames and recording the locks into the lock index. Whatever is left (looking for headers, states, ...)
+ * is only part of the total.</p>
+ *
+ * <p>The analyses of parsed threads given a listener, e.g. {@link ThreadParsing#lockingInfo(List, ParseListener)}, are
+ * reported the same way, with their name and the time spent in them, see {@link #getAnalysis()}.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public final class ParseMetrics {
+
+	// Taken when the parse starts, on the thread that parses, which could be another one than the one that set it up.
+	private Thread startThread;
+	private long startNanos;
+	private long startAllocatedBytes;
+
+	private long lines;
+	private long threads;
+	private long inputLength = -1;
+	private long readNanos;
+	private long headerNanos;
+	private long stackNanos;
+	private long lockNanos;
+	private String analysis;
+	private long analysisNanos;
+	private long totalNanos;
+	private long allocated = -1;
+
+	void start() {
+		if (startThread == null) {
+			startThread = Thread.currentThread();
+			startNanos = System.nanoTime();
+			startAllocatedBytes = allocatedBytes();
+		}
+	}
+
+	void addLine(final long nanos) {
+		lines++;
+		readNanos += nanos;
+	}
+
+	void addThread() {
+		threads++;
+	}
+
+	void addHeader(final long nanos) {
+		headerNanos += nanos;
+	}
+
+	void addStack(final long nanos) {
+		stackNanos += nanos;
+	}
+
+	void addLocks(final long nanos) {
+		lockNanos += nanos;
+	}
+
+	void finish(final long inputLength) {
+		start();
+		this.totalNanos = System.nanoTime() - startNanos;
+		this.inputLength = inputLength;
+		// The allocations are counted by thread, they can't be told when a parse moved to another one.
+		final long allocatedBytes = startThread == Thread.currentThread() ? allocatedBytes() : -1;
+		this.allocated = startAllocatedBytes < 0 || allocatedBytes < 0 ? -1 : allocatedBytes - startAllocatedBytes;
+	}
+
+	/**
+	 * Runs an analysis of parsed threads and tells the listener how it went, if it's interested.
+	 * @param analysis the name of the analysis, see {@link #getAnalysis()}.
+	 */
+	public static <T> T analyze(final ParseListener listener, final String analysis, final List<ThreadInfo> threads,
+			final Function<List<ThreadInfo>, T> function) {
+		if (listener == null || !listener.isEnabled()) {
+			return function.apply(threads);
+		}
+		final ParseMetrics metrics = new ParseMetrics();
+		metrics.start();
+		final T result = function.apply(threads);
+		metrics.finish(-1);
+		metrics.analysis = analysis;
+		metrics.analysisNanos = metrics.totalNanos;
+		metrics.threads = threads.size();
+		listener.parsed(metrics);
+		return result;
+	}
+
+	/**
+	 * The bytes allocated so far by the current thread, -1 if the JVM doesn't tell.
+	 */
+	private static long allocatedBytes() {
+		final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+			if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+				return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1;
+	}
+
+	public long getLines() {
+		return lines;
+	}
+
+	public long getThreads() {
+		return threads;
+	}
+
+	/**
+	 * @return the size of the input that was read: bytes for mapped files, characters otherwise.
+	 */
+	public Optional<Long> getInputLength() {
+		return inputLength < 0 ? Optional.empty() : Optional.of(inputLength);
+	}
+
+	public long getReadNanos() {
+		return readNanos;
+	}
+
+	public long getHeaderNanos() {
+		return headerNanos;
+	}
+
+	public long getStackNanos() {
+		return stackNanos;
+	}
+
+	public long getLockNanos() {
+		return lockNanos;
+	}
+
+	/**
+	 * @return the analysis of parsed threads that was measured, e.g. "lockingInfo", empty for a parse.
+	 */
+	public Optional<String> getAnalysis() {
+		return Optional.ofNullable(analysis);
+	}
+
+	public long getAnalysisNanos() {
+		return analysisNanos;
+	}
+
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+
+	/**
+	 * @return the bytes allocated by the thread that parsed, when the JVM tells (HotSpot does). Empty when the parse
+	 * didn't finish on the thread it started on, e.g. a lazy stream consumed by several threads.
+	 */
+	public Optional<Long> getAllocatedBytes() {
+		return allocated < 0 ? Optional.empty() : Optional.of(allocated);
+	}
+
+	public double getLinesPerSecond() {
+		return perSecond(lines);
+	}
+
+	public double getThreadsPerSecond() {
+		return perSecond(threads);
+	}
+
+	/**
+	 * @return bytes, or characters, per second, see {@link #getInputLength()}.
+	 */
+	public double getInputPerSecond() {
+		return perSecond(Math.max(inputLength, 0));
+	}
+
+	private double perSecond(final long count) {
+		return totalNanos == 0 ? 0 : count * 1e9 / totalNanos;
+	}
+
+	@Override
+	public String toString() {
+		if (analysis != null) {
+			return String.format("%s of %d thread(s) in %.3f ms", analysis, threads, analysisNanos / 1e6);
+		}
+		return String.format("%d thread(s), %d line(s) in %.3f ms (read: %.3f ms, headers: %.3f ms, stacks: %.3f ms, locks: %.3f ms)",
+				threads, lines, totalNanos / 1e6, readNanos / 1e6, headerNanos / 1e6, stackNanos / 1e6, lockNanos / 1e6);
+	}
+
+}
@@ -0,0 +1,112 @@
+package com.thread.dump.parser;
+
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import com.thread.dump.parser.domain.ThreadInfo;
+import com.thread.dump.parser.util.LockIndex;
+import com.thread.dump.parser.util.StackFramePool;
+
+/**
+ * Optional settings for {@link ThreadDumpReader} and {@link MultiDumpReader}.
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public final class ParseOptions {
+
+	private StackFramePool framePool;
+	private LockIndex lockIndex;
+	private Predicate<ThreadInfo> filter;
+	private boolean headersOnly;
+	private ParseListener listener;
+
+	public static ParseOptions defaults() {
+		return new ParseOptions();
+	}
+
+	/**
+	 * Shares the stack frames with everything else parsed with the same pool, e.g. a whole series of dumps.
+	 * By default every parse gets its own pool, frames are only shared by the threads of the same dump.
+	 */
+	public ParseOptions withFramePool(final StackFramePool framePool) {
+		this.framePool = framePool;
+		return this;
+	}
+
+	public StackFramePool getFramePool() {
+		return framePool;
+	}
+
+	/**
+	 * Records the lock annotations of every parsed thread into the index, so nothing has to go over the stack traces again.
+	 */
+	public ParseOptions withLockIndex(final LockIndex lockIndex) {
+		this.lockIndex = lockIndex;
+		return this;
+	}
+
+	public LockIndex getLockIndex() {
+		return lockIndex;
+	}
+
+	/**
+	 * Keeps only the threads accepted by the filter. It is given each thread right after its header and state,
+	 * with no stack trace yet (id, name, state, daemon, priorities ...), and the stack trace of a rejected thread
+	 * is skipped without being parsed.
+	 */
+	public ParseOptions withFilter(final Predicate<ThreadInfo> filter) {
+		this.filter = filter;
+		return this;
+	}
+
+	public Predicate<ThreadInfo> getFilter() {
+		return filter;
+	}
+
+	/**
+	 * Parses only the thread headers and states, stack traces and locked synchronizers are skipped
+	 * (and so are not added to the lock index).
+	 */
+	public ParseOptions withHeadersOnly() {
+		this.headersOnly = true;
+		return this;
+	}
+
+	public boolean isHeadersOnly() {
+		return headersOnly;
+	}
+
+	/**
+	 * Tells the listener how every parse went, see {@link ParseMetrics}. Without a listener nothing is measured.
+	 */
+	public ParseOptions withListener(final ParseListener listener) {
+		this.listener = listener;
+		return this;
+	}
+
+	public ParseListener getListener() {
+		return listener;
+	}
+
+	/**
+	 * The options for the parts of an input parsed on their own, e.g. chunks or the dumps of a file: they share
+	 * the same frames, even when no pool was set, and each part records its locks into an index of its own, to be
+	 * added back in order with {@link #addLocksOf(ParseOptions)}.
+	 */
+	Supplier<ParseOptions> forParts() {
+		final StackFramePool sharedPool = framePool != null ? framePool : new StackFramePool();
+		return () -> {
+			final ParseOptions part = defaults().withFramePool(sharedPool).withLockIndex(lockIndex != null ? new LockIndex() : null)
+					.withFilter(filter).withListener(listener);
+			part.headersOnly = headersOnly;
+			return part;
+		};
+	}
+
+	void addLocksOf(final ParseOptions part) {
+		if (lockIndex != null) {
+			lockIndex.addAll(part.getLockIndex());
+		}
+	}
+
+}
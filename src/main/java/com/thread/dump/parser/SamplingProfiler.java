@@ -0,0 +1,106 @@
+package com.thread.dump.parser;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.thread.dump.parser.domain.ThreadInfo;
+import com.thread.dump.parser.util.StackFramePool;
+import com.thread.dump.parser.util.StackSampler;
+
+/**
+ * Takes samples of threads at a fixed period and adds them to a {@link StackSampler}, a poor man's sampling profiler.
+ *
+ * <p>Samples come from any source: the running JVM, see {@link #live(StackSampler)}, or the dumps of a log, feeding
+ * the sampler from a {@link ThreadDumpFollower} instead.</p>
+ * <pre>
+ * StackSampler sampler = new StackSampler(600, 10_000);
+ * try (SamplingProfiler profiler = SamplingProfiler.live(sampler).start(100, TimeUnit.MILLISECONDS)) {
+ *     ...
+ *     sampler.topStacks(10).forEach(System.out::println);
+ * }
+ * </pre>
+ *
+ * <p>A live sample costs what {@link ThreadMXBeanCapture#captureStacks(ParseOptions)} does: for 100 threads 30 frames
+ * deep, around 6 ms and 340 KB of garbage, mostly the stack trace elements of the bean; for 1000 threads, around 70 ms
+ * and 3.4 MB. Adding it to the sampler is lost in the noise and allocates next to nothing once its stacks have been
+ * seen. At 10 to 20 Hz with 100 threads, that's 6 to 12% of a core and 3 to 7 MB/s of short lived garbage. The numbers
+ * come from ThreadMXBeanCaptureBenchmark under benchmarks/, on JDK 17 and a single core.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public final class SamplingProfiler implements Closeable {
+
+	private final Supplier<List<ThreadInfo>> source;
+	private final StackSampler sampler;
+	private Consumer<Exception> errorHandler = ex -> {};
+	private ScheduledExecutorService executor;
+
+	public SamplingProfiler(final Supplier<List<ThreadInfo>> source, final StackSampler sampler) {
+		this.source = source;
+		this.sampler = sampler;
+	}
+
+	/**
+	 * Samples the stacks of the running JVM, the samples share their frames through a {@link StackFramePool}.
+	 */
+	public static SamplingProfiler live(final StackSampler sampler) {
+		final ParseOptions options = ParseOptions.defaults().withFramePool(new StackFramePool());
+		return new SamplingProfiler(() -> ThreadMXBeanCapture.captureStacks(options), sampler);
+	}
+
+	/**
+	 * @param errorHandler told about the samples that failed while sampling in the background, the sampling goes on.
+	 */
+	public SamplingProfiler withErrorHandler(final Consumer<Exception> errorHandler) {
+		this.errorHandler = errorHandler;
+		return this;
+	}
+
+	public StackSampler getSampler() {
+		return sampler;
+	}
+
+	/**
+	 * Takes a sample now.
+	 */
+	public void sample() {
+		sampler.add(source.get());
+	}
+
+	/**
+	 * Takes samples in the background, on a daemon thread, until {@link #close()}.
+	 */
+	public synchronized SamplingProfiler start(final long period, final TimeUnit unit) {
+		if (executor != null) {
+			throw new IllegalStateException("Already sampling");
+		}
+		executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			final Thread thread = new Thread(runnable, "sampling-profiler");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleAtFixedRate(() -> {
+			try {
+				sample();
+			} catch (final RuntimeException ex) {
+				// An exception thrown out of the task would cancel the following samples.
+				errorHandler.accept(ex);
+			}
+		}, 0, period, unit);
+		return this;
+	}
+
+	@Override
+	public synchronized void close() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+}
@@ -0,0 +1,228 @@
+package com.thread.dump.parser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.thread.dump.parser.domain.ThreadInfo;
+
+/**
+ * Keeps the threads of recently parsed files, for tools which parse the same dumps over and over.
+ *
+ * <p>A file is parsed again when its size or modification time changes. The least recently used files are evicted
+ * once there are more than the maximum number of files, or more threads than the maximum number of threads, which
+ * bounds the memory taken by the cache.</p>
+ * <pre>
+ * ThreadDumpCache cache = new ThreadDumpCache(100, 1_000_000);
+ * List&lt;ThreadInfo&gt; threads = cache.fromFile("/var/log/app/tdump.txt");
+ * </pre>
+ *
+ * <p>Thread safe. Callers asking for a file being parsed wait for that parse instead of starting their own. The lists
+ * and threads are shared by every caller and shouldn't be modified.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public final class ThreadDumpCache {
+
+	@FunctionalInterface
+	interface Parser {
+		List<ThreadInfo> parse(Path path) throws IOException;
+	}
+
+	private static final class Entry {
+
+		private final long size;
+		private final long lastModified;
+		private final CompletableFuture<List<ThreadInfo>> threads = new CompletableFuture<>();
+		// Number of threads, 0 until parsed.
+		private long weight;
+
+		private Entry(final long size, final long lastModified) {
+			this.size = size;
+			this.lastModified = lastModified;
+		}
+
+		private boolean isOf(final BasicFileAttributes attributes) {
+			return size == attributes.size() && lastModified == attributes.lastModifiedTime().toMillis();
+		}
+	}
+
+	private final int maximumEntries;
+	private final long maximumThreads;
+	private final Parser parser;
+
+	// In access order, the least recently used first.
+	private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long threadCount;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * @param maximumEntries the number of files to keep.
+	 * @param maximumThreads the number of threads to keep, among all the files. A parsed thread takes around 1 KB.
+	 */
+	public ThreadDumpCache(final int maximumEntries, final long maximumThreads) {
+		this(maximumEntries, maximumThreads, path -> ThreadDumpReader.fromFile(path.toString()));
+	}
+
+	ThreadDumpCache(final int maximumEntries, final long maximumThreads, final Parser parser) {
+		if (maximumEntries <= 0 || maximumThreads <= 0) {
+			throw new IllegalArgumentException("The maximums should be positive");
+		}
+		this.maximumEntries = maximumEntries;
+		this.maximumThreads = maximumThreads;
+		this.parser = parser;
+	}
+
+	public List<ThreadInfo> fromFile(final String threadDumpFilePath) throws IOException {
+		return fromFile(Paths.get(threadDumpFilePath));
+	}
+
+	/**
+	 * @return the threads of the file, parsed now if it isn't in the cache or changed since it was parsed.
+	 */
+	public List<ThreadInfo> fromFile(final Path threadDumpFilePath) throws IOException {
+		final Path path = threadDumpFilePath.toAbsolutePath().normalize();
+		final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+
+		final Entry entry;
+		final boolean parse;
+		synchronized (this) {
+			final Entry cached = entries.get(path);
+			parse = cached == null || !cached.isOf(attributes);
+			if (parse) {
+				if (cached != null) {
+					remove(path, cached);
+				}
+				entry = new Entry(attributes.size(), attributes.lastModifiedTime().toMillis());
+				entries.put(path, entry);
+			} else {
+				entry = cached;
+			}
+		}
+
+		if (!parse) {
+			hits.incrementAndGet();
+			return await(entry);
+		}
+		misses.incrementAndGet();
+		try {
+			final List<ThreadInfo> threads = Collections.unmodifiableList(parser.parse(path));
+			added(path, entry, threads.size());
+			entry.threads.complete(threads);
+		} catch (final IOException | RuntimeException | Error ex) {
+			synchronized (this) {
+				remove(path, entry);
+			}
+			entry.threads.completeExceptionally(ex);
+		}
+		return await(entry);
+	}
+
+	/**
+	 * Forgets the file, it's parsed again on the next call.
+	 */
+	public synchronized void invalidate(final Path threadDumpFilePath) {
+		final Path path = threadDumpFilePath.toAbsolutePath().normalize();
+		final Entry entry = entries.get(path);
+		if (entry != null) {
+			remove(path, entry);
+		}
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+		threadCount = 0;
+	}
+
+	/**
+	 * @return the number of files in the cache, including the ones being parsed.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return the number of threads in the cache.
+	 */
+	public synchronized long threadCount() {
+		return threadCount;
+	}
+
+	/**
+	 * @return the number of calls answered from the cache, or by waiting for a parse another caller started.
+	 */
+	public long hitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * @return the number of calls which parsed the file.
+	 */
+	public long missCount() {
+		return misses.get();
+	}
+
+	/**
+	 * @return the number of files evicted to stay within the maximums.
+	 */
+	public long evictionCount() {
+		return evictions.get();
+	}
+
+	private synchronized void added(final Path path, final Entry entry, final long weight) {
+		// Invalidated while it was parsed, it's returned but not kept.
+		if (entries.get(path) != entry) {
+			return;
+		}
+		entry.weight = weight;
+		threadCount += weight;
+
+		final Iterator<Map.Entry<Path, Entry>> eldest = entries.entrySet().iterator();
+		while ((entries.size() > maximumEntries || threadCount > maximumThreads) && eldest.hasNext()) {
+			final Map.Entry<Path, Entry> next = eldest.next();
+			// Files being parsed have no weight yet, and the one just added is kept even if it's too big on its own.
+			if (next.getValue() == entry || (!next.getValue().threads.isDone() && entries.size() <= maximumEntries)) {
+				continue;
+			}
+			eldest.remove();
+			threadCount -= next.getValue().weight;
+			evictions.incrementAndGet();
+		}
+	}
+
+	private void remove(final Path path, final Entry entry) {
+		if (entries.remove(path, entry)) {
+			threadCount -= entry.weight;
+		}
+	}
+
+	private static List<ThreadInfo> await(final Entry entry) throws IOException {
+		try {
+			return entry.threads.join();
+		} catch (final CompletionException ex) {
+			final Throwable cause = ex.getCause();
+			if (cause instanceof IOException) {
+				// A new exception, with the stack of this caller.
+				throw new IOException(cause.getMessage(), cause);
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw (Error) cause;
+		}
+	}
+
+}
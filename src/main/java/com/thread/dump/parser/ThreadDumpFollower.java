@@ -0,0 +1,214 @@
+package com.thread.dump.parser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import com.thread.dump.parser.domain.ThreadDump;
+import com.thread.dump.parser.util.StackFramePool;
+
+/**
+ * Follows a log file the thread dumps are appended to, e.g. the stdout of a JVM receiving a {@code kill -3} every few
+ * seconds, like {@code tail -F} does.
+ *
+ * <p>Every poll reads what was appended since the previous one, never the whole file again. Each dump is parsed and
+ * handed to the consumer as soon as its last line, the "JNI global" one, has been written. When the file is
+ * truncated, or rotated (a new file with the same name), it's read again from its beginning.</p>
+ * <pre>
+ * ThreadDumpFollower follower = new ThreadDumpFollower(Paths.get("stdout.log"), dump -&gt; System.out.println(dump));
+ * follower.start(1, TimeUnit.SECONDS);
+ * ...
+ * follower.close();
+ * </pre>
+ *
+ * <p>The dumps share their stack frames through a {@link StackFramePool}, a new one after a rotation, or once it holds
+ * more frames than {@link #withMaximumPooledFrames(int)}, so following a log for days doesn't keep every frame ever seen.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public final class ThreadDumpFollower implements Closeable {
+
+	private static final int READ_BUFFER_SIZE = 1 << 16;
+
+	private static final int DEFAULT_MAXIMUM_POOLED_FRAMES = 1 << 18;
+
+	private final Path path;
+	private final Consumer<ThreadDump> consumer;
+	private boolean fromBeginning;
+	private Consumer<Exception> errorHandler = ex -> {};
+	private int maximumPooledFrames = DEFAULT_MAXIMUM_POOLED_FRAMES;
+
+	// The file being read, null if the platform has no file keys, and where the next poll starts.
+	private Object fileKey;
+	private long offset = -1;
+	private final ByteArrayOutputStream partialLine = new ByteArrayOutputStream();
+	private ThreadDumpSplitter splitter;
+	private ParseOptions options;
+	private int dumps;
+
+	private ScheduledExecutorService executor;
+
+	public ThreadDumpFollower(final Path path, final Consumer<ThreadDump> consumer) {
+		this.path = path;
+		this.consumer = consumer;
+		restart();
+	}
+
+	/**
+	 * Reads the dumps already in the file too, by default only the ones appended after the first poll are.
+	 */
+	public ThreadDumpFollower fromBeginning() {
+		this.fromBeginning = true;
+		return this;
+	}
+
+	/**
+	 * @param errorHandler told about the errors reading the file while polling in the background, the polls go on.
+	 * Also told about the dumps that couldn't be parsed, or that the consumer failed with, those are skipped and
+	 * the following ones are still handed out.
+	 */
+	public ThreadDumpFollower withErrorHandler(final Consumer<Exception> errorHandler) {
+		this.errorHandler = errorHandler;
+		return this;
+	}
+
+	/**
+	 * @param maximumPooledFrames the frames shared by the dumps before starting over with a new pool, the dumps already
+	 * handed out keep theirs. Generated classes (lambdas, reflection accessors, ...) keep adding frames to a pool.
+	 */
+	public ThreadDumpFollower withMaximumPooledFrames(final int maximumPooledFrames) {
+		if (maximumPooledFrames < 1) {
+			throw new IllegalArgumentException("maximumPooledFrames must be at least 1: " + maximumPooledFrames);
+		}
+		this.maximumPooledFrames = maximumPooledFrames;
+		return this;
+	}
+
+	/**
+	 * Polls the file in the background, on a daemon thread, until {@link #close()}.
+	 */
+	public synchronized ThreadDumpFollower start(final long period, final TimeUnit unit) {
+		if (executor != null) {
+			throw new IllegalStateException("Already following " + path);
+		}
+		executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			final Thread thread = new Thread(runnable, "thread-dump-follower");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleWithFixedDelay(() -> {
+			try {
+				poll();
+			} catch (final IOException | RuntimeException ex) {
+				// An exception thrown out of the task would cancel the following polls.
+				errorHandler.accept(ex);
+			}
+		}, 0, period, unit);
+		return this;
+	}
+
+	/**
+	 * Reads what was appended to the file since the previous poll.
+	 * @return the number of dumps handed to the consumer.
+	 */
+	public synchronized int poll() throws IOException {
+		final BasicFileAttributes attributes;
+		try {
+			attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		} catch (final NoSuchFileException ex) {
+			// Being rotated.
+			return 0;
+		}
+
+		if (offset < 0) {
+			fileKey = attributes.fileKey();
+			offset = fromBeginning ? 0 : attributes.size();
+		} else if (!Objects.equals(fileKey, attributes.fileKey()) || attributes.size() < offset) {
+			fileKey = attributes.fileKey();
+			offset = 0;
+			restart();
+		}
+		if (attributes.size() == offset) {
+			return 0;
+		}
+
+		dumps = 0;
+		try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			channel.position(offset);
+			final ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+			for (int read = channel.read(buffer); read > 0; read = channel.read(buffer)) {
+				offset += read;
+				accept(buffer.array(), read);
+				buffer.clear();
+			}
+		}
+		return dumps;
+	}
+
+	/**
+	 * Stops polling, the dumps not finished yet are dropped.
+	 */
+	@Override
+	public synchronized void close() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	/**
+	 * Splits the bytes in lines, the last one is kept until its end is written.
+	 */
+	private void accept(final byte[] bytes, final int length) {
+		int start = 0;
+		for (int i = 0; i < length; i++) {
+			if (bytes[i] == '\n') {
+				partialLine.write(bytes, start, i - start);
+				splitter.accept(line());
+				partialLine.reset();
+				start = i + 1;
+			}
+		}
+		partialLine.write(bytes, start, length - start);
+	}
+
+	private String line() {
+		final byte[] bytes = partialLine.toByteArray();
+		final int length = bytes.length > 0 && bytes[bytes.length - 1] == '\r' ? bytes.length - 1 : bytes.length;
+		return new String(bytes, 0, length, StandardCharsets.UTF_8);
+	}
+
+	private void restart() {
+		partialLine.reset();
+		options = newOptions();
+		splitter = new ThreadDumpSplitter(block -> {
+			try {
+				consumer.accept(block.parse(options));
+				dumps++;
+			} catch (final RuntimeException ex) {
+				errorHandler.accept(ex);
+			}
+			if (options.getFramePool().size() > maximumPooledFrames) {
+				options = newOptions();
+			}
+		});
+	}
+
+	private static ParseOptions newOptions() {
+		return ParseOptions.defaults().withFramePool(new StackFramePool());
+	}
+
+}
@@ -0,0 +1,293 @@
+package com.thread.dump.parser;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import static com.thread.dump.parser.util.ParsingConstants.LOCKED_OWNABLE_SYNCHRONIZERS;
+
+import com.thread.dump.parser.domain.StackFrame;
+import com.thread.dump.parser.domain.ThreadInfo;
+import com.thread.dump.parser.util.LockIndex;
+import com.thread.dump.parser.util.StackFramePool;
+import com.thread.dump.parser.util.ThreadParsing;
+
+/**
+ * Pulls {@link ThreadInfo} objects out of a sequence of thread dump lines, one thread at a time.
+ *
+ * <p>Only the thread currently being parsed (plus a single line of look-ahead) is kept in memory,
+ * so the source can be arbitrarily large.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public final class ThreadDumpIterator implements Iterator<ThreadInfo> {
+
+	private final LineSource lines;
+	private final StackFramePool framePool;
+	private final LockIndex lockIndex;
+	private final Predicate<ThreadInfo> filter;
+	private final boolean headersOnly;
+	// Stack traces to be loaded on demand, instead of being parsed now.
+	private final MappedStackTraces lazyStackTraces;
+	// Only measured when there is a listener.
+	private final ParseListener listener;
+	private final ParseMetrics metrics;
+	private boolean finished;
+
+	// Parsed threads not yet handed out, there could be two of them when two threads are together.
+	private final Deque<ThreadInfo> pending = new ArrayDeque<>(2);
+
+	// The current line has to be looked at again.
+	private boolean pushedBack;
+
+	public ThreadDumpIterator(final Iterator<String> lines) {
+		this(lines, ParseOptions.defaults());
+	}
+
+	public ThreadDumpIterator(final Iterator<String> lines, final ParseOptions options) {
+		this(new IteratorLineSource(lines), options);
+	}
+
+	ThreadDumpIterator(final LineSource lines, final ParseOptions options) {
+		this(lines, options, null);
+	}
+
+	ThreadDumpIterator(final LineSource lines, final ParseOptions options, final MappedStackTraces lazyStackTraces) {
+		this.lines = lines;
+		this.framePool = options.getFramePool() != null ? options.getFramePool() : new StackFramePool();
+		this.lockIndex = options.getLockIndex();
+		this.filter = options.getFilter();
+		this.headersOnly = options.isHeadersOnly();
+		this.lazyStackTraces = headersOnly ? null : lazyStackTraces;
+		this.listener = options.getListener();
+		this.metrics = listener != null && listener.isEnabled() ? new ParseMetrics() : null;
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (pending.isEmpty()) {
+			if (!parseNextThread()) {
+				finished();
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public ThreadInfo next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		if (metrics != null) {
+			metrics.addThread();
+		}
+		return pending.poll();
+	}
+
+	private void finished() {
+		if (metrics != null && !finished) {
+			finished = true;
+			metrics.finish(lines.consumed());
+			listener.parsed(metrics);
+		}
+	}
+
+	private boolean nextLine() {
+		if (pushedBack) {
+			pushedBack = false;
+			return true;
+		}
+		if (metrics == null) {
+			return lines.advance();
+		}
+		// The first line starts the parse, on the thread that consumes the threads.
+		metrics.start();
+		final long start = System.nanoTime();
+		final boolean advanced = lines.advance();
+		if (advanced) {
+			metrics.addLine(System.nanoTime() - start);
+		}
+		return advanced;
+	}
+
+	private Optional<ThreadInfo> extractThreadInfo(final String line) {
+		if (metrics == null) {
+			return ThreadParsing.extractThreadInfoFromLine(line);
+		}
+		final long start = System.nanoTime();
+		final Optional<ThreadInfo> thread = ThreadParsing.extractThreadInfoFromLine(line);
+		metrics.addHeader(System.nanoTime() - start);
+		return thread;
+	}
+
+	private void addLock(final ThreadInfo thread, final StackFrame lock) {
+		if (metrics == null) {
+			lockIndex.add(thread, lock);
+			return;
+		}
+		final long start = System.nanoTime();
+		lockIndex.add(thread, lock);
+		metrics.addLocks(System.nanoTime() - start);
+	}
+
+	/**
+	 * Advances until at least one thread has been parsed.
+	 * @return false once the lines are exhausted.
+	 */
+	private boolean parseNextThread() {
+		while (nextLine()) {
+			if (!lines.isThreadHeader()) {
+				continue;
+			}
+
+			final String line = lines.line();
+			final long start = lines.offset();
+			final Optional<ThreadInfo> threadInfo = extractThreadInfo(line);
+			if (!threadInfo.isPresent()) {
+				continue;
+			}
+
+			final ThreadInfo thread = threadInfo.get();
+			thread.setStackSignature(StackFrame.EMPTY_STACK_SIGNATURE);
+			if (ThreadParsing.hasRunnableState(line)) {
+				thread.setState("runnable");
+			}
+
+			if (!nextLine()) {
+				return false;
+			}
+
+			// Look for the thread state:
+			final Optional<Thread.State> state = lines.threadState();
+			if (state.isPresent()) {
+				thread.setState(state.get().toString());
+				if (!nextLine()) {
+					return false;
+				}
+			} else if (lines.isThreadHeader()) {
+				// There could be two threads together without a thread state ...
+				final String line2 = lines.line();
+				addIfAccepted(thread);
+				extractThreadInfo(line2).ifPresent(th -> {
+					th.setStackSignature(StackFrame.EMPTY_STACK_SIGNATURE);
+					if (ThreadParsing.hasRunnableState(line2)) {
+						th.setState("runnable");
+					} else if (ThreadParsing.hasWaitingOnConditionState(line2)) {
+						th.setState("waiting on condition");
+					}
+					addIfAccepted(th);
+				});
+				return true;
+			} else {
+				// No state and no stack trace, the line has to be looked at again.
+				pushedBack = true;
+				addIfAccepted(thread);
+				return true;
+			}
+
+			final boolean accepted = accepts(thread);
+			if (!accepted || headersOnly || lazyStackTraces != null) {
+				skipStackTrace();
+				if (accepted) {
+					if (lazyStackTraces != null) {
+						thread.setStackLoader(lazyStackTraces.loader(start, pushedBack ? lines.offset() : lazyStackTraces.size()));
+					}
+					pending.add(thread);
+				}
+				return true;
+			}
+
+			final List<StackFrame> frames = new ArrayList<>();
+			long stackSignature = StackFrame.EMPTY_STACK_SIGNATURE;
+			boolean more = true;
+			while (more && !lines.isBlank() && !lines.isThreadHeader()) {
+				final long frameStart = metrics != null ? System.nanoTime() : 0;
+				final StackFrame frame = framePool.frame(lines.trimmedLine());
+				frames.add(frame);
+				stackSignature = StackFrame.nextStackSignature(stackSignature, frame);
+				if (metrics != null) {
+					metrics.addStack(System.nanoTime() - frameStart);
+				}
+				if (lockIndex != null && frame.isLock()) {
+					addLock(thread, frame);
+				}
+				more = nextLine();
+			}
+
+			if (!frames.isEmpty()) {
+				thread.setStackFrames(frames);
+			}
+			thread.setStackSignature(stackSignature);
+			if (more && lines.isBlank()) {
+				parseLockedSynchronizers(thread);
+			}
+			pending.add(thread);
+			return true;
+		}
+		return false;
+	}
+
+	private boolean accepts(final ThreadInfo thread) {
+		return filter == null || filter.test(thread);
+	}
+
+	private void addIfAccepted(final ThreadInfo thread) {
+		if (accepts(thread)) {
+			pending.add(thread);
+		}
+	}
+
+	/**
+	 * Moves past the stack trace and the locked synchronizers of the current thread without parsing them,
+	 * leaving the next thread header (if any) to be looked at again.
+	 */
+	private void skipStackTrace() {
+		boolean more = true;
+		while (more && !lines.isThreadHeader()) {
+			more = nextLine();
+		}
+		if (more) {
+			pushedBack = true;
+		}
+	}
+
+	/**
+	 * The "Locked ownable synchronizers" section, when the stack trace is followed by it (jstack -l).
+	 * Any other line is left to be looked at again.
+	 */
+	private void parseLockedSynchronizers(final ThreadInfo thread) {
+		if (!nextLine()) {
+			return;
+		}
+		if (lines.isThreadHeader() || !LOCKED_OWNABLE_SYNCHRONIZERS.equals(lines.trimmedLine())) {
+			pushedBack = true;
+			return;
+		}
+
+		final List<StackFrame> synchronizers = new ArrayList<>(1);
+		while (nextLine() && !lines.isBlank()) {
+			if (lines.isThreadHeader()) {
+				pushedBack = true;
+				break;
+			}
+			final StackFrame synchronizer = framePool.ownableSynchronizer(lines.trimmedLine());
+			if (synchronizer != null) {
+				synchronizers.add(synchronizer);
+				if (lockIndex != null) {
+					addLock(thread, synchronizer);
+				}
+			}
+		}
+
+		if (!synchronizers.isEmpty()) {
+			thread.setLockedSynchronizers(synchronizers);
+		}
+	}
+
+}
@@ -3,126 +3,244 @@
 package com.thread.dump.parser;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import com.thread.dump.parser.domain.StackTraceLock;
 import com.thread.dump.parser.domain.ThreadInfo;
 import com.thread.dump.parser.util.ParsingConstants;
-import com.thread.dump.parser.util.ThreadParsing;
+import com.thread.dump.parser.util.StackFramePool;
 import org.apache.commons.lang3.StringUtils;
 
-import static com.thread.dump.parser.util.ParsingConstants.NEW_LINE;
-
 /**
  * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
  */
 public final class ThreadDumpReader {
 
-	private static List<ThreadInfo> parse(final List<String> tlines) {
+	// Chunks smaller than this aren't worth a task of their own.
+	private static final int MIN_CHUNK_LINES = 4096;
 
+	private static List<ThreadInfo> parse(final LineSource lines, final ParseOptions options) {
 		final List<ThreadInfo> threads = new ArrayList<>();
-		
-		for (int i = 0; i < tlines.size(); i++) {
+		new ThreadDumpIterator(lines, options).forEachRemaining(threads::add);
+		return threads;
+	}
 
-			String line = tlines.get(i);
-			if (line.startsWith(ParsingConstants.THREAD_INFORMATION_BEGIN)) {
-				Optional<ThreadInfo> threadInfoTogether = Optional.empty();
-				final Optional<ThreadInfo> threadInfo = ThreadParsing.extractThreadInfoFromLine(line);
+	private static List<ThreadInfo> read(final Reader reader, final ParseOptions options) throws IOException {
+		try (final BufferedReader br = new BufferedReader(reader)) {
+			return parse(new IteratorLineSource(br.lines().iterator()), options);
+		} catch (final UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
 
-				if (threadInfo.isPresent()) {
-					boolean threadTogether = false;
-					final ThreadInfo thread = threadInfo.get();
+	/**
+	 * Lazily parses the thread dump, only the thread being parsed is kept in memory.
+	 * The returned stream should be closed, to release the underlying reader.
+	 */
+	public static Stream<ThreadInfo> stream(final Reader reader) {
+		return stream(reader, ParseOptions.defaults());
+	}
 
-					if (ThreadParsing.hasRunnableState(line)) {
-						thread.setState("runnable");
+	public static Stream<ThreadInfo> stream(final Reader reader, final ParseOptions options) {
+		final BufferedReader br = new BufferedReader(reader);
+		final Iterator<ThreadInfo> threads = new ThreadDumpIterator(br.lines().iterator(), options);
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(threads, Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(() -> {
+					try {
+						br.close();
+					} catch (final IOException e) {
+						throw new UncheckedIOException(e);
 					}
+				});
+	}
 
-					i++;
-					if (i < tlines.size()) {
-						line = tlines.get(i);
-					} else {
-						break;
-					}
+	public static Stream<ThreadInfo> stream(final Path threadDumpFilePath) throws IOException {
+		return stream(threadDumpFilePath, ParseOptions.defaults());
+	}
 
-					// Look for the thread state:
-					final Optional<Thread.State> state = ThreadParsing.extractThreadState(line);
-					if (state.isPresent()) {
-						thread.setState(state.get().toString());
-						line = tlines.get(i++);
-					} else {
-						i--;
-					}
+	public static Stream<ThreadInfo> stream(final Path threadDumpFilePath, final ParseOptions options) throws IOException {
+		return stream(DumpFiles.newReader(threadDumpFilePath), options);
+	}
 
-					// There could be two threads together without a thread state ...
-					if (line.startsWith(ParsingConstants.THREAD_INFORMATION_BEGIN)) {
-						final String line2 = line;
-						threadInfoTogether = ThreadParsing.extractThreadInfoFromLine(line);
-						threadTogether = true;
-						threadInfoTogether.ifPresent(th -> {
-							if (ThreadParsing.hasRunnableState(line2)) {
-								th.setState("runnable");
-							} else if (ThreadParsing.hasWaitingOnConditionState(line2)) {
-								th.setState("waiting on condition");
-							}
-						});
-						i++;
-					}
+	/**
+	 * Parses the file, decompressing it first when it's gzipped. The entries of a zip archive are parsed one after
+	 * the other, as if they were a single file, see {@link #fromZip(Path)} to keep them apart.
+	 */
+	public static List<ThreadInfo> fromFile(final String threadDumpFilePath) throws IOException {
+		return fromFile(threadDumpFilePath, ParseOptions.defaults());
+	}
 
-					if (i < tlines.size()) {
-						line = tlines.get(i);
-					} else {
-						break;
-					}
+	public static List<ThreadInfo> fromFile(final String threadDumpFilePath, final ParseOptions options) throws IOException {
+		return read(DumpFiles.newReader(Paths.get(threadDumpFilePath)), options);
+	}
 
-					final StringBuilder sb = new StringBuilder();
-					while (StringUtils.isNotBlank(line) && !line.startsWith(ParsingConstants.THREAD_INFORMATION_BEGIN)) {
-						sb.append(line.trim()).append(NEW_LINE);
-						i++;
-						if (i < tlines.size()) {
-							line = tlines.get(i);
-						} else {
-							break;
-						}
-					}
+	/**
+	 * Parses every file in the zip archive on its own, concurrently, straight from the archive. Entries can be
+	 * gzipped themselves.
+	 * @return by entry name, the threads of each file, in the order of the archive.
+	 */
+	public static Map<String, List<ThreadInfo>> fromZip(final Path zipFilePath) throws IOException {
+		return fromZip(zipFilePath, ParseOptions.defaults());
+	}
 
-					if (StringUtils.isNotEmpty(sb.toString())) {
-						thread.setStackTrace(sb.toString());
-					}
+	public static Map<String, List<ThreadInfo>> fromZip(final Path zipFilePath, final ParseOptions options) throws IOException {
+		try (final ZipFile zip = new ZipFile(zipFilePath.toFile())) {
+			final List<ZipEntry> entries = zip.stream().filter(entry -> !entry.isDirectory()).collect(Collectors.toList());
+			// The entries share their frames, their locks are recorded in order once they are all parsed.
+			final List<ParseOptions> entryOptions = Stream.generate(options.forParts()).limit(entries.size()).collect(Collectors.toList());
 
-					if (threadTogether) {
-						threads.add(thread);
-						threadInfoTogether.ifPresent(th -> threads.add(th));
-					} else {
-						threads.add(thread);
-					}
-				}
+			final List<ForkJoinTask<List<ThreadInfo>>> parsed = new ArrayList<>(entries.size());
+			for (int i = 0; i < entries.size(); i++) {
+				final ZipEntry entry = entries.get(i);
+				final ParseOptions entryOption = entryOptions.get(i);
+				parsed.add(ForkJoinPool.commonPool().submit(() ->
+						read(new InputStreamReader(DumpFiles.decompressed(zip.getInputStream(entry))), entryOption)));
 			}
 
+			final Map<String, List<ThreadInfo>> threads = new LinkedHashMap<>();
+			for (int i = 0; i < entries.size(); i++) {
+				threads.put(entries.get(i).getName(), join(parsed.get(i)));
+			}
+			entryOptions.forEach(options::addLocksOf);
+			return threads;
 		}
+	}
 
-		return threads;
+	private static <T> T join(final ForkJoinTask<T> task) throws IOException {
+		try {
+			return task.join();
+		} catch (final UncheckedIOException e) {
+			throw e.getCause();
+		} catch (final RuntimeException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw e;
+		}
 	}
 
-	private static List<ThreadInfo> read(final Reader reader) throws IOException {
-		final List<String> lines = new ArrayList<>();
-		try (final BufferedReader br = new BufferedReader(reader)) {
-			for (String line = br.readLine(); line != null; line = br.readLine()) {
-				lines.add(line);
+	public static List<ThreadInfo> fromString(final String content) throws IOException {
+		return fromString(content, ParseOptions.defaults());
+	}
+
+	public static List<ThreadInfo> fromString(final String content, final ParseOptions options) throws IOException {
+		return read(new StringReader(content), options);
+	}
+
+	/**
+	 * Parses a single, big, thread dump using all the cores, the result is the same as {@link #fromFile(String)}.
+	 */
+	public static List<ThreadInfo> fromFileInParallel(final String threadDumpFilePath) throws IOException {
+		return fromFileInParallel(threadDumpFilePath, ParseOptions.defaults());
+	}
+
+	public static List<ThreadInfo> fromFileInParallel(final String threadDumpFilePath, final ParseOptions options) throws IOException {
+		if (ForkJoinPool.getCommonPoolParallelism() < 2) {
+			return fromFile(threadDumpFilePath, options);
+		}
+		try (final BufferedReader br = new BufferedReader(DumpFiles.newReader(Paths.get(threadDumpFilePath)))) {
+			return parseInParallel(br.lines().collect(Collectors.toList()), MIN_CHUNK_LINES, options);
+		} catch (final UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	public static List<ThreadInfo> fromStringInParallel(final String content) throws IOException {
+		return fromStringInParallel(content, ParseOptions.defaults());
+	}
+
+	public static List<ThreadInfo> fromStringInParallel(final String content, final ParseOptions options) throws IOException {
+		try (final BufferedReader br = new BufferedReader(new StringReader(content))) {
+			return parseInParallel(br.lines().collect(Collectors.toList()), MIN_CHUNK_LINES, options);
+		}
+	}
+
+	/**
+	 * Cuts the lines in chunks right before a thread header that comes after a blank line, where the parser
+	 * is never in the middle of a thread, and parses the chunks concurrently keeping their original order.
+	 */
+	static List<ThreadInfo> parseInParallel(final List<String> lines, final int minChunkLines, final ParseOptions options) {
+		final int chunkLines = Math.max(minChunkLines, lines.size() / (ForkJoinPool.getCommonPoolParallelism() * 4));
+
+		final List<Integer> chunkStarts = new ArrayList<>();
+		chunkStarts.add(0);
+		for (int i = 1, chunkStart = 0; i < lines.size(); i++) {
+			if (i - chunkStart >= chunkLines
+					&& lines.get(i).startsWith(ParsingConstants.THREAD_INFORMATION_BEGIN)
+					&& StringUtils.isBlank(lines.get(i - 1))) {
+				chunkStarts.add(i);
+				chunkStart = i;
 			}
 		}
+		chunkStarts.add(lines.size());
+
+		// All the chunks share the same frames, as if the dump was parsed in one go.
+		final List<ParseOptions> chunkOptions = Stream.generate(options.forParts()).limit(chunkStarts.size() - 1).collect(Collectors.toList());
 
-		return parse(lines);
+		final List<ThreadInfo> threads = IntStream.range(0, chunkStarts.size() - 1)
+				.parallel()
+				.mapToObj(chunk -> parse(new IteratorLineSource(lines.subList(chunkStarts.get(chunk), chunkStarts.get(chunk + 1)).iterator()),
+						chunkOptions.get(chunk)))
+				.flatMap(List::stream)
+				.collect(Collectors.toList());
+		chunkOptions.forEach(options::addLocksOf);
+		return threads;
 	}
 
-	public static List<ThreadInfo> fromFile(final String threadDumpFilePath) throws IOException {
-		return read(new FileReader(threadDumpFilePath));
+	/**
+	 * Parses the file scanning its bytes through a memory mapping, instead of decoding it line by line.
+	 * Meant for big, uncompressed, ASCII/UTF-8 files, the result is the same as {@link #fromFile(String)}.
+	 */
+	public static List<ThreadInfo> fromMappedFile(final Path threadDumpFilePath) throws IOException {
+		return fromMappedFile(threadDumpFilePath, ParseOptions.defaults());
 	}
 
-	public static List<ThreadInfo> fromString(final String content) throws IOException {
-		return read(new StringReader(content));
+	public static List<ThreadInfo> fromMappedFile(final Path threadDumpFilePath, final ParseOptions options) throws IOException {
+		try (final FileChannel channel = FileChannel.open(threadDumpFilePath, StandardOpenOption.READ)) {
+			return parse(new MappedLineSource(channel), options);
+		} catch (final UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Same as {@link #fromMappedFile(Path)}, but only the thread headers and states are parsed now, each stack trace
+	 * is parsed from the mapping the first time it's used and kept through a soft reference.
+	 * The file stays mapped while any of the threads is reachable, and the lock index of the options isn't filled.
+	 */
+	public static List<ThreadInfo> fromMappedFileLazily(final Path threadDumpFilePath) throws IOException {
+		return fromMappedFileLazily(threadDumpFilePath, ParseOptions.defaults());
+	}
+
+	public static List<ThreadInfo> fromMappedFileLazily(final Path threadDumpFilePath, final ParseOptions options) throws IOException {
+		try (final FileChannel channel = FileChannel.open(threadDumpFilePath, StandardOpenOption.READ)) {
+			final StackFramePool framePool = options.getFramePool() != null ? options.getFramePool() : new StackFramePool();
+			final List<ThreadInfo> threads = new ArrayList<>();
+			new ThreadDumpIterator(new MappedLineSource(channel), options, new MappedStackTraces(channel, framePool))
+					.forEachRemaining(threads::add);
+			return threads;
+		} catch (final UncheckedIOException e) {
+			throw e.getCause();
+		}
 	}
 	
 	private static void printLockingThreadInformation(
@@ -0,0 +1,111 @@
+package com.thread.dump.parser;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.thread.dump.parser.domain.ThreadDump;
+import com.thread.dump.parser.domain.ThreadInfo;
+
+import static com.thread.dump.parser.util.ParsingConstants.THREAD_DUMP_BEGIN;
+import static com.thread.dump.parser.util.ParsingConstants.THREAD_DUMP_END;
+import static com.thread.dump.parser.util.PatternConstants.THREAD_DUMP_TIMESTAMP;
+import static com.thread.dump.parser.util.PatternConstants.THREAD_DUMP_TIMESTAMP_FORMATTER;
+
+/**
+ * Finds the "Full thread dump" blocks in a sequence of log lines.
+ *
+ * <p>A block starts with the "Full thread dump" header (the timestamp is the line right before it)
+ * and ends with the "JNI global" line, or when the next block starts. Anything outside the blocks,
+ * application logging for instance, is ignored.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+final class ThreadDumpSplitter {
+
+	/**
+	 * The lines of a single thread dump, not parsed yet.
+	 */
+	static final class Block {
+
+		private final LocalDateTime timestamp;
+		private final String banner;
+		private List<String> lines = new ArrayList<>();
+
+		private Block(final LocalDateTime timestamp, final String banner) {
+			this.timestamp = timestamp;
+			this.banner = banner;
+		}
+
+		List<String> getLines() {
+			return lines;
+		}
+
+		/**
+		 * Parses the block, its lines are released afterwards.
+		 */
+		ThreadDump parse(final ParseOptions options) {
+			final List<ThreadInfo> threads = new ArrayList<>();
+			new ThreadDumpIterator(lines.iterator(), options).forEachRemaining(threads::add);
+			lines = null;
+
+			final ThreadDump dump = new ThreadDump();
+			dump.setTimestamp(timestamp);
+			dump.setBanner(banner);
+			dump.setThreads(threads);
+			return dump;
+		}
+	}
+
+	private final Consumer<Block> sink;
+	private String previousLine;
+	private Block current;
+
+	ThreadDumpSplitter(final Consumer<Block> sink) {
+		this.sink = sink;
+	}
+
+	void accept(final String line) {
+		if (line.startsWith(THREAD_DUMP_BEGIN)) {
+			finish();
+			current = new Block(extractTimestamp(previousLine), extractBanner(line));
+		} else if (current != null) {
+			current.lines.add(line);
+			if (line.startsWith(THREAD_DUMP_END)) {
+				finish();
+			}
+		}
+		previousLine = line;
+	}
+
+	/**
+	 * Hands out the block being read, if any.
+	 */
+	void finish() {
+		if (current != null) {
+			sink.accept(current);
+			current = null;
+		}
+	}
+
+	private static LocalDateTime extractTimestamp(final String line) {
+		if (line == null) {
+			return null;
+		}
+		final String timestamp = line.trim();
+		if (!THREAD_DUMP_TIMESTAMP.matcher(timestamp).matches()) {
+			return null;
+		}
+		return LocalDateTime.parse(timestamp, THREAD_DUMP_TIMESTAMP_FORMATTER);
+	}
+
+	private static String extractBanner(final String line) {
+		String banner = line.substring(THREAD_DUMP_BEGIN.length()).trim();
+		if (banner.endsWith(":")) {
+			banner = banner.substring(0, banner.length() - 1);
+		}
+		return banner;
+	}
+
+}
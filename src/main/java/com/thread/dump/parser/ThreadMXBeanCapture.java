@@ -0,0 +1,168 @@
+package com.thread.dump.parser;
+
+import java.lang.management.LockInfo;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MonitorInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.thread.dump.parser.domain.StackFrame;
+import com.thread.dump.parser.domain.StackTraceLock;
+import com.thread.dump.parser.domain.ThreadInfo;
+import com.thread.dump.parser.util.LockIndex;
+import com.thread.dump.parser.util.StackFramePool;
+
+/**
+ * Captures the threads of the running JVM through {@link ThreadMXBean#dumpAllThreads(boolean, boolean)}, straight
+ * into {@link ThreadInfo}s, without printing and parsing a thread dump.
+ *
+ * <p>The threads look like parsed ones: the stack frames and lock annotations have the lines jstack prints for them,
+ * held monitors and ownable synchronizers are {@link StackTraceLock#LOCKED} frames, and stack signatures are
+ * computed, so the same analysis works on both. What the JVM doesn't tell through the bean is left out:
+ * native ids, priorities and daemon flags. The thread id is the Java one, the same as the number, and lock
+ * ids are identity hash codes.</p>
+ * <pre>
+ * ParseOptions options = ParseOptions.defaults().withFramePool(new StackFramePool());   // shared by every capture
+ * List&lt;ThreadInfo&gt; threads = ThreadMXBeanCapture.capture(options);
+ * </pre>
+ *
+ * <p>Capturing takes about as long as {@code dumpAllThreads} itself, which stops the JVM at a safepoint; with a pool
+ * shared between captures, building the threads adds 5 to 15% to its time and half again to its garbage. See
+ * ThreadMXBeanCaptureBenchmark under benchmarks/ for the numbers.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public final class ThreadMXBeanCapture {
+
+	public static List<ThreadInfo> capture() {
+		return capture(ParseOptions.defaults());
+	}
+
+	public static List<ThreadInfo> capture(final ParseOptions options) {
+		return capture(ManagementFactory.getThreadMXBean(), options);
+	}
+
+	/**
+	 * @param options the frame pool, shared by the captures, and the lock index the locks are recorded into.
+	 * Monitors and synchronizers are only captured when the bean supports them.
+	 */
+	public static List<ThreadInfo> capture(final ThreadMXBean bean, final ParseOptions options) {
+		return capture(bean, options, bean.isObjectMonitorUsageSupported(), bean.isSynchronizerUsageSupported());
+	}
+
+	/**
+	 * Captures the stack frames only, without monitors and synchronizers, which takes 45% less time
+	 * for 100 threads and 10% less for 1000, see ThreadMXBeanCaptureBenchmark under benchmarks/.
+	 * Meant for sampling, see {@link SamplingProfiler}.
+	 */
+	public static List<ThreadInfo> captureStacks(final ParseOptions options) {
+		return capture(ManagementFactory.getThreadMXBean(), options, false, false);
+	}
+
+	private static List<ThreadInfo> capture(final ThreadMXBean bean, final ParseOptions options, final boolean monitors,
+			final boolean synchronizers) {
+		final StackFramePool pool = options.getFramePool() != null ? options.getFramePool() : new StackFramePool();
+		final java.lang.management.ThreadInfo[] infos = bean.dumpAllThreads(monitors, synchronizers);
+
+		final List<ThreadInfo> threads = new ArrayList<>(infos.length);
+		for (final java.lang.management.ThreadInfo info : infos) {
+			if (info != null) {
+				threads.add(toThreadInfo(info, pool, options.getLockIndex()));
+			}
+		}
+		return threads;
+	}
+
+	/**
+	 * The frames are in jstack's order: each method frame is followed by the lock the thread waits for, when it's
+	 * the top one, and by the monitors locked at its depth.
+	 */
+	static ThreadInfo toThreadInfo(final java.lang.management.ThreadInfo info, final StackFramePool pool, final LockIndex lockIndex) {
+		final ThreadInfo thread = new ThreadInfo();
+		thread.setName(info.getThreadName());
+		thread.setId(Long.toString(info.getThreadId()));
+		thread.setNumber(info.getThreadId());
+		thread.setState(info.getThreadState().name());
+
+		final StackTraceElement[] elements = info.getStackTrace();
+		final MonitorInfo[] monitors = info.getLockedMonitors();
+		final List<StackFrame> frames = new ArrayList<>(elements.length + monitors.length + 1);
+		for (int depth = 0; depth < elements.length; depth++) {
+			final StackFrame method = pool.frame(elements[depth]);
+			frames.add(method);
+			if (depth == 0 && info.getLockInfo() != null) {
+				frames.add(lock(waitingType(info, method), info.getLockInfo(), pool));
+			}
+			for (final MonitorInfo monitor : monitors) {
+				if (monitor.getLockedStackDepth() == depth) {
+					frames.add(lock(StackTraceLock.LOCKED, monitor, pool));
+				}
+			}
+		}
+
+		long stackSignature = StackFrame.EMPTY_STACK_SIGNATURE;
+		for (final StackFrame frame : frames) {
+			stackSignature = StackFrame.nextStackSignature(stackSignature, frame);
+			if (lockIndex != null && frame.isLock()) {
+				lockIndex.add(thread, frame);
+			}
+		}
+		thread.setStackFrames(frames.isEmpty() ? Collections.emptyList() : frames);
+		thread.setStackSignature(stackSignature);
+
+		final LockInfo[] synchronizers = info.getLockedSynchronizers();
+		if (synchronizers.length > 0) {
+			final StackFrame[] lockedSynchronizers = new StackFrame[synchronizers.length];
+			for (int i = 0; i < synchronizers.length; i++) {
+				lockedSynchronizers[i] = lock(null, synchronizers[i], pool);
+				if (lockIndex != null) {
+					lockIndex.add(thread, lockedSynchronizers[i]);
+				}
+			}
+			thread.setLockedSynchronizers(Arrays.asList(lockedSynchronizers));
+		}
+		return thread;
+	}
+
+	private static StackTraceLock waitingType(final java.lang.management.ThreadInfo info, final StackFrame top) {
+		if (info.getThreadState() == Thread.State.BLOCKED) {
+			return StackTraceLock.WAITING_TO_LOCK;
+		}
+		// Object.wait() or LockSupport.park() through Unsafe.park()
+		return "park".equals(top.getMethodName()) ? StackTraceLock.PARKING_TO_WAIT_FOR : StackTraceLock.WAITING_ON;
+	}
+
+	/**
+	 * @param type the annotation, null for an ownable synchronizer.
+	 */
+	private static StackFrame lock(final StackTraceLock type, final LockInfo lock, final StackFramePool pool) {
+		final String lockId = lockId(lock.getIdentityHashCode());
+		final String className = pool.intern(lock.getClassName());
+		final String object = "<" + lockId + "> (a " + className + ")";
+		if (type == null) {
+			return StackFrame.lock("- " + object, StackTraceLock.LOCKED, lockId, className);
+		}
+		switch (type) {
+			case WAITING_TO_LOCK:
+				return StackFrame.lock("- waiting to lock " + object, type, lockId, className);
+			case PARKING_TO_WAIT_FOR:
+				return StackFrame.lock("- parking to wait for  " + object, type, lockId, className);
+			case WAITING_ON:
+				return StackFrame.lock("- waiting on " + object, type, lockId, className);
+			default:
+				return StackFrame.lock("- locked " + object, type, lockId, className);
+		}
+	}
+
+	// Formatted like the addresses in a thread dump.
+	private static String lockId(final int identityHashCode) {
+		final String hex = Integer.toHexString(identityHashCode);
+		return "0x0000000000000000".substring(0, 18 - hex.length()) + hex;
+	}
+
+	private ThreadMXBeanCapture() {}
+
+}
@@ -0,0 +1,45 @@
+package com.thread.dump.parser.domain;
+
+import java.util.List;
+
+/**
+ * The number of times a stack was seen, e.g. by a {@link com.thread.dump.parser.util.StackSampler}.
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public class StackCount {
+
+	private final long stackSignature;
+	private final List<StackFrame> stackFrames;
+	private final long count;
+
+	public StackCount(final long stackSignature, final List<StackFrame> stackFrames, final long count) {
+		this.stackSignature = stackSignature;
+		this.stackFrames = stackFrames;
+		this.count = count;
+	}
+
+	public long getStackSignature() {
+		return stackSignature;
+	}
+
+	/**
+	 * @return the frames of the first thread seen with the stack.
+	 */
+	public List<StackFrame> getStackFrames() {
+		return stackFrames;
+	}
+
+	/**
+	 * @return the number of threads seen with the stack, a thread counts once per sample.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d sample(s) of stack %016x: %s", count, stackSignature, stackFrames);
+	}
+
+}
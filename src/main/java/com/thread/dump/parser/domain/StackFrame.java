@@ -0,0 +1,231 @@
+package com.thread.dump.parser.domain;
+
+import java.util.Objects;
+
+/**
+ * A single line of a thread's stack trace, parsed once:
+ * <ul>
+ *     <li>a method frame: {@code at java.lang.Thread.run(java.base@11.0.2/Thread.java:834)}</li>
+ *     <li>a lock annotation: {@code - locked <0x000000076cac33d8> (a sun.nio.ch.Util$2)}</li>
+ *     <li>anything else, kept as it is.</li>
+ * </ul>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public final class StackFrame {
+
+	public enum Type {
+		METHOD,
+		LOCK,
+		UNKNOWN
+	}
+
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/**
+	 * The signature of a stack without frames, where {@link #nextStackSignature(long, StackFrame)} starts from.
+	 */
+	public static final long EMPTY_STACK_SIGNATURE = FNV_OFFSET_BASIS;
+
+	private final Type type;
+	private final String line;
+
+	private final String method;
+	private final String className;
+	private final String methodName;
+	private final String module;
+	private final String fileName;
+	private final int lineNumber;
+	private final boolean nativeMethod;
+
+	private final StackTraceLock lock;
+	private final String lockId;
+	private final String lockClassName;
+
+	private final long signature;
+
+	private StackFrame(final Type type, final String line, final String method, final String className, final String methodName,
+			final String module, final String fileName, final int lineNumber, final boolean nativeMethod,
+			final StackTraceLock lock, final String lockId, final String lockClassName) {
+		this.type = type;
+		this.line = line;
+		this.method = method;
+		this.className = className;
+		this.methodName = methodName;
+		this.module = module;
+		this.fileName = fileName;
+		this.lineNumber = lineNumber;
+		this.nativeMethod = nativeMethod;
+		this.lock = lock;
+		this.lockId = lockId;
+		this.lockClassName = lockClassName;
+		this.signature = signatureOf(type, line, method, lock, lockClassName);
+	}
+
+	/**
+	 * The frame without what changes from one thread to another: lock addresses.
+	 */
+	private static long signatureOf(final Type type, final String line, final String method, final StackTraceLock lock,
+			final String lockClassName) {
+		switch (type) {
+			case METHOD:
+				return mix(hash(FNV_OFFSET_BASIS, method));
+			case LOCK:
+				return mix(hash(hash(FNV_OFFSET_BASIS ^ lock.ordinal(), "- "), lockClassName));
+			default:
+				return mix(hash(FNV_OFFSET_BASIS, line));
+		}
+	}
+
+	// FNV-1a over the chars
+	private static long hash(final long seed, final String value) {
+		long hash = seed;
+		if (value != null) {
+			for (int i = 0; i < value.length(); i++) {
+				hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+			}
+		}
+		return hash;
+	}
+
+	// MurmurHash3 finalizer, spreads the FNV bits over the whole word.
+	private static long mix(final long hash) {
+		long h = hash;
+		h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+		h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return h ^ (h >>> 33);
+	}
+
+	/**
+	 * Adds the frame to the signature of the frames before it, see {@link ThreadInfo#getStackSignature()}.
+	 * @param stackSignature the signature of the previous frames, {@link #EMPTY_STACK_SIGNATURE} for the first one.
+	 */
+	public static long nextStackSignature(final long stackSignature, final StackFrame frame) {
+		final long next = mix(stackSignature ^ frame.signature);
+		// 0 stands for "not computed" in ThreadInfo.
+		return next == 0 ? 1 : next;
+	}
+
+	/**
+	 * @param line the trimmed stack trace line.
+	 * @param method the frame without the "at ", e.g. "java.lang.Object.wait(Native Method)".
+	 */
+	public static StackFrame method(final String line, final String method, final String className, final String methodName,
+			final String module, final String fileName, final int lineNumber, final boolean nativeMethod) {
+		return new StackFrame(Type.METHOD, line, method, className, methodName, module, fileName, lineNumber, nativeMethod,
+				null, null, null);
+	}
+
+	public static StackFrame lock(final String line, final StackTraceLock lock, final String lockId, final String lockClassName) {
+		return new StackFrame(Type.LOCK, line, null, null, null, null, null, -1, false, lock, lockId, lockClassName);
+	}
+
+	public static StackFrame unknown(final String line) {
+		return new StackFrame(Type.UNKNOWN, line, null, null, null, null, null, -1, false, null, null, null);
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public boolean isMethod() {
+		return type == Type.METHOD;
+	}
+
+	public boolean isLock() {
+		return type == Type.LOCK;
+	}
+
+	/**
+	 * @return the trimmed stack trace line, as it was in the thread dump.
+	 */
+	public String getLine() {
+		return line;
+	}
+
+	/**
+	 * @return the frame without the "at ", e.g. "java.lang.Object.wait(Native Method)", null for locks and unknown lines.
+	 */
+	public String getMethod() {
+		return method;
+	}
+
+	public String getClassName() {
+		return className;
+	}
+
+	public String getMethodName() {
+		return methodName;
+	}
+
+	/**
+	 * @return the module and version, "java.base@11.0.2", JDK 9 and newer print it for the platform classes.
+	 */
+	public String getModule() {
+		return module;
+	}
+
+	public String getFileName() {
+		return fileName;
+	}
+
+	/**
+	 * @return the line number or -1 when unknown.
+	 */
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	public boolean isNativeMethod() {
+		return nativeMethod;
+	}
+
+	public StackTraceLock getLock() {
+		return lock;
+	}
+
+	/**
+	 * @return the lock address, e.g. "0x000000076cac33d8", null when the dump doesn't tell it.
+	 */
+	public String getLockId() {
+		return lockId;
+	}
+
+	/**
+	 * @return the class of the lock, e.g. "java.lang.Object" or "java.lang.Class for com.app.Service".
+	 */
+	public String getLockClassName() {
+		return lockClassName;
+	}
+
+	/**
+	 * @return a 64-bit hash of the frame, the same for frames which differ only by lock address.
+	 */
+	public long getSignature() {
+		return signature;
+	}
+
+	@Override
+	public boolean equals(final Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		final StackFrame that = (StackFrame) o;
+		return Objects.equals(line, that.line);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hashCode(line);
+	}
+
+	@Override
+	public String toString() {
+		return line;
+	}
+
+}
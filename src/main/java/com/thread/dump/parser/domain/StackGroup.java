@@ -0,0 +1,48 @@
+package com.thread.dump.parser.domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Threads with the same stack frames, e.g. the workers of a pool all parked in LinkedBlockingQueue.take().
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public class StackGroup {
+
+	private final long stackSignature;
+	private final List<ThreadInfo> threads = new ArrayList<>();
+
+	public StackGroup(final long stackSignature) {
+		this.stackSignature = stackSignature;
+	}
+
+	public long getStackSignature() {
+		return stackSignature;
+	}
+
+	/**
+	 * @return the threads of the group, in the order they were found.
+	 */
+	public List<ThreadInfo> getThreads() {
+		return threads;
+	}
+
+	/**
+	 * @return the frames of the group, the ones of its first thread.
+	 */
+	public List<StackFrame> getStackFrames() {
+		return threads.isEmpty() ? Collections.emptyList() : threads.get(0).getStackFrames();
+	}
+
+	public int size() {
+		return threads.size();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d thread(s) with stack %016x: %s", threads.size(), stackSignature, getStackFrames());
+	}
+
+}
@@ -7,5 +7,10 @@ public enum StackTraceLock {
 	LOCKED,
 	PARKING_TO_WAIT_FOR,
 	WAITING_ON,
-	WAITING_TO_LOCK
+	WAITING_TO_LOCK,
+	/**
+	 * "- waiting to re-lock in wait()", printed by JDK 9 to 11 under the "waiting on" of every thread in Object.wait(),
+	 * even when nothing else holds the monitor, so it doesn't mean the thread is blocked on it.
+	 */
+	WAITING_TO_RE_LOCK
 }
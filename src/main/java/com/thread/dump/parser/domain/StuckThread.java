@@ -0,0 +1,64 @@
+package com.thread.dump.parser.domain;
+
+import java.util.Optional;
+
+/**
+ * A thread which didn't move over consecutive thread dumps, see {@link com.thread.dump.parser.util.StuckThreadDetector}.
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public class StuckThread {
+
+	public enum Reason {
+		/** Running, or blocked, with the same stack frames. */
+		SAME_STACK,
+		/** Waiting to lock the same monitor, or lock. */
+		SAME_LOCK
+	}
+
+	private final ThreadInfo thread;
+	private final Reason reason;
+	private final int dumps;
+	private final String lockId;
+
+	public StuckThread(final ThreadInfo thread, final Reason reason, final int dumps, final String lockId) {
+		this.thread = thread;
+		this.reason = reason;
+		this.dumps = dumps;
+		this.lockId = lockId;
+	}
+
+	/**
+	 * @return the thread, as it is in the last dump.
+	 */
+	public ThreadInfo getThread() {
+		return thread;
+	}
+
+	public Reason getReason() {
+		return reason;
+	}
+
+	/**
+	 * @return the number of consecutive dumps, the last one included, in which the thread didn't move.
+	 */
+	public int getDumps() {
+		return dumps;
+	}
+
+	/**
+	 * @return the lock the thread is waiting for, for {@link Reason#SAME_LOCK}.
+	 */
+	public Optional<String> getLockId() {
+		return Optional.ofNullable(lockId);
+	}
+
+	@Override
+	public String toString() {
+		if (reason == Reason.SAME_LOCK) {
+			return String.format("%s waiting for <%s> in %d dumps", thread, lockId, dumps);
+		}
+		return String.format("%s with the same stack in %d dumps", thread, dumps);
+	}
+
+}
@@ -0,0 +1,51 @@
+package com.thread.dump.parser.domain;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A single "Full thread dump" block, there could be many of them in the same log file.
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public class ThreadDump {
+
+	private LocalDateTime timestamp;
+	private String banner;
+	private List<ThreadInfo> threads = new ArrayList<>();
+
+	public Optional<LocalDateTime> getTimestamp() {
+		return Optional.ofNullable(timestamp);
+	}
+
+	public void setTimestamp(final LocalDateTime timestamp) {
+		this.timestamp = timestamp;
+	}
+
+	/**
+	 * @return the JVM description from the dump header, e.g. "OpenJDK 64-Bit Server VM (15+36-1562 mixed mode, sharing)".
+	 */
+	public String getBanner() {
+		return banner;
+	}
+
+	public void setBanner(final String banner) {
+		this.banner = banner;
+	}
+
+	public List<ThreadInfo> getThreads() {
+		return threads;
+	}
+
+	public void setThreads(final List<ThreadInfo> threads) {
+		this.threads = threads;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Thread dump '%s', JVM: '%s', threads: %d", this.timestamp, this.banner, this.threads.size());
+	}
+
+}
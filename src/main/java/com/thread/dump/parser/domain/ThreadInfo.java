@@ -1,7 +1,13 @@
 package com.thread.dump.parser.domain;
 
+import java.lang.ref.SoftReference;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Supplier;
+
+import static com.thread.dump.parser.util.ParsingConstants.NEW_LINE;
 
 /**
  * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
@@ -13,7 +19,18 @@ public class ThreadInfo {
 	private String nativeId;
 	private String state;
 	private String stackTrace;
+	private List<StackFrame> stackFrames = Collections.emptyList();
+	private List<StackFrame> lockedSynchronizers = Collections.emptyList();
+	private long stackSignature;
 	private boolean daemon;
+	private Long number;
+	private Integer priority;
+	private Integer osPriority;
+	private Double cpuMillis;
+	private Double elapsedSeconds;
+	private String status;
+	private Supplier<ThreadInfo> stackLoader;
+	private SoftReference<ThreadInfo> loadedStack;
 	
 	public String getName() {
 		return name;
@@ -39,7 +56,21 @@ public class ThreadInfo {
 		this.state = state;
 	}
 	
+	/**
+	 * @return the stack trace, one trimmed line per frame. When the thread was parsed it's built from the stack frames
+	 * on every call, only the (shared) frames are kept in memory.
+	 */
 	public Optional<String> getStackTrace() {
+		if (stackLoader != null) {
+			return loadedStack().getStackTrace();
+		}
+		if (stackTrace == null && !stackFrames.isEmpty()) {
+			final StringBuilder sb = new StringBuilder();
+			for (final StackFrame frame : stackFrames) {
+				sb.append(frame.getLine()).append(NEW_LINE);
+			}
+			return Optional.of(sb.toString());
+		}
 		return Optional.<String>ofNullable(stackTrace);
 	}
 	
@@ -47,6 +78,70 @@ public class ThreadInfo {
 		this.stackTrace = stackTrace;
 	}
 
+	/**
+	 * @return the stack frames, empty if there is no stack trace or it was only set as a String.
+	 */
+	public List<StackFrame> getStackFrames() {
+		if (stackLoader != null) {
+			return loadedStack().getStackFrames();
+		}
+		return stackFrames;
+	}
+
+	public void setStackFrames(final List<StackFrame> stackFrames) {
+		this.stackFrames = stackFrames;
+	}
+
+	/**
+	 * @return a 64-bit hash of the stack frames, lock addresses aside, threads with the same stack have the same
+	 * signature. It's computed by the parser while reading the stack, 0 if it wasn't, see {@link StackFrame#nextStackSignature(long, StackFrame)}.
+	 */
+	public long getStackSignature() {
+		if (stackLoader != null) {
+			return loadedStack().getStackSignature();
+		}
+		return stackSignature;
+	}
+
+	public void setStackSignature(final long stackSignature) {
+		this.stackSignature = stackSignature;
+	}
+
+	/**
+	 * @return the "Locked ownable synchronizers" (ReentrantLock, ThreadPoolExecutor$Worker, ...) held by the thread,
+	 * as {@link StackTraceLock#LOCKED} frames. Empty if there are none or the dump was taken without -l.
+	 */
+	public List<StackFrame> getLockedSynchronizers() {
+		if (stackLoader != null) {
+			return loadedStack().getLockedSynchronizers();
+		}
+		return lockedSynchronizers;
+	}
+
+	public void setLockedSynchronizers(final List<StackFrame> lockedSynchronizers) {
+		this.lockedSynchronizers = lockedSynchronizers;
+	}
+
+	/**
+	 * Loads the stack trace on demand: the stack trace, stack frames, signature and locked synchronizers are the ones
+	 * of the thread supplied by the loader, on first use. It's kept through a soft reference, so it can be loaded
+	 * again if the memory was needed.
+	 */
+	public void setStackLoader(final Supplier<ThreadInfo> stackLoader) {
+		this.stackLoader = stackLoader;
+		this.loadedStack = null;
+	}
+
+	private ThreadInfo loadedStack() {
+		final SoftReference<ThreadInfo> reference = loadedStack;
+		ThreadInfo loaded = reference != null ? reference.get() : null;
+		if (loaded == null) {
+			loaded = stackLoader.get();
+			loadedStack = new SoftReference<>(loaded);
+		}
+		return loaded;
+	}
+
 	public String getId() {
 		return id;
 	}
@@ -63,6 +158,66 @@ public class ThreadInfo {
 		this.daemon = daemon;
 	}
 
+	/**
+	 * @return the thread number, "#27" in the header, only Java threads have one.
+	 */
+	public Optional<Long> getNumber() {
+		return Optional.ofNullable(number);
+	}
+
+	public void setNumber(final Long number) {
+		this.number = number;
+	}
+
+	public Optional<Integer> getPriority() {
+		return Optional.ofNullable(priority);
+	}
+
+	public void setPriority(final Integer priority) {
+		this.priority = priority;
+	}
+
+	public Optional<Integer> getOsPriority() {
+		return Optional.ofNullable(osPriority);
+	}
+
+	public void setOsPriority(final Integer osPriority) {
+		this.osPriority = osPriority;
+	}
+
+	/**
+	 * @return the CPU time consumed by the thread, JDK 11 and newer report it in the header.
+	 */
+	public Optional<Double> getCpuMillis() {
+		return Optional.ofNullable(cpuMillis);
+	}
+
+	public void setCpuMillis(final Double cpuMillis) {
+		this.cpuMillis = cpuMillis;
+	}
+
+	/**
+	 * @return the time since the thread started, JDK 11 and newer report it in the header.
+	 */
+	public Optional<Double> getElapsedSeconds() {
+		return Optional.ofNullable(elapsedSeconds);
+	}
+
+	public void setElapsedSeconds(final Double elapsedSeconds) {
+		this.elapsedSeconds = elapsedSeconds;
+	}
+
+	/**
+	 * @return the status text at the end of the header: "runnable", "waiting on condition", "in Object.wait()", ...
+	 */
+	public Optional<String> getStatus() {
+		return Optional.ofNullable(status);
+	}
+
+	public void setStatus(final String status) {
+		this.status = status;
+	}
+
 	@Override
 	public boolean equals(final Object o) {
 		if (this == o) {
@@ -0,0 +1,118 @@
+package com.thread.dump.parser.snapshot;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Layout of a thread dump snapshot, version 1. Every number is an unsigned LEB128 varint unless said otherwise,
+ * string and frame references are indexes into their tables, plus one so 0 can stand for null.
+ * <pre>
+ * magic "JTDS", version (1 byte)
+ * strings: count, then for each one its UTF-8 length and bytes
+ * frames:  count, then for each one its type (1 byte) and
+ *          METHOD: line, method, class name, method name, module, file name, line number + 1, native (1 byte)
+ *          LOCK:   line, lock type (1 byte), lock id, lock class name
+ *          UNKNOWN: line
+ * threads: for each one
+ *          flags, name, id, native id, state, status, [number], [priority], [os priority],
+ *          [cpu millis], [elapsed seconds] (8 bytes doubles), stack signature (8 bytes),
+ *          frame count and frames, synchronizer count and frames, [stack trace]
+ * index:   thread count, then the offset of every thread (8 bytes each)
+ * footer:  offsets of the strings, frames and index sections (8 bytes each), magic "JTDS"
+ * </pre>
+ * <p>The fixed size index and footer let a reader go straight to any thread without decoding the ones before it.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+final class SnapshotFormat {
+
+	static final byte[] MAGIC = {'J', 'T', 'D', 'S'};
+	static final byte VERSION = 1;
+
+	static final int FOOTER_SIZE = 3 * Long.BYTES + MAGIC.length;
+
+	static final byte FRAME_METHOD = 0;
+	static final byte FRAME_LOCK = 1;
+	static final byte FRAME_UNKNOWN = 2;
+
+	static final int DAEMON = 1;
+	static final int NUMBER = 1 << 1;
+	static final int PRIORITY = 1 << 2;
+	static final int OS_PRIORITY = 1 << 3;
+	static final int CPU_MILLIS = 1 << 4;
+	static final int ELAPSED_SECONDS = 1 << 5;
+	static final int STACK_TRACE = 1 << 6;
+
+	/**
+	 * Growable byte buffer with the writing primitives of the format.
+	 */
+	static final class Output {
+
+		private byte[] bytes = new byte[1 << 16];
+		private int size;
+
+		int size() {
+			return size;
+		}
+
+		byte[] bytes() {
+			return bytes;
+		}
+
+		private void ensure(final int extra) {
+			if (size + extra > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, size + extra));
+			}
+		}
+
+		void writeByte(final int value) {
+			ensure(1);
+			bytes[size++] = (byte) value;
+		}
+
+		void writeBytes(final byte[] values) {
+			ensure(values.length);
+			System.arraycopy(values, 0, bytes, size, values.length);
+			size += values.length;
+		}
+
+		void writeVarLong(final long value) {
+			ensure(10);
+			long v = value;
+			while ((v & ~0x7FL) != 0) {
+				bytes[size++] = (byte) ((v & 0x7F) | 0x80);
+				v >>>= 7;
+			}
+			bytes[size++] = (byte) v;
+		}
+
+		void writeLong(final long value) {
+			ensure(Long.BYTES);
+			for (int shift = 56; shift >= 0; shift -= 8) {
+				bytes[size++] = (byte) (value >>> shift);
+			}
+		}
+
+		void writeDouble(final double value) {
+			writeLong(Double.doubleToRawLongBits(value));
+		}
+	}
+
+	static long readVarLong(final ByteBuffer buffer) {
+		long value = 0;
+		for (int shift = 0; ; shift += 7) {
+			final byte b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+	}
+
+	static int readVarInt(final ByteBuffer buffer) {
+		return (int) readVarLong(buffer);
+	}
+
+	private SnapshotFormat() {}
+
+}
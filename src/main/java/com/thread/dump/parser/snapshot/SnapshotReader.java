@@ -0,0 +1,313 @@
+package com.thread.dump.parser.snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.thread.dump.parser.domain.StackFrame;
+import com.thread.dump.parser.domain.StackTraceLock;
+import com.thread.dump.parser.domain.ThreadInfo;
+
+import static com.thread.dump.parser.snapshot.SnapshotFormat.*;
+
+/**
+ * Loads the threads saved by {@link SnapshotWriter}.
+ *
+ * <p>The file is mapped, not read: opening a snapshot only reads its footer and the positions of its strings and
+ * frames. Each thread is decoded when asked for, the Strings and frames it refers to are decoded once and shared by
+ * every thread, the same as the parser does with a {@link com.thread.dump.parser.util.StackFramePool}.</p>
+ * <pre>
+ * try (SnapshotReader snapshot = SnapshotReader.open(path)) {
+ *     ThreadInfo last = snapshot.get(snapshot.size() - 1);
+ * }
+ * </pre>
+ *
+ * <p>{@link #get(int)} can be called from several threads at once.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public final class SnapshotReader implements Closeable {
+
+	private static final StackTraceLock[] LOCKS = StackTraceLock.values();
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+
+	private final int[] stringOffsets;
+	private final String[] strings;
+	private final int[] frameOffsets;
+	private final StackFrame[] frames;
+	private final int indexOffset;
+	private final int threadCount;
+
+	private SnapshotReader(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+		this.channel = channel;
+		this.buffer = buffer;
+		try {
+			final int footer = buffer.limit() - FOOTER_SIZE;
+			if (footer < MAGIC.length + 1 || !hasMagic(0) || !hasMagic(buffer.limit() - MAGIC.length)) {
+				throw new IOException("Not a thread dump snapshot");
+			}
+			if (buffer.get(MAGIC.length) != VERSION) {
+				throw new IOException("Unsupported thread dump snapshot version: " + buffer.get(MAGIC.length));
+			}
+
+			final ByteBuffer in = buffer.duplicate();
+			in.position(offset(buffer.getLong(footer)));
+			stringOffsets = new int[readCount(in)];
+			for (int i = 0; i < stringOffsets.length; i++) {
+				stringOffsets[i] = in.position();
+				final int length = readVarInt(in);
+				in.position(in.position() + length);
+			}
+			strings = new String[stringOffsets.length];
+
+			in.position(offset(buffer.getLong(footer + Long.BYTES)));
+			frameOffsets = new int[readCount(in)];
+			for (int i = 0; i < frameOffsets.length; i++) {
+				frameOffsets[i] = in.position();
+				skipFrame(in);
+			}
+			frames = new StackFrame[frameOffsets.length];
+
+			in.position(offset(buffer.getLong(footer + 2 * Long.BYTES)));
+			threadCount = readCount(in);
+			indexOffset = in.position();
+			if ((long) indexOffset + (long) threadCount * Long.BYTES > footer) {
+				throw new IOException("Corrupt thread dump snapshot");
+			}
+		} catch (final BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException ex) {
+			throw new IOException("Corrupt thread dump snapshot", ex);
+		}
+	}
+
+	/**
+	 * Maps the snapshot, nothing but its tables is read until threads are asked for.
+	 */
+	public static SnapshotReader open(final Path path) throws IOException {
+		final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Thread dump snapshot too big: " + channel.size() + " bytes");
+			}
+			return new SnapshotReader(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} catch (final IOException | RuntimeException ex) {
+			channel.close();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Reads the whole snapshot.
+	 * @return the threads, in the order they were written.
+	 */
+	public static List<ThreadInfo> read(final Path path) throws IOException {
+		try (final SnapshotReader snapshot = open(path)) {
+			return new ArrayList<>(snapshot.threads());
+		}
+	}
+
+	public int size() {
+		return threadCount;
+	}
+
+	/**
+	 * Decodes the thread, a new {@link ThreadInfo} on every call.
+	 */
+	public ThreadInfo get(final int index) {
+		if (index < 0 || index >= threadCount) {
+			throw new IndexOutOfBoundsException("Thread " + index + " of " + threadCount);
+		}
+		final ByteBuffer in = buffer.duplicate();
+		in.position(offset(buffer.getLong(indexOffset + index * Long.BYTES)));
+		return readThread(in);
+	}
+
+	/**
+	 * @return the threads, decoded as they are accessed. Not valid after the reader is closed.
+	 */
+	public List<ThreadInfo> threads() {
+		return new AbstractList<ThreadInfo>() {
+			@Override
+			public ThreadInfo get(final int index) {
+				return SnapshotReader.this.get(index);
+			}
+
+			@Override
+			public int size() {
+				return threadCount;
+			}
+		};
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private ThreadInfo readThread(final ByteBuffer in) {
+		final int flags = readVarInt(in);
+		final ThreadInfo thread = new ThreadInfo();
+		thread.setDaemon((flags & DAEMON) != 0);
+		thread.setName(string(readVarInt(in)));
+		thread.setId(string(readVarInt(in)));
+		thread.setNativeId(string(readVarInt(in)));
+		thread.setState(string(readVarInt(in)));
+		thread.setStatus(string(readVarInt(in)));
+		if ((flags & NUMBER) != 0) {
+			thread.setNumber(readVarLong(in));
+		}
+		if ((flags & PRIORITY) != 0) {
+			thread.setPriority(readVarInt(in));
+		}
+		if ((flags & OS_PRIORITY) != 0) {
+			thread.setOsPriority(readVarInt(in));
+		}
+		if ((flags & CPU_MILLIS) != 0) {
+			thread.setCpuMillis(Double.longBitsToDouble(in.getLong()));
+		}
+		if ((flags & ELAPSED_SECONDS) != 0) {
+			thread.setElapsedSeconds(Double.longBitsToDouble(in.getLong()));
+		}
+		thread.setStackSignature(in.getLong());
+		thread.setStackFrames(readFrames(in));
+		thread.setLockedSynchronizers(readFrames(in));
+		if ((flags & STACK_TRACE) != 0) {
+			thread.setStackTrace(string(readVarInt(in)));
+		}
+		return thread;
+	}
+
+	private List<StackFrame> readFrames(final ByteBuffer in) {
+		final int count = readVarInt(in);
+		if (count == 0) {
+			return Collections.emptyList();
+		}
+		final StackFrame[] stackFrames = new StackFrame[count];
+		for (int i = 0; i < count; i++) {
+			stackFrames[i] = frame(readVarInt(in));
+		}
+		return Arrays.asList(stackFrames);
+	}
+
+	private StackFrame frame(final int index) {
+		StackFrame frame = frames[index];
+		if (frame == null) {
+			// Two threads may decode the same frame, the frames are immutable and either one will do.
+			final ByteBuffer in = buffer.duplicate();
+			in.position(frameOffsets[index]);
+			frame = readFrame(in);
+			frames[index] = frame;
+		}
+		return frame;
+	}
+
+	private StackFrame readFrame(final ByteBuffer in) {
+		final byte type = in.get();
+		final String line = string(readVarInt(in));
+		switch (type) {
+			case FRAME_METHOD:
+				final String method = string(readVarInt(in));
+				final String className = string(readVarInt(in));
+				final String methodName = string(readVarInt(in));
+				final String module = string(readVarInt(in));
+				final String fileName = string(readVarInt(in));
+				final int lineNumber = readVarInt(in) - 1;
+				return StackFrame.method(line, method, className, methodName, module, fileName, lineNumber, in.get() != 0);
+			case FRAME_LOCK:
+				final StackTraceLock lock = LOCKS[in.get()];
+				return StackFrame.lock(line, lock, string(readVarInt(in)), string(readVarInt(in)));
+			default:
+				return StackFrame.unknown(line);
+		}
+	}
+
+	private static void skipFrame(final ByteBuffer in) throws IOException {
+		final byte type = in.get();
+		final int fields;
+		switch (type) {
+			case FRAME_METHOD:
+				fields = 7;
+				break;
+			case FRAME_LOCK:
+				fields = 1;
+				break;
+			case FRAME_UNKNOWN:
+				fields = 1;
+				break;
+			default:
+				throw new IOException("Corrupt thread dump snapshot, unknown frame type " + type);
+		}
+		for (int i = 0; i < fields; i++) {
+			readVarLong(in);
+		}
+		if (type == FRAME_METHOD) {
+			in.get();
+		} else if (type == FRAME_LOCK) {
+			// Checked once here, the frames are decoded later without it.
+			final byte lock = in.get();
+			if (lock < 0 || lock >= LOCKS.length) {
+				throw new IOException("Corrupt thread dump snapshot, unknown lock " + lock);
+			}
+			readVarLong(in);
+			readVarLong(in);
+		}
+	}
+
+	/**
+	 * @param index the index of the String plus one, 0 for null.
+	 */
+	private String string(final int index) {
+		if (index == 0) {
+			return null;
+		}
+		String value = strings[index - 1];
+		if (value == null) {
+			final ByteBuffer in = buffer.duplicate();
+			in.position(stringOffsets[index - 1]);
+			final byte[] bytes = new byte[readVarInt(in)];
+			in.get(bytes);
+			value = new String(bytes, StandardCharsets.UTF_8);
+			strings[index - 1] = value;
+		}
+		return value;
+	}
+
+	private boolean hasMagic(final int offset) {
+		for (int i = 0; i < MAGIC.length; i++) {
+			if (buffer.get(offset + i) != MAGIC[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Every entry takes at least a byte, a bigger count comes from a corrupt file.
+	 */
+	private static int readCount(final ByteBuffer in) throws IOException {
+		final long count = readVarLong(in);
+		if (count < 0 || count > in.remaining()) {
+			throw new IOException("Corrupt thread dump snapshot, " + count + " entries");
+		}
+		return (int) count;
+	}
+
+	private static int offset(final long offset) {
+		if (offset < 0 || offset > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Offset out of the snapshot: " + offset);
+		}
+		return (int) offset;
+	}
+
+}
@@ -0,0 +1,183 @@
+package com.thread.dump.parser.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.thread.dump.parser.domain.StackFrame;
+import com.thread.dump.parser.domain.ThreadInfo;
+
+import static com.thread.dump.parser.snapshot.SnapshotFormat.*;
+
+/**
+ * Saves parsed threads as a compact binary snapshot, see {@link SnapshotReader} to load them back.
+ *
+ * <p>Every distinct String and stack frame is written once, threads refer to them by index. A dump of thousands of
+ * pool workers takes a fraction of the size of its text.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public final class SnapshotWriter {
+
+	private final Map<String, Integer> stringIndexes = new HashMap<>();
+	private final List<String> strings = new ArrayList<>();
+	private final Map<StackFrame, Integer> frameIndexes = new HashMap<>();
+	private final Output frames = new Output();
+	private final Output threads = new Output();
+
+	public static void write(final List<ThreadInfo> threads, final Path path) throws IOException {
+		try (final OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), 1 << 16)) {
+			write(threads, out);
+		}
+	}
+
+	/**
+	 * Writes the snapshot, the stream is left open.
+	 */
+	public static void write(final List<ThreadInfo> threads, final OutputStream out) throws IOException {
+		new SnapshotWriter().writeSnapshot(threads, out);
+	}
+
+	private void writeSnapshot(final List<ThreadInfo> threadInfos, final OutputStream out) throws IOException {
+		final long[] threadOffsets = new long[threadInfos.size()];
+		for (int i = 0; i < threadOffsets.length; i++) {
+			threadOffsets[i] = threads.size();
+			writeThread(threadInfos.get(i));
+		}
+
+		final Output head = new Output();
+		head.writeBytes(MAGIC);
+		head.writeByte(VERSION);
+		final long stringsOffset = head.size();
+		head.writeVarLong(strings.size());
+		for (final String value : strings) {
+			final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			head.writeVarLong(bytes.length);
+			head.writeBytes(bytes);
+		}
+		final long framesOffset = head.size();
+		head.writeVarLong(frameIndexes.size());
+		final long threadsOffset = head.size() + (long) frames.size();
+
+		final Output tail = new Output();
+		final long indexOffset = threadsOffset + threads.size();
+		tail.writeVarLong(threadOffsets.length);
+		for (final long offset : threadOffsets) {
+			tail.writeLong(threadsOffset + offset);
+		}
+		tail.writeLong(stringsOffset);
+		tail.writeLong(framesOffset);
+		tail.writeLong(indexOffset);
+		tail.writeBytes(MAGIC);
+
+		out.write(head.bytes(), 0, head.size());
+		out.write(frames.bytes(), 0, frames.size());
+		out.write(threads.bytes(), 0, threads.size());
+		out.write(tail.bytes(), 0, tail.size());
+		out.flush();
+	}
+
+	private void writeThread(final ThreadInfo thread) {
+		final List<StackFrame> stackFrames = thread.getStackFrames();
+		final String stackTrace = stackFrames.isEmpty() ? thread.getStackTrace().orElse(null) : null;
+
+		int flags = 0;
+		flags |= thread.isDaemon() ? DAEMON : 0;
+		flags |= thread.getNumber().isPresent() ? NUMBER : 0;
+		flags |= thread.getPriority().isPresent() ? PRIORITY : 0;
+		flags |= thread.getOsPriority().isPresent() ? OS_PRIORITY : 0;
+		flags |= thread.getCpuMillis().isPresent() ? CPU_MILLIS : 0;
+		flags |= thread.getElapsedSeconds().isPresent() ? ELAPSED_SECONDS : 0;
+		flags |= stackTrace != null ? STACK_TRACE : 0;
+
+		threads.writeVarLong(flags);
+		threads.writeVarLong(string(thread.getName()));
+		threads.writeVarLong(string(thread.getId()));
+		threads.writeVarLong(string(thread.getNativeId()));
+		threads.writeVarLong(string(thread.getState()));
+		threads.writeVarLong(string(thread.getStatus().orElse(null)));
+		thread.getNumber().ifPresent(threads::writeVarLong);
+		thread.getPriority().ifPresent(threads::writeVarLong);
+		thread.getOsPriority().ifPresent(threads::writeVarLong);
+		thread.getCpuMillis().ifPresent(threads::writeDouble);
+		thread.getElapsedSeconds().ifPresent(threads::writeDouble);
+		threads.writeLong(thread.getStackSignature());
+
+		writeFrames(stackFrames);
+		writeFrames(thread.getLockedSynchronizers());
+		if (stackTrace != null) {
+			threads.writeVarLong(string(stackTrace));
+		}
+	}
+
+	private void writeFrames(final List<StackFrame> stackFrames) {
+		threads.writeVarLong(stackFrames.size());
+		for (final StackFrame frame : stackFrames) {
+			threads.writeVarLong(frame(frame));
+		}
+	}
+
+	/**
+	 * @return the index of the frame, written to the frame table the first time.
+	 */
+	private int frame(final StackFrame frame) {
+		final Integer index = frameIndexes.get(frame);
+		if (index != null) {
+			return index;
+		}
+
+		switch (frame.getType()) {
+			case METHOD:
+				frames.writeByte(FRAME_METHOD);
+				frames.writeVarLong(string(frame.getLine()));
+				frames.writeVarLong(string(frame.getMethod()));
+				frames.writeVarLong(string(frame.getClassName()));
+				frames.writeVarLong(string(frame.getMethodName()));
+				frames.writeVarLong(string(frame.getModule()));
+				frames.writeVarLong(string(frame.getFileName()));
+				frames.writeVarLong(frame.getLineNumber() + 1L);
+				frames.writeByte(frame.isNativeMethod() ? 1 : 0);
+				break;
+			case LOCK:
+				frames.writeByte(FRAME_LOCK);
+				frames.writeVarLong(string(frame.getLine()));
+				frames.writeByte(frame.getLock().ordinal());
+				frames.writeVarLong(string(frame.getLockId()));
+				frames.writeVarLong(string(frame.getLockClassName()));
+				break;
+			default:
+				frames.writeByte(FRAME_UNKNOWN);
+				frames.writeVarLong(string(frame.getLine()));
+		}
+
+		final int next = frameIndexes.size();
+		frameIndexes.put(frame, next);
+		return next;
+	}
+
+	/**
+	 * @return the index of the String plus one, 0 for null.
+	 */
+	private int string(final String value) {
+		if (value == null) {
+			return 0;
+		}
+		final Integer index = stringIndexes.get(value);
+		if (index != null) {
+			return index + 1;
+		}
+		stringIndexes.put(value, strings.size());
+		strings.add(value);
+		return strings.size();
+	}
+
+	private SnapshotWriter() {}
+
+}
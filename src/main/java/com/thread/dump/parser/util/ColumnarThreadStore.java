@@ -0,0 +1,401 @@
+package com.thread.dump.parser.util;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.thread.dump.parser.domain.StackFrame;
+import com.thread.dump.parser.domain.ThreadDump;
+import com.thread.dump.parser.domain.ThreadInfo;
+
+/**
+ * The threads of many dumps, a week of dumps taken every few seconds for instance, kept as columns of primitives
+ * instead of objects: a row per thread, with its state as a byte, its tid and nid as longs and its name, pool and stack
+ * as ids of dictionaries shared by every dump. A thread takes around 30 bytes, a fraction of a parsed {@link ThreadInfo}.
+ *
+ * <p>The rows of a dump are contiguous, in the order the dumps were added, so queries over time are scans of plain
+ * arrays:</p>
+ * <pre>
+ * ColumnarThreadStore store = new ColumnarThreadStore();
+ * MultiDumpReader.forEach("stdout.log", store::add);
+ * Map&lt;String, int[]&gt; blocked = store.countPerPool(Thread.State.BLOCKED);   // by pool, a count per dump
+ * </pre>
+ *
+ * <p>Not thread safe.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public final class ColumnarThreadStore {
+
+	/**
+	 * The state of threads without a known state.
+	 */
+	public static final byte UNKNOWN_STATE = -1;
+
+	/**
+	 * The tid or nid of threads without one.
+	 */
+	public static final long UNKNOWN_ID = -1;
+
+	private static final Thread.State[] STATES = Thread.State.values();
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+	// Thread columns
+	private byte[] states = new byte[INITIAL_CAPACITY];
+	private long[] tids = new long[INITIAL_CAPACITY];
+	private long[] nids = new long[INITIAL_CAPACITY];
+	private int[] names = new int[INITIAL_CAPACITY];
+	private int[] pools = new int[INITIAL_CAPACITY];
+	private int[] stacks = new int[INITIAL_CAPACITY];
+	private int rows;
+
+	// Dump columns, the rows of dump d go from dumpStarts[d] to dumpStarts[d + 1].
+	private long[] timestamps = new long[64];
+	private int[] dumpStarts = new int[65];
+	private int dumps;
+
+	private final Dictionary<String> nameDictionary = new Dictionary<>();
+	private final Dictionary<String> poolDictionary = new Dictionary<>();
+	private final Dictionary<Long> stackDictionary = new Dictionary<>();
+	private final List<List<StackFrame>> stackFrames = new ArrayList<>();
+
+	/**
+	 * Values by id, and ids by value.
+	 */
+	private static final class Dictionary<T> {
+
+		private final Map<T, Integer> ids = new HashMap<>();
+		private final List<T> values = new ArrayList<>();
+
+		private int id(final T value) {
+			final Integer id = ids.get(value);
+			if (id != null) {
+				return id;
+			}
+			ids.put(value, values.size());
+			values.add(value);
+			return values.size() - 1;
+		}
+	}
+
+	public ColumnarThreadStore add(final ThreadDump dump) {
+		return add(dump.getTimestamp().orElse(null), dump.getThreads());
+	}
+
+	/**
+	 * Adds the threads of a dump.
+	 * @param timestamp when the dump was taken, can be null.
+	 */
+	public ColumnarThreadStore add(final LocalDateTime timestamp, final List<ThreadInfo> threads) {
+		ensureRows(rows + threads.size());
+		if (dumps == timestamps.length) {
+			timestamps = Arrays.copyOf(timestamps, timestamps.length << 1);
+			dumpStarts = Arrays.copyOf(dumpStarts, timestamps.length + 1);
+		}
+
+		for (final ThreadInfo thread : threads) {
+			states[rows] = stateOf(thread.getState());
+			tids[rows] = idOf(thread.getId());
+			nids[rows] = idOf(thread.getNativeId());
+			final String name = thread.getName() != null ? thread.getName() : "";
+			names[rows] = nameDictionary.id(name);
+			pools[rows] = poolDictionary.id(poolOf(name));
+
+			final long signature = ThreadParsing.stackSignature(thread);
+			final int stack = stackDictionary.id(signature);
+			if (stack == stackFrames.size()) {
+				stackFrames.add(ThreadParsing.stackFrames(thread));
+			}
+			stacks[rows] = stack;
+			rows++;
+		}
+
+		timestamps[dumps] = timestamp != null ? timestamp.toInstant(ZoneOffset.UTC).toEpochMilli() : NO_TIMESTAMP;
+		dumps++;
+		dumpStarts[dumps] = rows;
+		return this;
+	}
+
+	public int dumpCount() {
+		return dumps;
+	}
+
+	/**
+	 * @return the number of threads, among all the dumps.
+	 */
+	public int threadCount() {
+		return rows;
+	}
+
+	public LocalDateTime timestamp(final int dump) {
+		checkDump(dump);
+		return timestamps[dump] == NO_TIMESTAMP ? null : LocalDateTime.ofEpochSecond(Math.floorDiv(timestamps[dump], 1000L),
+				(int) Math.floorMod(timestamps[dump], 1000L) * 1_000_000, ZoneOffset.UTC);
+	}
+
+	/**
+	 * @return the first row of the dump.
+	 */
+	public int firstRow(final int dump) {
+		checkDump(dump);
+		return dumpStarts[dump];
+	}
+
+	/**
+	 * @return the row after the last one of the dump.
+	 */
+	public int endRow(final int dump) {
+		checkDump(dump);
+		return dumpStarts[dump + 1];
+	}
+
+	/**
+	 * @return the dump of the row.
+	 */
+	public int dumpOf(final int row) {
+		checkRow(row);
+		final int found = Arrays.binarySearch(dumpStarts, 0, dumps + 1, row);
+		if (found >= 0) {
+			// The first of the dumps starting at the row, dumps without threads start at the same row as the next one.
+			int dump = found;
+			while (dump < dumps && dumpStarts[dump + 1] == row) {
+				dump++;
+			}
+			return dump;
+		}
+		return -found - 2;
+	}
+
+	/**
+	 * @return the state ordinal, see {@link Thread.State}, or {@link #UNKNOWN_STATE}.
+	 */
+	public byte stateOrdinal(final int row) {
+		checkRow(row);
+		return states[row];
+	}
+
+	/**
+	 * @return the state, null if it's not known.
+	 */
+	public Thread.State state(final int row) {
+		final byte state = stateOrdinal(row);
+		return state == UNKNOWN_STATE ? null : STATES[state];
+	}
+
+	public long tid(final int row) {
+		checkRow(row);
+		return tids[row];
+	}
+
+	public long nid(final int row) {
+		checkRow(row);
+		return nids[row];
+	}
+
+	public String name(final int row) {
+		checkRow(row);
+		return nameDictionary.values.get(names[row]);
+	}
+
+	/**
+	 * @return the name of the pool of the thread, its name without the number at the end, e.g. "pool-1-thread-".
+	 */
+	public String pool(final int row) {
+		checkRow(row);
+		return poolDictionary.values.get(pools[row]);
+	}
+
+	/**
+	 * @return the id of the stack, the same for every thread with the same stack signature.
+	 */
+	public int stackId(final int row) {
+		checkRow(row);
+		return stacks[row];
+	}
+
+	public long stackSignature(final int stackId) {
+		return stackDictionary.values.get(stackId);
+	}
+
+	/**
+	 * @return the frames of the first thread seen with the stack.
+	 */
+	public List<StackFrame> stackFrames(final int stackId) {
+		return stackFrames.get(stackId);
+	}
+
+	/**
+	 * @return the number of distinct stacks.
+	 */
+	public int stackCount() {
+		return stackFrames.size();
+	}
+
+	/**
+	 * @return for each dump, the number of threads in the state.
+	 */
+	public int[] countPerDump(final Thread.State state) {
+		final byte wanted = (byte) state.ordinal();
+		final byte[] states = this.states;
+		final int[] counts = new int[dumps];
+		for (int dump = 0; dump < dumps; dump++) {
+			int count = 0;
+			for (int row = dumpStarts[dump], end = dumpStarts[dump + 1]; row < end; row++) {
+				count += states[row] == wanted ? 1 : 0;
+			}
+			counts[dump] = count;
+		}
+		return counts;
+	}
+
+	/**
+	 * @return by pool, see {@link #pool(int)}, for each dump the number of threads of the pool in the state. Only
+	 * the pools with threads in the state are there, in the order they were first seen.
+	 */
+	public Map<String, int[]> countPerPool(final Thread.State state) {
+		final byte wanted = (byte) state.ordinal();
+		final byte[] states = this.states;
+		final int[] pools = this.pools;
+		final int[][] counts = new int[poolDictionary.values.size()][];
+		for (int dump = 0; dump < dumps; dump++) {
+			for (int row = dumpStarts[dump], end = dumpStarts[dump + 1]; row < end; row++) {
+				if (states[row] == wanted) {
+					final int pool = pools[row];
+					if (counts[pool] == null) {
+						counts[pool] = new int[dumps];
+					}
+					counts[pool][dump]++;
+				}
+			}
+		}
+
+		final Map<String, int[]> byPool = new LinkedHashMap<>();
+		for (int pool = 0; pool < counts.length; pool++) {
+			if (counts[pool] != null) {
+				byPool.put(poolDictionary.values.get(pool), counts[pool]);
+			}
+		}
+		return byPool;
+	}
+
+	/**
+	 * @return for each dump, the number of threads with the stack.
+	 */
+	public int[] countPerDump(final int stackId) {
+		final int[] stacks = this.stacks;
+		final int[] counts = new int[dumps];
+		for (int dump = 0; dump < dumps; dump++) {
+			int count = 0;
+			for (int row = dumpStarts[dump], end = dumpStarts[dump + 1]; row < end; row++) {
+				count += stacks[row] == stackId ? 1 : 0;
+			}
+			counts[dump] = count;
+		}
+		return counts;
+	}
+
+	/**
+	 * @return the rows of the thread, by tid, in every dump it's in.
+	 */
+	public int[] rowsOf(final long tid) {
+		int count = 0;
+		for (int row = 0; row < rows; row++) {
+			count += tids[row] == tid ? 1 : 0;
+		}
+		final int[] found = new int[count];
+		for (int row = 0, i = 0; i < count; row++) {
+			if (tids[row] == tid) {
+				found[i++] = row;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * @return the names of the distinct pools, see {@link #pool(int)}.
+	 */
+	public List<String> pools() {
+		return Collections.unmodifiableList(poolDictionary.values);
+	}
+
+	/**
+	 * "BLOCKED (on object monitor)", "runnable", "waiting on condition", ...
+	 */
+	static byte stateOf(final String state) {
+		if (state == null || state.isEmpty()) {
+			return UNKNOWN_STATE;
+		}
+		final int space = state.indexOf(' ');
+		final String name = space < 0 ? state : state.substring(0, space);
+		for (final Thread.State candidate : STATES) {
+			if (candidate.name().equalsIgnoreCase(name)) {
+				return (byte) candidate.ordinal();
+			}
+		}
+		if (name.equalsIgnoreCase("waiting")) {
+			return (byte) Thread.State.WAITING.ordinal();
+		}
+		return UNKNOWN_STATE;
+	}
+
+	/**
+	 * "0x00007f3990fb3000", or a decimal number as in the nid of recent JDKs and captured threads.
+	 */
+	static long idOf(final String id) {
+		if (id == null || id.isEmpty()) {
+			return UNKNOWN_ID;
+		}
+		try {
+			if (id.startsWith("0x") || id.startsWith("0X")) {
+				return Long.parseUnsignedLong(id.substring(2), 16);
+			}
+			return Long.parseLong(id);
+		} catch (final NumberFormatException ex) {
+			return UNKNOWN_ID;
+		}
+	}
+
+	/**
+	 * The name without the number at the end: "pool-1-thread-", "http-nio-8080-exec-", "GC Thread#".
+	 */
+	static String poolOf(final String name) {
+		int end = name.length();
+		while (end > 0 && Character.isDigit(name.charAt(end - 1))) {
+			end--;
+		}
+		return end == name.length() ? name : name.substring(0, end);
+	}
+
+	private void ensureRows(final int capacity) {
+		if (capacity <= states.length) {
+			return;
+		}
+		final int length = Math.max(capacity, states.length + (states.length >> 1));
+		states = Arrays.copyOf(states, length);
+		tids = Arrays.copyOf(tids, length);
+		nids = Arrays.copyOf(nids, length);
+		names = Arrays.copyOf(names, length);
+		pools = Arrays.copyOf(pools, length);
+		stacks = Arrays.copyOf(stacks, length);
+	}
+
+	private void checkDump(final int dump) {
+		if (dump < 0 || dump >= dumps) {
+			throw new IndexOutOfBoundsException("Dump " + dump + " of " + dumps);
+		}
+	}
+
+	private void checkRow(final int row) {
+		if (row < 0 || row >= rows) {
+			throw new IndexOutOfBoundsException("Row " + row + " of " + rows);
+		}
+	}
+
+}
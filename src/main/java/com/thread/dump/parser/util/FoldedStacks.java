@@ -0,0 +1,204 @@
+package com.thread.dump.parser.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.thread.dump.parser.domain.StackFrame;
+import com.thread.dump.parser.domain.ThreadDump;
+import com.thread.dump.parser.domain.ThreadInfo;
+
+/**
+ * Exports stacks in the folded format of Brendan Gregg's FlameGraph, one line per distinct stack, root frame first,
+ * with the number of threads seen with it:
+ * <pre>
+ * java.lang.Thread.run;java.util.concurrent.ThreadPoolExecutor$Worker.run;sun.misc.Unsafe.park 42
+ * </pre>
+ *
+ * <p>Any number of dumps can be added, the counts are aggregated by the signature of the method frames (lock
+ * annotations aren't part of the format) so the memory taken depends on the number of distinct stacks, not on the
+ * number of dumps. The lines are written straight to a {@link Writer}:</p>
+ * <pre>
+ * FoldedStacks stacks = new FoldedStacks().withStates(Thread.State.RUNNABLE);
+ * MultiDumpReader.forEach("stdout.log", stacks::add);
+ * try (Writer out = Files.newBufferedWriter(Paths.get("stacks.folded"))) {
+ *     stacks.writeTo(out);
+ * }
+ * </pre>
+ * Then: {@code flamegraph.pl stacks.folded > stacks.svg}
+ *
+ * <p>Not thread safe.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public final class FoldedStacks {
+
+	private static final char FRAME_SEPARATOR = ';';
+	private static final long THREAD_NAME_SEED = 0x9E3779B97F4A7C15L;
+
+	private static final class Stack {
+
+		private final String threadName;
+		private final List<StackFrame> frames;
+		private long count;
+
+		private Stack(final String threadName, final List<StackFrame> frames) {
+			this.threadName = threadName;
+			this.frames = frames;
+		}
+	}
+
+	private Set<Thread.State> states;
+	private boolean threadNames;
+	private final Map<Long, Stack> stacks = new LinkedHashMap<>();
+
+	/**
+	 * @param states the states of the threads to export, every thread by default.
+	 */
+	public FoldedStacks withStates(final Thread.State... states) {
+		this.states = states.length == 0 ? null : EnumSet.of(states[0], states);
+		return this;
+	}
+
+	/**
+	 * Adds the thread name as the root frame, as stackcollapse-jstack.pl --include-tname does.
+	 */
+	public FoldedStacks withThreadNames() {
+		this.threadNames = true;
+		return this;
+	}
+
+	public FoldedStacks add(final ThreadDump dump) {
+		return add(dump.getThreads());
+	}
+
+	public FoldedStacks add(final List<ThreadInfo> threads) {
+		for (final ThreadInfo thread : threads) {
+			add(thread);
+		}
+		return this;
+	}
+
+	/**
+	 * Counts the thread's stack, threads without method frames or in other states are left out.
+	 */
+	public FoldedStacks add(final ThreadInfo thread) {
+		if (states != null && !hasState(thread)) {
+			return this;
+		}
+
+		final List<StackFrame> frames = ThreadParsing.stackFrames(thread);
+		long signature = StackFrame.EMPTY_STACK_SIGNATURE;
+		boolean methods = false;
+		for (final StackFrame frame : frames) {
+			if (frame.isMethod()) {
+				signature = StackFrame.nextStackSignature(signature, frame);
+				methods = true;
+			}
+		}
+		if (!methods) {
+			return this;
+		}
+
+		final String threadName = threadNames ? String.valueOf(thread.getName()) : null;
+		if (threadName != null) {
+			signature ^= THREAD_NAME_SEED * threadName.hashCode();
+		}
+		Stack stack = stacks.get(signature);
+		if (stack == null) {
+			stack = new Stack(threadName, frames);
+			stacks.put(signature, stack);
+		}
+		stack.count++;
+		return this;
+	}
+
+	/**
+	 * @return the number of distinct stacks.
+	 */
+	public int size() {
+		return stacks.size();
+	}
+
+	/**
+	 * Writes a line per stack, in the order they were first seen. The writer is left open.
+	 */
+	public void writeTo(final Writer out) throws IOException {
+		for (final Stack stack : stacks.values()) {
+			boolean first = true;
+			if (stack.threadName != null) {
+				writeFrame(out, stack.threadName);
+				first = false;
+			}
+			for (int i = stack.frames.size() - 1; i >= 0; i--) {
+				final StackFrame frame = stack.frames.get(i);
+				if (!frame.isMethod()) {
+					continue;
+				}
+				if (!first) {
+					out.write(FRAME_SEPARATOR);
+				}
+				writeFrame(out, frame);
+				first = false;
+			}
+			out.write(' ');
+			out.write(Long.toString(stack.count));
+			out.write('\n');
+		}
+		out.flush();
+	}
+
+	/**
+	 * Writes the lines in UTF-8, the stream is left open.
+	 */
+	public void writeTo(final OutputStream out) throws IOException {
+		writeTo(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * The class and method, e.g. java.lang.Thread.run, or the whole frame when they are unknown.
+	 */
+	private static void writeFrame(final Writer out, final StackFrame frame) throws IOException {
+		if (frame.getMethodName() == null) {
+			final String method = frame.getMethod();
+			final int open = method.indexOf('(');
+			writeFrame(out, open > 0 ? method.substring(0, open) : method);
+			return;
+		}
+		if (frame.getClassName() != null) {
+			writeFrame(out, frame.getClassName());
+			out.write('.');
+		}
+		writeFrame(out, frame.getMethodName());
+	}
+
+	// The separators of the format can't be part of a frame.
+	private static void writeFrame(final Writer out, final String name) throws IOException {
+		for (int i = 0; i < name.length(); i++) {
+			final char c = name.charAt(i);
+			out.write(c == FRAME_SEPARATOR ? ':' : Character.isWhitespace(c) ? '_' : c);
+		}
+	}
+
+	private boolean hasState(final ThreadInfo thread) {
+		final String state = thread.getState();
+		if (state == null) {
+			return false;
+		}
+		for (final Thread.State candidate : states) {
+			if (state.equalsIgnoreCase(candidate.name())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,147 @@
+package com.thread.dump.parser.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.thread.dump.parser.domain.StackFrame;
+import com.thread.dump.parser.domain.StackTraceLock;
+import com.thread.dump.parser.domain.ThreadInfo;
+
+/**
+ * The lock annotations of a thread dump, indexed by lock address and by thread.
+ *
+ * <p>It's filled while the dump is parsed when given to the reader through
+ * {@link com.thread.dump.parser.ParseOptions#withLockIndex(LockIndex)}, or afterwards with {@link #of(List)}.
+ * "locked" frames and locked ownable synchronizers make a thread a holder of the lock, "waiting to lock",
+ * "waiting on" and "parking to wait for" make it a waiter.</p>
+ *
+ * <p>The annotations are kept as the JVM prints them: a thread in Object.wait() shows up as a waiter of the monitor
+ * and, on JDK 8, also as its holder.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public final class LockIndex {
+
+	private final Map<String, List<ThreadInfo>> holders = new LinkedHashMap<>();
+	private final Map<String, List<ThreadInfo>> waiters = new LinkedHashMap<>();
+
+	// By instance, the same thread found in two dumps has its own locks in each one of them.
+	private final Map<ThreadInfo, List<StackFrame>> locks = new IdentityHashMap<>();
+
+	/**
+	 * Indexes threads which were already parsed, from their stack frames.
+	 */
+	public static LockIndex of(final List<ThreadInfo> threads) {
+		final LockIndex index = new LockIndex();
+		for (final ThreadInfo thread : threads) {
+			for (final StackFrame frame : ThreadParsing.stackFrames(thread)) {
+				index.add(thread, frame);
+			}
+			for (final StackFrame synchronizer : thread.getLockedSynchronizers()) {
+				index.add(thread, synchronizer);
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Records a lock frame of the thread, anything else is ignored, as well as locks without an address.
+	 */
+	public synchronized void add(final ThreadInfo thread, final StackFrame frame) {
+		if (!frame.isLock() || frame.getLockId() == null) {
+			return;
+		}
+		final Map<String, List<ThreadInfo>> threads = frame.getLock() == StackTraceLock.LOCKED ? holders : waiters;
+		threads.computeIfAbsent(frame.getLockId(), lockId -> new ArrayList<>(1)).add(thread);
+		locks.computeIfAbsent(thread, th -> new ArrayList<>(2)).add(frame);
+	}
+
+	/**
+	 * Appends everything recorded by the other index, after what this one already has.
+	 */
+	public synchronized void addAll(final LockIndex other) {
+		synchronized (other) {
+			other.holders.forEach((lockId, threads) -> holders.computeIfAbsent(lockId, id -> new ArrayList<>(threads.size())).addAll(threads));
+			other.waiters.forEach((lockId, threads) -> waiters.computeIfAbsent(lockId, id -> new ArrayList<>(threads.size())).addAll(threads));
+			other.locks.forEach((thread, frames) -> locks.computeIfAbsent(thread, th -> new ArrayList<>(frames.size())).addAll(frames));
+		}
+	}
+
+	/**
+	 * @param lockId the lock address, e.g. "0x000000076cac33d8".
+	 * @return the threads holding the lock, in parsing order.
+	 */
+	public synchronized List<ThreadInfo> holders(final String lockId) {
+		return unmodifiable(holders.get(lockId));
+	}
+
+	/**
+	 * @return the threads waiting to lock, waiting on or parked on the lock, in parsing order.
+	 */
+	public synchronized List<ThreadInfo> waiters(final String lockId) {
+		return unmodifiable(waiters.get(lockId));
+	}
+
+	/**
+	 * @return the lock frames of the thread, the ones from its stack trace followed by its locked ownable synchronizers.
+	 */
+	public synchronized List<StackFrame> locksOf(final ThreadInfo thread) {
+		return unmodifiable(locks.get(thread));
+	}
+
+	/**
+	 * @return the locks held by the thread.
+	 */
+	public synchronized List<StackFrame> holdsOf(final ThreadInfo thread) {
+		return filter(locks.get(thread), true);
+	}
+
+	/**
+	 * @return the locks the thread is waiting for.
+	 */
+	public synchronized List<StackFrame> waitsOf(final ThreadInfo thread) {
+		return filter(locks.get(thread), false);
+	}
+
+	/**
+	 * @return the addresses of every lock held or waited for.
+	 */
+	public synchronized Set<String> lockIds() {
+		final Set<String> lockIds = new LinkedHashSet<>(holders.keySet());
+		lockIds.addAll(waiters.keySet());
+		return Collections.unmodifiableSet(lockIds);
+	}
+
+	/**
+	 * @return the threads with at least one lock frame, each of them once.
+	 */
+	public synchronized Set<ThreadInfo> threads() {
+		final Set<ThreadInfo> threads = Collections.newSetFromMap(new IdentityHashMap<>(locks.size()));
+		threads.addAll(locks.keySet());
+		return Collections.unmodifiableSet(threads);
+	}
+
+	private static List<StackFrame> filter(final List<StackFrame> frames, final boolean held) {
+		if (frames == null) {
+			return Collections.emptyList();
+		}
+		final List<StackFrame> filtered = new ArrayList<>();
+		for (final StackFrame frame : frames) {
+			if ((frame.getLock() == StackTraceLock.LOCKED) == held) {
+				filtered.add(frame);
+			}
+		}
+		return filtered;
+	}
+
+	private static <T> List<T> unmodifiable(final List<T> values) {
+		return values == null ? Collections.emptyList() : Collections.unmodifiableList(values);
+	}
+
+}
@@ -0,0 +1,247 @@
+package com.thread.dump.parser.util;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collector;
+
+import com.thread.dump.parser.domain.StackFrame;
+import com.thread.dump.parser.domain.ThreadInfo;
+
+/**
+ * Number of threads with each method in their stack trace, a method is counted once per thread.
+ *
+ * <p>Counts are kept in an open addressing table of plain ints, without boxing. Methods already seen in the thread
+ * being added are told apart with a stamp per entry, so there is no per thread set. Partial counts, e.g. from each
+ * dump of a series or from parallel streams, are combined with {@link #merge(MethodCounts)}:</p>
+ * <pre>
+ * MethodCounts counts = dumps.parallelStream()
+ *         .flatMap(dump -&gt; dump.getThreads().stream())
+ *         .collect(MethodCounts.collector());
+ * List&lt;Map.Entry&lt;String, Integer&gt;&gt; top = counts.topMethods(10);
+ * </pre>
+ *
+ * <p>Not thread safe, each partial count belongs to a single thread until merged.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public final class MethodCounts {
+
+	private static final int INITIAL_CAPACITY = 256;
+
+	private String[] methods = new String[INITIAL_CAPACITY];
+	private int[] counts = new int[INITIAL_CAPACITY];
+	// Last thread which counted the method.
+	private int[] stamps = new int[INITIAL_CAPACITY];
+	private int size;
+	private int stamp;
+
+	public static MethodCounts of(final Collection<ThreadInfo> threads) {
+		return threads.parallelStream().collect(collector());
+	}
+
+	public static Collector<ThreadInfo, ?, MethodCounts> collector() {
+		return Collector.of(MethodCounts::new, MethodCounts::add, MethodCounts::merge, Collector.Characteristics.UNORDERED);
+	}
+
+	/**
+	 * Counts the methods in the thread's stack trace, once each.
+	 */
+	public void add(final ThreadInfo thread) {
+		stamp++;
+		for (final StackFrame frame : ThreadParsing.stackFrames(thread)) {
+			if (frame.isMethod()) {
+				final int slot = slot(frame.getMethod());
+				if (stamps[slot] != stamp) {
+					stamps[slot] = stamp;
+					counts[slot]++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the counts of the other instance to this one.
+	 * @return this instance.
+	 */
+	public MethodCounts merge(final MethodCounts other) {
+		for (int i = 0; i < other.methods.length; i++) {
+			if (other.methods[i] != null) {
+				// The slot first, it can grow the table.
+				final int slot = slot(other.methods[i]);
+				counts[slot] += other.counts[i];
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * @param method the frame without the "at ", see {@link StackFrame#getMethod()}.
+	 * @return the number of threads with the method in their stack trace.
+	 */
+	public int count(final String method) {
+		final int mask = methods.length - 1;
+		for (int i = spread(method.hashCode()) & mask; methods[i] != null; i = (i + 1) & mask) {
+			if (matches(methods[i], method)) {
+				return counts[i];
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * @return the number of distinct methods.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the k methods in the most threads, most used first, ties by method name.
+	 */
+	public List<Map.Entry<String, Integer>> topMethods(final int k) {
+		if (k <= 0) {
+			return Collections.emptyList();
+		}
+
+		// Min-heap of slots, the least used of the top methods at the root.
+		final int[] heap = new int[Math.min(k, size)];
+		int heapSize = 0;
+		for (int i = 0; i < methods.length; i++) {
+			if (methods[i] == null) {
+				continue;
+			}
+			if (heapSize < heap.length) {
+				heap[heapSize] = i;
+				siftUp(heap, heapSize++);
+			} else if (ranksBefore(i, heap[0])) {
+				heap[0] = i;
+				siftDown(heap, heapSize);
+			}
+		}
+
+		final List<Map.Entry<String, Integer>> top = new ArrayList<>(heapSize);
+		while (heapSize > 0) {
+			final int slot = heap[0];
+			top.add(new AbstractMap.SimpleImmutableEntry<>(methods[slot], counts[slot]));
+			heap[0] = heap[--heapSize];
+			siftDown(heap, heapSize);
+		}
+		Collections.reverse(top);
+		return top;
+	}
+
+	public Map<String, Integer> toMap() {
+		final Map<String, Integer> map = new HashMap<>(size * 2);
+		for (int i = 0; i < methods.length; i++) {
+			if (methods[i] != null) {
+				map.put(methods[i], counts[i]);
+			}
+		}
+		return map;
+	}
+
+	private boolean ranksBefore(final int slot, final int other) {
+		if (counts[slot] != counts[other]) {
+			return counts[slot] > counts[other];
+		}
+		return methods[slot].compareTo(methods[other]) < 0;
+	}
+
+	private void siftUp(final int[] heap, final int from) {
+		int child = from;
+		while (child > 0) {
+			final int parent = (child - 1) >>> 1;
+			if (!ranksBefore(heap[parent], heap[child])) {
+				break;
+			}
+			swap(heap, parent, child);
+			child = parent;
+		}
+	}
+
+	private void siftDown(final int[] heap, final int heapSize) {
+		int parent = 0;
+		while (true) {
+			final int left = 2 * parent + 1;
+			if (left >= heapSize) {
+				break;
+			}
+			final int right = left + 1;
+			final int lowest = right < heapSize && ranksBefore(heap[left], heap[right]) ? right : left;
+			if (!ranksBefore(heap[parent], heap[lowest])) {
+				break;
+			}
+			swap(heap, parent, lowest);
+			parent = lowest;
+		}
+	}
+
+	private static void swap(final int[] heap, final int i, final int j) {
+		final int value = heap[i];
+		heap[i] = heap[j];
+		heap[j] = value;
+	}
+
+	/**
+	 * @return the slot of the method, a new one if it wasn't there.
+	 */
+	private int slot(final String method) {
+		int mask = methods.length - 1;
+		int i = spread(method.hashCode()) & mask;
+		for (; methods[i] != null; i = (i + 1) & mask) {
+			if (matches(methods[i], method)) {
+				return i;
+			}
+		}
+
+		// Load factor of 1/2, the probe sequences stay short.
+		if (size + 1 > methods.length >> 1) {
+			grow();
+			mask = methods.length - 1;
+			i = spread(method.hashCode()) & mask;
+			while (methods[i] != null) {
+				i = (i + 1) & mask;
+			}
+		}
+		methods[i] = method;
+		size++;
+		return i;
+	}
+
+	private void grow() {
+		final String[] oldMethods = methods;
+		final int[] oldCounts = counts;
+		final int[] oldStamps = stamps;
+
+		methods = new String[oldMethods.length << 1];
+		counts = new int[methods.length];
+		stamps = new int[methods.length];
+		final int mask = methods.length - 1;
+		for (int j = 0; j < oldMethods.length; j++) {
+			if (oldMethods[j] != null) {
+				int i = spread(oldMethods[j].hashCode()) & mask;
+				while (methods[i] != null) {
+					i = (i + 1) & mask;
+				}
+				methods[i] = oldMethods[j];
+				counts[i] = oldCounts[j];
+				stamps[i] = oldStamps[j];
+			}
+		}
+	}
+
+	// Pooled frames share their Strings, most lookups are answered by the identity check.
+	private static boolean matches(final String method, final String other) {
+		return method == other || method.equals(other);
+	}
+
+	private static int spread(final int hash) {
+		return hash ^ (hash >>> 16);
+	}
+
+}
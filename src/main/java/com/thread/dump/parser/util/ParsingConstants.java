@@ -6,10 +6,20 @@ package com.thread.dump.parser.util;
 public class ParsingConstants {
 	
 	public static final String THREAD_INFORMATION_BEGIN = "\"";
+
+	public static final String THREAD_DUMP_BEGIN = "Full thread dump ";
+
+	public static final String THREAD_DUMP_END = "JNI global ";
 	
 	public static final int THREAD_NAME_FIELD_COUNT = 3;
 	
 	public static final String NEW_LINE = "\r\n";
+
+	public static final String RUNNABLE_STATUS = "runnable";
+
+	public static final String WAITING_ON_CONDITION_STATUS = "waiting on condition";
+
+	public static final String LOCKED_OWNABLE_SYNCHRONIZERS = "Locked ownable synchronizers:";
 	
 	private ParsingConstants() {}
 
@@ -2,6 +2,7 @@ package com.thread.dump.parser.util;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.time.format.DateTimeFormatter;
 import java.util.regex.Pattern;
 
 /**
@@ -105,6 +106,10 @@ public class PatternConstants {
 	}
 	
 	public static final DateFormat THREAD_DUMP_TIMESTAMP_FORMAT = new SimpleDateFormat("yyyy-mm-dd kk:mm:ss");
+
+	public static final Pattern THREAD_DUMP_TIMESTAMP = Pattern.compile("^\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}$");
+
+	public static final DateTimeFormatter THREAD_DUMP_TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 	
 	public static final String LOCKED_TEXT = "- locked <";
 	public static final String PARKING_TO_WAIT_FOR_TEXT = "- parking to wait for";
@@ -0,0 +1,138 @@
+package com.thread.dump.parser.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.thread.dump.parser.domain.StackFrame;
+
+/**
+ * Canonical {@link StackFrame} instances, so threads parked in the same frames share them instead of keeping their own copies.
+ *
+ * <p>A pool can be shared by any number of dumps and threads parsing them. Method frames are pooled as a whole, lock
+ * annotations carry the address of the lock so only their class names are pooled, and lines that are neither (e.g.
+ * "- Carrying virtual thread #36") are never pooled, most of them are unique. That keeps the pool bounded by the
+ * amount of code in the application and not by the number of dumps.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public final class StackFramePool {
+
+	// StackTraceElement.getModuleName() and getModuleVersion(), null before Java 9.
+	private static final Method MODULE_NAME = elementMethod("getModuleName");
+	private static final Method MODULE_VERSION = elementMethod("getModuleVersion");
+
+	private final ConcurrentMap<String, StackFrame> frames = new ConcurrentHashMap<>();
+	private final ConcurrentMap<StackTraceElement, StackFrame> elements = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, String> strings = new ConcurrentHashMap<>();
+
+	/**
+	 * @param stackTraceLine a trimmed stack trace line.
+	 */
+	public StackFrame frame(final String stackTraceLine) {
+		final StackFrame frame = frames.get(stackTraceLine);
+		if (frame != null) {
+			return frame;
+		}
+
+		final StackFrame parsed = StackFrameTokenizer.tokenize(stackTraceLine, this);
+		if (parsed.isLock() || parsed.getType() == StackFrame.Type.UNKNOWN) {
+			return parsed;
+		}
+		final StackFrame previous = frames.putIfAbsent(parsed.getLine(), parsed);
+		return previous == null ? parsed : previous;
+	}
+
+	/**
+	 * The method frame of a live thread's stack trace element, e.g. from {@link java.lang.management.ThreadInfo#getStackTrace()},
+	 * with the line jstack prints for it, the module included (java.base@11.0.2/), so both have the same signature.
+	 * Nothing is parsed.
+	 */
+	public StackFrame frame(final StackTraceElement element) {
+		final StackFrame frame = elements.get(element);
+		if (frame != null) {
+			return frame;
+		}
+
+		final String className = intern(element.getClassName());
+		final String methodName = intern(element.getMethodName());
+		final String fileName = intern(element.getFileName());
+		final String module = intern(moduleOf(element));
+		final StringBuilder method = new StringBuilder(className.length() + methodName.length() + 32)
+				.append(className).append('.').append(methodName).append('(');
+		if (module != null) {
+			method.append(module).append('/');
+		}
+		if (element.isNativeMethod()) {
+			method.append("Native Method");
+		} else if (fileName == null) {
+			method.append("Unknown Source");
+		} else {
+			method.append(fileName);
+			if (element.getLineNumber() >= 0) {
+				method.append(':').append(element.getLineNumber());
+			}
+		}
+		method.append(')');
+
+		final String methodText = method.toString();
+		final StackFrame created = StackFrame.method("at " + methodText, methodText, className, methodName, module,
+				element.isNativeMethod() ? null : fileName, element.getLineNumber() >= 0 ? element.getLineNumber() : -1, element.isNativeMethod());
+		final StackFrame previous = elements.putIfAbsent(element, created);
+		return previous == null ? created : previous;
+	}
+
+	/**
+	 * @return the module as jstack prints it, name@version or just the name, null for the unnamed ones.
+	 */
+	private static String moduleOf(final StackTraceElement element) {
+		if (MODULE_NAME == null) {
+			return null;
+		}
+		try {
+			final String name = (String) MODULE_NAME.invoke(element);
+			if (name == null) {
+				return null;
+			}
+			final String version = MODULE_VERSION != null ? (String) MODULE_VERSION.invoke(element) : null;
+			return version != null ? name + "@" + version : name;
+		} catch (final ReflectiveOperationException ex) {
+			return null;
+		}
+	}
+
+	private static Method elementMethod(final String name) {
+		try {
+			return StackTraceElement.class.getMethod(name);
+		} catch (final NoSuchMethodException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * @param synchronizerLine a trimmed line of the "Locked ownable synchronizers" section.
+	 * @return the synchronizer as a lock frame, null for anything else, e.g. "- None".
+	 */
+	public StackFrame ownableSynchronizer(final String synchronizerLine) {
+		return StackFrameTokenizer.tokenizeOwnableSynchronizer(synchronizerLine, this);
+	}
+
+	/**
+	 * @return the canonical instance of the String, null for null.
+	 */
+	public String intern(final String value) {
+		if (value == null) {
+			return null;
+		}
+		final String previous = strings.putIfAbsent(value, value);
+		return previous == null ? value : previous;
+	}
+
+	/**
+	 * @return the number of distinct frames in the pool.
+	 */
+	public int size() {
+		return frames.size() + elements.size();
+	}
+
+}
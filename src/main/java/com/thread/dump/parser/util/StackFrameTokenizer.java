@@ -0,0 +1,185 @@
+package com.thread.dump.parser.util;
+
+import com.thread.dump.parser.domain.StackFrame;
+import com.thread.dump.parser.domain.StackTraceLock;
+
+/**
+ * Regex free parser of trimmed stack trace lines, see {@link StackFrame}.
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+final class StackFrameTokenizer {
+
+	private static final String AT = "at";
+	private static final String LOCK_ANNOTATION = "- ";
+	private static final String NATIVE_METHOD = "Native Method";
+
+	private static final String[] LOCK_TEXTS = {
+		"locked ",
+		"waiting on ",
+		"parking to wait for ",
+		"waiting to lock ",
+		"waiting to re-lock in wait() "
+	};
+
+	private static final StackTraceLock[] LOCK_TYPES = {
+		StackTraceLock.LOCKED,
+		StackTraceLock.WAITING_ON,
+		StackTraceLock.PARKING_TO_WAIT_FOR,
+		StackTraceLock.WAITING_TO_LOCK,
+		StackTraceLock.WAITING_TO_RE_LOCK
+	};
+
+	/**
+	 * @param pool to share the class names, modules and file names of the frame with other frames, can be null.
+	 */
+	static StackFrame tokenize(final String line, final StackFramePool pool) {
+		if (line.length() > AT.length() && line.startsWith(AT) && ThreadHeaderTokenizer.isWhitespace(line.charAt(AT.length()))) {
+			return tokenizeMethod(line, pool);
+		}
+		if (line.startsWith(LOCK_ANNOTATION)) {
+			for (int i = 0; i < LOCK_TEXTS.length; i++) {
+				if (line.startsWith(LOCK_TEXTS[i], LOCK_ANNOTATION.length())) {
+					return tokenizeLock(line, LOCK_TYPES[i], pool);
+				}
+			}
+		}
+		return StackFrame.unknown(line);
+	}
+
+	/**
+	 * An entry of the "Locked ownable synchronizers" section: - &lt;0x000000062a049cf0&gt; (a java.util.concurrent.locks.ReentrantLock$NonfairSync)
+	 * @return the synchronizer as a {@link StackTraceLock#LOCKED} frame, or null if the line isn't one.
+	 */
+	static StackFrame tokenizeOwnableSynchronizer(final String line, final StackFramePool pool) {
+		if (!line.startsWith(LOCK_ANNOTATION + "<")) {
+			return null;
+		}
+		return tokenizeLock(line, StackTraceLock.LOCKED, pool);
+	}
+
+	/**
+	 * at java.lang.Thread.run(java.base@11.0.2/Thread.java:834)
+	 */
+	private static StackFrame tokenizeMethod(final String line, final StackFramePool pool) {
+		final String method = collapseWhitespaces(line, AT.length());
+
+		final int open = method.indexOf('(');
+		final int close = method.lastIndexOf(')');
+		if (open < 0 || close < open) {
+			return StackFrame.method(line, method, null, null, null, null, -1, false);
+		}
+
+		final int dot = method.lastIndexOf('.', open);
+		final String className = dot > 0 ? intern(pool, method.substring(0, dot)) : null;
+		final String methodName = intern(pool, method.substring(dot + 1, open));
+
+		final int slash = method.lastIndexOf('/', close);
+		String module = null;
+		int source = open + 1;
+		if (slash > open) {
+			module = intern(pool, method.substring(source, slash));
+			source = slash + 1;
+		}
+
+		if (method.startsWith(NATIVE_METHOD, source) && source + NATIVE_METHOD.length() == close) {
+			return StackFrame.method(line, method, className, methodName, module, null, -1, true);
+		}
+
+		final int colon = method.lastIndexOf(':', close);
+		int lineNumber = -1;
+		int fileNameEnd = close;
+		if (colon > source) {
+			lineNumber = parseLineNumber(method, colon + 1, close);
+			if (lineNumber >= 0) {
+				fileNameEnd = colon;
+			}
+		}
+		final String fileName = fileNameEnd > source ? intern(pool, method.substring(source, fileNameEnd)) : null;
+		return StackFrame.method(line, method, className, methodName, module, fileName, lineNumber, false);
+	}
+
+	/**
+	 * - locked &lt;0x000000076cac33d8&gt; (a sun.nio.ch.Util$2)
+	 */
+	private static StackFrame tokenizeLock(final String line, final StackTraceLock lock, final StackFramePool pool) {
+		String lockId = null;
+		String lockClassName = null;
+
+		final int open = line.indexOf('<');
+		final int close = open < 0 ? -1 : line.indexOf('>', open);
+		if (close > open + 1 && line.startsWith("0x", open + 1)) {
+			lockId = line.substring(open + 1, close);
+		}
+
+		final int classStart = line.indexOf("(a ", Math.max(close, 0));
+		final int classEnd = line.lastIndexOf(')');
+		if (classStart >= 0 && classEnd > classStart + 3) {
+			lockClassName = intern(pool, line.substring(classStart + 3, classEnd));
+		}
+
+		return StackFrame.lock(line, lock, lockId, lockClassName);
+	}
+
+	private static String intern(final StackFramePool pool, final String value) {
+		return pool == null ? value : pool.intern(value);
+	}
+
+	private static int parseLineNumber(final String method, final int from, final int to) {
+		if (from >= to) {
+			return -1;
+		}
+		int value = 0;
+		for (int i = from; i < to; i++) {
+			final char c = method.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+
+	/**
+	 * The text after {@code from}, with runs of whitespaces turned into a single space, the same as
+	 * splitting by "\\s+" and joining the fields back.
+	 */
+	private static String collapseWhitespaces(final String line, final int from) {
+		int start = from;
+		while (start < line.length() && ThreadHeaderTokenizer.isWhitespace(line.charAt(start))) {
+			start++;
+		}
+
+		boolean collapse = false;
+		for (int i = start; i < line.length(); i++) {
+			final char c = line.charAt(i);
+			if (ThreadHeaderTokenizer.isWhitespace(c)
+					&& (c != ' ' || i + 1 == line.length() || ThreadHeaderTokenizer.isWhitespace(line.charAt(i + 1)))) {
+				collapse = true;
+				break;
+			}
+		}
+		if (!collapse) {
+			return line.substring(start);
+		}
+
+		final StringBuilder sb = new StringBuilder(line.length() - start);
+		boolean whitespace = false;
+		for (int i = start; i < line.length(); i++) {
+			final char c = line.charAt(i);
+			if (ThreadHeaderTokenizer.isWhitespace(c)) {
+				whitespace = true;
+			} else {
+				if (whitespace && sb.length() > 0) {
+					sb.append(' ');
+				}
+				whitespace = false;
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	private StackFrameTokenizer() {}
+
+}
@@ -0,0 +1,282 @@
+package com.thread.dump.parser.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import com.thread.dump.parser.domain.StackCount;
+import com.thread.dump.parser.domain.StackFrame;
+import com.thread.dump.parser.domain.ThreadInfo;
+
+/**
+ * Aggregates the stacks of periodic samples of threads, as a sampling profiler does: a running count per stack, since
+ * the first sample, and the stacks of the most recent samples in a ring buffer.
+ *
+ * <p>Memory is bounded however long it runs: the ring buffer keeps the given number of samples, as a stack signature per
+ * thread, and the running counts are kept for a maximum number of distinct stacks. Threads with a stack beyond that
+ * maximum are only counted as dropped from the running counts, they're still counted in the recent stacks, whose frames
+ * are kept for as long as they're in the ring buffer. Stacks are told apart by their signature, see {@link ThreadInfo#getStackSignature()},
+ * counts are kept in an open addressing table of primitives, as {@link MethodCounts} does, so a sample allocates nothing
+ * once its stacks have been seen.</p>
+ * <pre>
+ * StackSampler sampler = new StackSampler(600, 10_000).withFilter(thread -&gt; "RUNNABLE".equals(thread.getState()));
+ * SamplingProfiler.live(sampler).start(50, TimeUnit.MILLISECONDS);
+ * ...
+ * sampler.topRecentStacks(10).forEach(System.out::println);
+ * </pre>
+ *
+ * <p>Thread safe, samples are usually added by one thread and read by others.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public final class StackSampler {
+
+	private static final int INITIAL_CAPACITY = 256;
+
+	private final int maximumStacks;
+	private Predicate<ThreadInfo> filter = thread -> true;
+
+	// Running counts, a 0 signature is a free slot, stack signatures are never 0.
+	private long[] signatures = new long[INITIAL_CAPACITY];
+	private long[] counts = new long[INITIAL_CAPACITY];
+	private Object[] frames = new Object[INITIAL_CAPACITY];
+	private int size;
+	private long dropped;
+
+	// The frames of the stacks in the ring buffer without a running count, by signature.
+	private final Map<Long, RecentStack> overflow = new HashMap<>();
+
+	// The stack signatures of the most recent samples, the arrays are reused.
+	private final long[][] ring;
+	private final int[] ringSizes;
+	private int next;
+	private long sampleCount;
+
+	/**
+	 * @param samples the number of recent samples to keep.
+	 * @param maximumStacks the number of distinct stacks to count.
+	 */
+	public StackSampler(final int samples, final int maximumStacks) {
+		if (samples <= 0 || maximumStacks <= 0) {
+			throw new IllegalArgumentException("The number of samples and stacks should be positive");
+		}
+		this.ring = new long[samples][];
+		this.ringSizes = new int[samples];
+		this.maximumStacks = maximumStacks;
+	}
+
+	/**
+	 * @param filter the threads to count, e.g. only the RUNNABLE ones for a CPU profile. All of them by default.
+	 */
+	public synchronized StackSampler withFilter(final Predicate<ThreadInfo> filter) {
+		this.filter = filter;
+		return this;
+	}
+
+	/**
+	 * Adds a sample, the threads of a dump or a capture.
+	 */
+	public synchronized void add(final List<ThreadInfo> threads) {
+		long[] sample = ring[next];
+		if (!overflow.isEmpty()) {
+			for (int j = 0; j < ringSizes[next]; j++) {
+				release(sample[j]);
+			}
+		}
+		if (sample == null || sample.length < threads.size()) {
+			sample = new long[Math.max(threads.size(), 16)];
+			ring[next] = sample;
+		}
+
+		int sampleSize = 0;
+		for (final ThreadInfo thread : threads) {
+			if (!filter.test(thread)) {
+				continue;
+			}
+			final long signature = ThreadParsing.stackSignature(thread);
+			sample[sampleSize++] = signature;
+			final int slot = slot(signature, thread);
+			if (slot < 0) {
+				dropped++;
+				overflow.computeIfAbsent(signature, key -> new RecentStack(ThreadParsing.stackFrames(thread))).references++;
+			} else {
+				counts[slot]++;
+			}
+		}
+		ringSizes[next] = sampleSize;
+		next = (next + 1) % ring.length;
+		sampleCount++;
+	}
+
+	/**
+	 * @return the number of samples added, since the first one.
+	 */
+	public synchronized long sampleCount() {
+		return sampleCount;
+	}
+
+	/**
+	 * @return the number of distinct stacks counted.
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * @return the number of threads not in the running counts, their stack was beyond the maximum number of stacks.
+	 */
+	public synchronized long droppedCount() {
+		return dropped;
+	}
+
+	/**
+	 * @return the k stacks seen the most since the first sample, most seen first.
+	 */
+	public synchronized List<StackCount> topStacks(final int k) {
+		final List<StackCount> stacks = new ArrayList<>(size);
+		for (int i = 0; i < signatures.length; i++) {
+			if (signatures[i] != 0) {
+				stacks.add(stackCount(i, counts[i]));
+			}
+		}
+		return top(stacks, k);
+	}
+
+	/**
+	 * @return the k stacks seen the most in the samples of the ring buffer, most seen first, dropped ones included.
+	 */
+	public synchronized List<StackCount> topRecentStacks(final int k) {
+		final Map<Long, long[]> recent = new HashMap<>();
+		final int samples = (int) Math.min(sampleCount, ring.length);
+		for (int i = 0; i < samples; i++) {
+			for (int j = 0; j < ringSizes[i]; j++) {
+				recent.computeIfAbsent(ring[i][j], signature -> new long[1])[0]++;
+			}
+		}
+
+		final List<StackCount> stacks = new ArrayList<>(recent.size());
+		for (final Map.Entry<Long, long[]> entry : recent.entrySet()) {
+			final int slot = find(entry.getKey());
+			if (slot >= 0) {
+				stacks.add(stackCount(slot, entry.getValue()[0]));
+			} else {
+				stacks.add(new StackCount(entry.getKey(), overflow.get(entry.getKey()).frames, entry.getValue()[0]));
+			}
+		}
+		return top(stacks, k);
+	}
+
+	public synchronized void clear() {
+		Arrays.fill(signatures, 0);
+		Arrays.fill(counts, 0);
+		Arrays.fill(frames, null);
+		Arrays.fill(ringSizes, 0);
+		overflow.clear();
+		size = 0;
+		dropped = 0;
+		next = 0;
+		sampleCount = 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	private StackCount stackCount(final int slot, final long count) {
+		return new StackCount(signatures[slot], (List<StackFrame>) frames[slot], count);
+	}
+
+	private static List<StackCount> top(final List<StackCount> stacks, final int k) {
+		if (k <= 0) {
+			return Collections.emptyList();
+		}
+		stacks.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+		return stacks.size() > k ? new ArrayList<>(stacks.subList(0, k)) : stacks;
+	}
+
+	private void release(final long signature) {
+		final RecentStack stack = overflow.get(signature);
+		if (stack != null && --stack.references == 0) {
+			overflow.remove(signature);
+		}
+	}
+
+	private int find(final long signature) {
+		final int mask = signatures.length - 1;
+		for (int i = spread(signature) & mask; signatures[i] != 0; i = (i + 1) & mask) {
+			if (signatures[i] == signature) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the slot of the stack, a new one if it wasn't there, -1 if there's no room for another stack.
+	 */
+	private int slot(final long signature, final ThreadInfo thread) {
+		int mask = signatures.length - 1;
+		int i = spread(signature) & mask;
+		for (; signatures[i] != 0; i = (i + 1) & mask) {
+			if (signatures[i] == signature) {
+				return i;
+			}
+		}
+		if (size == maximumStacks) {
+			return -1;
+		}
+
+		// Load factor of 1/2, the probe sequences stay short.
+		if (size + 1 > signatures.length >> 1) {
+			grow();
+			mask = signatures.length - 1;
+			i = spread(signature) & mask;
+			while (signatures[i] != 0) {
+				i = (i + 1) & mask;
+			}
+		}
+		signatures[i] = signature;
+		frames[i] = ThreadParsing.stackFrames(thread);
+		size++;
+		return i;
+	}
+
+	private void grow() {
+		final long[] oldSignatures = signatures;
+		final long[] oldCounts = counts;
+		final Object[] oldFrames = frames;
+
+		signatures = new long[oldSignatures.length << 1];
+		counts = new long[signatures.length];
+		frames = new Object[signatures.length];
+		final int mask = signatures.length - 1;
+		for (int j = 0; j < oldSignatures.length; j++) {
+			if (oldSignatures[j] != 0) {
+				int i = spread(oldSignatures[j]) & mask;
+				while (signatures[i] != 0) {
+					i = (i + 1) & mask;
+				}
+				signatures[i] = oldSignatures[j];
+				counts[i] = oldCounts[j];
+				frames[i] = oldFrames[j];
+			}
+		}
+	}
+
+	private static int spread(final long signature) {
+		return (int) (signature ^ (signature >>> 32));
+	}
+
+	private static final class RecentStack {
+
+		private final List<StackFrame> frames;
+		private int references;
+
+		private RecentStack(final List<StackFrame> frames) {
+			this.frames = frames;
+		}
+
+	}
+
+}
@@ -0,0 +1,167 @@
+package com.thread.dump.parser.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.thread.dump.parser.domain.StackFrame;
+import com.thread.dump.parser.domain.StackTraceLock;
+import com.thread.dump.parser.domain.StuckThread;
+import com.thread.dump.parser.domain.ThreadDump;
+import com.thread.dump.parser.domain.ThreadInfo;
+
+/**
+ * Finds the threads which didn't move over a series of thread dumps taken a few seconds apart, e.g. hung requests.
+ *
+ * <p>Dumps are added one at a time, in the order they were taken. A thread is stuck once, in the given number of
+ * consecutive dumps, it has been:</p>
+ * <ul>
+ *     <li>waiting to lock the same monitor, or parked on the same lock (not on a condition, that's how idle pool
+ *     workers wait for work);</li>
+ *     <li>or, not waiting for a lock, running or blocked with the same stack frames. Waiting threads are left out for
+ *     the same reason.</li>
+ * </ul>
+ *
+ * <p>Threads are told apart across dumps by their tid and nid. Only the state of the threads of the last dump is kept,
+ * the time and memory taken by each dump don't grow with the length of the series.</p>
+ * <pre>
+ * StuckThreadDetector detector = new StuckThreadDetector(3);
+ * for (ThreadDump dump : MultiDumpReader.fromFile("stdout.log")) {
+ *     detector.add(dump).forEach(System.out::println);
+ * }
+ * </pre>
+ *
+ * <p>Not thread safe.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public final class StuckThreadDetector {
+
+	private static final String CONDITION = "$ConditionObject";
+
+	private static final class State {
+
+		private final long stackSignature;
+		private final String lockId;
+		private int stackDumps = 1;
+		private int lockDumps = 1;
+
+		private State(final long stackSignature, final String lockId) {
+			this.stackSignature = stackSignature;
+			this.lockId = lockId;
+		}
+	}
+
+	private final int dumps;
+	private Map<String, State> states = Collections.emptyMap();
+
+	/**
+	 * @param dumps the number of consecutive dumps in which a thread doesn't move to be stuck, at least 2.
+	 */
+	public StuckThreadDetector(final int dumps) {
+		if (dumps < 2) {
+			throw new IllegalArgumentException("A thread is stuck over 2 or more dumps: " + dumps);
+		}
+		this.dumps = dumps;
+	}
+
+	public List<StuckThread> add(final ThreadDump dump) {
+		return add(dump.getThreads());
+	}
+
+	/**
+	 * Adds the threads of the next dump.
+	 * @return the threads stuck as of this dump, in the order of the dump.
+	 */
+	public List<StuckThread> add(final List<ThreadInfo> threads) {
+		final Map<String, State> next = new HashMap<>(threads.size() * 2);
+		final List<StuckThread> stuck = new ArrayList<>();
+		for (final ThreadInfo thread : threads) {
+			final String key = keyOf(thread);
+			final State state = new State(ThreadParsing.stackSignature(thread), lockWaitedFor(thread));
+			final State previous = states.get(key);
+			if (previous != null) {
+				if (state.lockId != null && state.lockId.equals(previous.lockId)) {
+					state.lockDumps = previous.lockDumps + 1;
+				}
+				if (state.stackSignature == previous.stackSignature) {
+					state.stackDumps = previous.stackDumps + 1;
+				}
+			}
+			// Two threads with the same key, the last one wins.
+			next.put(key, state);
+
+			// Stack signatures leave lock addresses out, threads waiting for a lock are stuck by lock only.
+			if (state.lockId != null) {
+				if (state.lockDumps >= dumps) {
+					stuck.add(new StuckThread(thread, StuckThread.Reason.SAME_LOCK, state.lockDumps, state.lockId));
+				}
+			} else if (state.stackDumps >= dumps && isRunningOrBlocked(thread)) {
+				stuck.add(new StuckThread(thread, StuckThread.Reason.SAME_STACK, state.stackDumps, null));
+			}
+		}
+		states = next;
+		return stuck;
+	}
+
+	/**
+	 * Forgets the dumps added so far.
+	 */
+	public void clear() {
+		states = Collections.emptyMap();
+	}
+
+	/**
+	 * tid and nid, the name for threads without them.
+	 */
+	private static String keyOf(final ThreadInfo thread) {
+		if (thread.getId() == null && thread.getNativeId() == null) {
+			return "\"" + thread.getName();
+		}
+		return thread.getId() + "/" + thread.getNativeId();
+	}
+
+	/**
+	 * @return the monitor the thread waits to lock, or the lock (not a condition) it's parked on. A monitor the thread
+	 * is also "waiting on" is the one it gets back after Object.wait(), it's not waited for.
+	 */
+	private static String lockWaitedFor(final ThreadInfo thread) {
+		final List<StackFrame> frames = ThreadParsing.stackFrames(thread);
+		for (final StackFrame frame : frames) {
+			if (!frame.isLock() || frame.getLockId() == null) {
+				continue;
+			}
+			if (frame.getLock() == StackTraceLock.WAITING_TO_LOCK && !isWaitingOn(frames, frame.getLockId())) {
+				return frame.getLockId();
+			}
+			if (frame.getLock() == StackTraceLock.PARKING_TO_WAIT_FOR
+					&& (frame.getLockClassName() == null || !frame.getLockClassName().endsWith(CONDITION))) {
+				return frame.getLockId();
+			}
+		}
+		return null;
+	}
+
+	private static boolean isWaitingOn(final List<StackFrame> frames, final String lockId) {
+		for (final StackFrame frame : frames) {
+			if (frame.getLock() == StackTraceLock.WAITING_ON && lockId.equals(frame.getLockId())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Threads without a Java stack (GC, compiler threads, ...) never move and are left out too.
+	 */
+	private static boolean isRunningOrBlocked(final ThreadInfo thread) {
+		final String state = thread.getState();
+		if (state == null || ThreadParsing.stackFrames(thread).isEmpty()) {
+			return false;
+		}
+		return state.equalsIgnoreCase(Thread.State.RUNNABLE.name()) || state.equals(Thread.State.BLOCKED.name());
+	}
+
+}
@@ -0,0 +1,217 @@
+package com.thread.dump.parser.util;
+
+import java.util.Optional;
+
+import com.thread.dump.parser.domain.ThreadInfo;
+
+/**
+ * Single pass, regex free, parser of thread header lines like:
+ * <pre>
+ * "main" #1 prio=5 os_prio=0 cpu=71.85ms elapsed=8.08s tid=0x00007f6b7c02c2d0 nid=0x1f2d waiting on condition  [0x00007f6b82ffe000]
+ * </pre>
+ *
+ * <p>It accepts exactly the same lines as {@link PatternConstants#THREAD_NAME_MATCHER}, with the same name, tid and nid,
+ * and also keeps the fields the regex throws away: the thread number, daemon flag, priorities, cpu, elapsed time and status.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+final class ThreadHeaderTokenizer {
+
+	private static final String TID = "tid=";
+	private static final String NID = " nid=";
+	private static final String DAEMON = "daemon";
+	private static final String PRIO = "prio=";
+	private static final String OS_PRIO = "os_prio=";
+	private static final String CPU = "cpu=";
+	private static final String ELAPSED = "elapsed=";
+
+	private static final double MILLIS_PER_SECOND = 1000.0;
+
+	static Optional<ThreadInfo> tokenize(final String line) {
+		if (!line.startsWith(ParsingConstants.THREAD_INFORMATION_BEGIN)) {
+			return Optional.empty();
+		}
+
+		// Like the greedy regex: the last "tid=... nid=... " in the line, and the last quote before it.
+		int tid = line.length();
+		int nid = -1;
+		int nidEnd = -1;
+		while ((tid = line.lastIndexOf(TID, tid - 1)) > 0) {
+			if (isWhitespace(line.charAt(tid - 1))) {
+				final int tidEnd = skipWordChars(line, tid + TID.length());
+				if (line.startsWith(NID, tidEnd)) {
+					nid = tidEnd + NID.length();
+					nidEnd = skipWordChars(line, nid);
+					if (nidEnd < line.length() && isWhitespace(line.charAt(nidEnd))) {
+						break;
+					}
+				}
+			}
+		}
+		if (tid <= 0) {
+			return Optional.empty();
+		}
+
+		final int nameEnd = line.lastIndexOf('"', tid - 2);
+		if (nameEnd < 1) {
+			return Optional.empty();
+		}
+
+		final ThreadInfo threadInfo = new ThreadInfo();
+		threadInfo.setName(line.substring(1, nameEnd));
+		threadInfo.setId(line.substring(tid + TID.length(), nid - NID.length()));
+		threadInfo.setNativeId(line.substring(nid, nidEnd));
+		tokenizeFields(line, nameEnd + 1, tid - 1, threadInfo);
+		threadInfo.setStatus(extractStatus(line, nidEnd));
+
+		return Optional.of(threadInfo);
+	}
+
+	/**
+	 * The space separated fields between the thread name and tid: #number, daemon, prio, os_prio, cpu and elapsed.
+	 */
+	private static void tokenizeFields(final String line, final int from, final int to, final ThreadInfo threadInfo) {
+		int start = from;
+		while (start < to) {
+			while (start < to && isWhitespace(line.charAt(start))) {
+				start++;
+			}
+			int end = start;
+			while (end < to && !isWhitespace(line.charAt(end))) {
+				end++;
+			}
+			if (end > start) {
+				tokenizeField(line, start, end, threadInfo);
+			}
+			start = end;
+		}
+	}
+
+	private static void tokenizeField(final String line, final int start, final int end, final ThreadInfo threadInfo) {
+		if (line.charAt(start) == '#') {
+			final long number = parseLong(line, start + 1, end);
+			if (number >= 0) {
+				threadInfo.setNumber(number);
+			}
+		} else if (end - start == DAEMON.length() && line.startsWith(DAEMON, start)) {
+			threadInfo.setDaemon(true);
+		} else if (line.startsWith(PRIO, start)) {
+			final long priority = parseLong(line, start + PRIO.length(), end);
+			if (priority >= 0) {
+				threadInfo.setPriority((int) priority);
+			}
+		} else if (line.startsWith(OS_PRIO, start)) {
+			final long osPriority = parseLong(line, start + OS_PRIO.length(), end);
+			if (osPriority >= 0) {
+				threadInfo.setOsPriority((int) osPriority);
+			}
+		} else if (line.startsWith(CPU, start)) {
+			threadInfo.setCpuMillis(parseMillis(line, start + CPU.length(), end));
+		} else if (line.startsWith(ELAPSED, start)) {
+			final Double elapsedMillis = parseMillis(line, start + ELAPSED.length(), end);
+			threadInfo.setElapsedSeconds(elapsedMillis == null ? null : elapsedMillis / MILLIS_PER_SECOND);
+		}
+	}
+
+	/**
+	 * Whatever comes after the nid, without the trailing stack address: "runnable", "waiting on condition", "in Object.wait()", ...
+	 */
+	private static String extractStatus(final String line, final int from) {
+		int start = from;
+		int end = line.length();
+		while (start < end && isWhitespace(line.charAt(start))) {
+			start++;
+		}
+		while (end > start && isWhitespace(line.charAt(end - 1))) {
+			end--;
+		}
+		if (end > start && line.charAt(end - 1) == ']') {
+			final int address = line.lastIndexOf('[', end - 1);
+			if (address >= start) {
+				end = address;
+				while (end > start && isWhitespace(line.charAt(end - 1))) {
+					end--;
+				}
+			}
+		}
+		return end > start ? line.substring(start, end) : null;
+	}
+
+	/**
+	 * @return the non negative number in [from, to), or -1 if there is none.
+	 */
+	private static long parseLong(final String line, final int from, final int to) {
+		if (from >= to) {
+			return -1;
+		}
+		long value = 0;
+		for (int i = from; i < to; i++) {
+			final char c = line.charAt(i);
+			if (!isDigit(c)) {
+				return -1;
+			}
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+
+	/**
+	 * Parses durations like "71.85ms" or "8.08s".
+	 * @return the duration in milliseconds, null when it can't be parsed.
+	 */
+	private static Double parseMillis(final String line, final int from, final int to) {
+		long integer = 0;
+		long fraction = 0;
+		long scale = 1;
+		boolean digits = false;
+		int i = from;
+		for (; i < to && isDigit(line.charAt(i)); i++) {
+			integer = integer * 10 + (line.charAt(i) - '0');
+			digits = true;
+		}
+		if (i < to && line.charAt(i) == '.') {
+			for (i++; i < to && isDigit(line.charAt(i)); i++) {
+				fraction = fraction * 10 + (line.charAt(i) - '0');
+				scale *= 10;
+				digits = true;
+			}
+		}
+		if (!digits) {
+			return null;
+		}
+
+		final double value = integer + (double) fraction / scale;
+		final int unitLength = to - i;
+		if (unitLength == 2 && line.startsWith("ms", i)) {
+			return value;
+		} else if (unitLength == 1 && line.charAt(i) == 's') {
+			return value * MILLIS_PER_SECOND;
+		}
+		return null;
+	}
+
+	private static int skipWordChars(final String line, final int from) {
+		int i = from;
+		while (i < line.length() && isWordChar(line.charAt(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	private static boolean isDigit(final char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	// Same as \w in java.util.regex
+	private static boolean isWordChar(final char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+	}
+
+	// Same as \s in java.util.regex
+	static boolean isWhitespace(final char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+	}
+
+	private ThreadHeaderTokenizer() {}
+
+}
@@ -4,14 +4,6 @@ import static com.thread.dump.parser.util.ParsingConstants.*;
 import static com.thread.dump.parser.util.ParsingConstants.NEW_LINE;
 import static com.thread.dump.parser.util.PatternConstants.*;
 import static com.thread.dump.parser.util.PatternConstants.STATE;
-import static com.thread.dump.parser.util.PatternConstants.ThreadNameFieldsIndex.ID;
-import static com.thread.dump.parser.util.PatternConstants.ThreadNameFieldsIndex.NAME;
-import static com.thread.dump.parser.util.PatternConstants.ThreadNameFieldsIndex.NATIVE_ID;
-
-import static com.thread.dump.parser.util.PatternConstants.ThreadLockedFieldsIndex.LOCKED_ID;
-import static com.thread.dump.parser.util.PatternConstants.ThreadWaitingToLockFieldsIndex.WAITING_TO_LOCK;
-import static com.thread.dump.parser.util.PatternConstants.ThreadParkingToWaitFor.WAITING_FOR_ID;
-import static com.thread.dump.parser.util.PatternConstants.ThreadWaitingOn.WAITING_ON_ID;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -19,9 +11,13 @@ import java.util.*;
 import java.util.regex.Matcher;
 import java.util.stream.Collectors;
 
+import com.thread.dump.parser.ParseListener;
+import com.thread.dump.parser.ParseMetrics;
 import com.thread.dump.parser.domain.Locked;
 import org.apache.commons.lang3.StringUtils;
 
+import com.thread.dump.parser.domain.StackFrame;
+import com.thread.dump.parser.domain.StackGroup;
 import com.thread.dump.parser.domain.StackTraceLock;
 import com.thread.dump.parser.domain.ThreadInfo;
 
@@ -31,34 +27,28 @@ import com.thread.dump.parser.domain.ThreadInfo;
 public class ThreadParsing {
 
 	public static boolean hasRunnableState(final String threadHeaderLine) {
-		final Matcher matcher = RUNNABLE_THREAD_SUFFIX_MATCHER.matcher(threadHeaderLine);
-		return matcher.find();
+		return endsWithStatus(threadHeaderLine, RUNNABLE_STATUS);
 	}
 
 	public static boolean hasWaitingOnConditionState(final String threadHeaderLine) {
-		final Matcher matcher = WAITING_ON_SUFFIX_MATCHER.matcher(threadHeaderLine);
-		return matcher.find();
+		return endsWithStatus(threadHeaderLine, WAITING_ON_CONDITION_STATUS);
 	}
-	
-	public static Optional<ThreadInfo> extractThreadInfoFromLine(final String threadHeaderLine) {
-		final Matcher matcher = THREAD_NAME_MATCHER.matcher(threadHeaderLine);
-		
-		if (matcher.find() && matcher.groupCount() == THREAD_NAME_FIELD_COUNT) {
-			
-			final ThreadInfo threadInfo = new ThreadInfo();
-			threadInfo.setName(matcher.group(NAME.get()));
-			threadInfo.setId(matcher.group(ID.get()));
-			threadInfo.setNativeId(matcher.group(NATIVE_ID.get()));
 
-			if (threadHeaderLine.contains(" daemon ")) {
-				threadInfo.setDaemon(true);
-			}
-			
-			return Optional.<ThreadInfo>of(threadInfo);
+	/**
+	 * Same as the RUNNABLE_THREAD_SUFFIX_MATCHER and WAITING_ON_SUFFIX_MATCHER patterns:
+	 * the status followed by one or two whitespaces at the very end of the line.
+	 */
+	private static boolean endsWithStatus(final String threadHeaderLine, final String status) {
+		int end = threadHeaderLine.length();
+		while (end > 0 && threadHeaderLine.length() - end < 3 && ThreadHeaderTokenizer.isWhitespace(threadHeaderLine.charAt(end - 1))) {
+			end--;
 		}
-		
-		return Optional.<ThreadInfo>empty();
-		
+		final int trailingWhitespaces = threadHeaderLine.length() - end;
+		return trailingWhitespaces >= 1 && trailingWhitespaces <= 2 && threadHeaderLine.startsWith(status, end - status.length());
+	}
+
+	public static Optional<ThreadInfo> extractThreadInfoFromLine(final String threadHeaderLine) {
+		return ThreadHeaderTokenizer.tokenize(threadHeaderLine);
 	}
 	
 	public static Optional<Thread.State> extractThreadState(final String line) {
@@ -85,67 +75,108 @@ public class ThreadParsing {
 		return Optional.empty();
 	}
 	
+	public static StackFrame extractStackFrame(final String stackTraceLine) {
+		return StackFrameTokenizer.tokenize(stackTraceLine, null);
+	}
+
+	/**
+	 * @return the thread's stack frames, they are parsed from its stack trace if they were not set by the parser.
+	 */
+	public static List<StackFrame> stackFrames(final ThreadInfo thread) {
+		if (!thread.getStackFrames().isEmpty() || !thread.getStackTrace().isPresent()) {
+			return thread.getStackFrames();
+		}
+		final StackFramePool pool = new StackFramePool();
+		return Arrays.stream(thread.getStackTrace().get().split("\\r?\\n"))
+				.map(String::trim)
+				.filter(StringUtils::isNotEmpty)
+				.map(pool::frame)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * @return the thread's stack signature, see {@link ThreadInfo#getStackSignature()}, computed from its frames if the parser didn't.
+	 */
+	public static long stackSignature(final ThreadInfo thread) {
+		if (thread.getStackSignature() != 0) {
+			return thread.getStackSignature();
+		}
+		long stackSignature = StackFrame.EMPTY_STACK_SIGNATURE;
+		for (final StackFrame frame : stackFrames(thread)) {
+			stackSignature = StackFrame.nextStackSignature(stackSignature, frame);
+		}
+		return stackSignature;
+	}
+
+	/**
+	 * Groups the threads with the same stack signature, in a single pass and without comparing the stack traces.
+	 * @return the groups, biggest first, the ones of the same size in the order they were found.
+	 */
+	public static List<StackGroup> groupByIdenticalStack(final List<ThreadInfo> threads) {
+		final Map<Long, StackGroup> groups = new LinkedHashMap<>();
+		for (final ThreadInfo thread : threads) {
+			groups.computeIfAbsent(stackSignature(thread), StackGroup::new).getThreads().add(thread);
+		}
+		final List<StackGroup> sorted = new ArrayList<>(groups.values());
+		sorted.sort(Comparator.comparingInt(StackGroup::size).reversed());
+		return sorted;
+	}
+
+	/**
+	 * @return by lock type and lock address, the last thread found with that annotation. See {@link LockIndex}
+	 * for every holder and waiter of a lock, and {@link WaitForGraph} for deadlocks and blocking chains.
+	 */
 	public static Map<StackTraceLock, Map<String, ThreadInfo>> lockingInfo(final List<ThreadInfo> threads) {
 		
 		final Map<StackTraceLock, Map<String, ThreadInfo>> stackTrace = new HashMap<>();
 		initializeStackTrace(stackTrace);
 		
-		threads.stream().
-			filter(thread -> thread.getStackTrace().isPresent()).forEach(thread -> {
-			for (final String stackTraceLine : thread.getStackTrace().get().split(NEW_LINE)) {
-				if (stackTraceLine.contains(LOCKED_TEXT)) {
-					extractLocked(stackTraceLine, thread, stackTrace);
-				} else if (stackTraceLine.contains(PARKING_TO_WAIT_FOR_TEXT)) {
-					extractParkingToWaitFor(stackTraceLine, thread, stackTrace);
-				} else if (stackTraceLine.contains(WAITING_ON_TEXT)) {
-					extractWaitingOn(stackTraceLine, thread, stackTrace);
-				} else if (stackTraceLine.contains(WAITING_TO_LOCK_TEXT)) {
-					extractWaitingToLock(stackTraceLine, thread, stackTrace);
+		for (final ThreadInfo thread : threads) {
+			for (final StackFrame frame : stackFrames(thread)) {
+				if (frame.isLock() && frame.getLockId() != null) {
+					stackTrace.get(frame.getLock()).put(frame.getLockId(), thread);
 				}
 			}
-		});
+		}
 		
 		return stackTrace;
 		
 	}
 
+	/**
+	 * {@link #lockingInfo(List)}, telling the listener how long it took.
+	 */
+	public static Map<StackTraceLock, Map<String, ThreadInfo>> lockingInfo(final List<ThreadInfo> threads, final ParseListener listener) {
+		return ParseMetrics.analyze(listener, "lockingInfo", threads, ThreadParsing::lockingInfo);
+	}
+
 	public static Map<ThreadInfo, List<Locked>> holds(final List<ThreadInfo> threads){
 		final Map<ThreadInfo, List<Locked>> holds = new HashMap<>();
 
-		threads.stream()
-				.filter(th -> th.getStackTrace().isPresent())
-				.filter(th -> th.getStackTrace().get().contains(" locked "))
-				.forEach(th -> {
-			final String stackTrace = th.getStackTrace().get();
-
-			Arrays.stream(stackTrace.split("\n")).map(stackLine -> LOCKED_RGX.matcher(stackLine.trim()))
-					.filter(Matcher::matches)
-					.forEach(match -> {
-						if (!holds.containsKey(th)) {
-							final List<Locked> locks = new ArrayList<>();
-							holds.put(th, locks);
-						}
-						final List<Locked> locks = holds.get(th);
-						final Locked lockToAdd = new Locked(match.group(LockedIndex.ID.get()), match.group(LockedIndex.CLASS.get()));
-						locks.add(lockToAdd);
-						holds.put(th, locks);
-					});
-		});
+		for (final ThreadInfo thread : threads) {
+			final List<Locked> locks = holdsForThread(thread);
+			if (!locks.isEmpty()) {
+				holds.computeIfAbsent(thread, th -> new ArrayList<>()).addAll(locks);
+			}
+		}
 		return holds;
 	}
 
+	/**
+	 * {@link #holds(List)}, telling the listener how long it took.
+	 */
+	public static Map<ThreadInfo, List<Locked>> holds(final List<ThreadInfo> threads, final ParseListener listener) {
+		return ParseMetrics.analyze(listener, "holds", threads, ThreadParsing::holds);
+	}
+
 	public static List<Locked> holdsForThread(final ThreadInfo thread) {
-		if (!thread.getStackTrace().isPresent() || !thread.getStackTrace().get().contains(" locked ")) {
-			return new ArrayList<>();
+		final List<Locked> locks = new ArrayList<>();
+		for (final StackFrame frame : stackFrames(thread)) {
+			if (frame.getLock() == StackTraceLock.LOCKED && frame.getLockId() != null && frame.getLockClassName() != null) {
+				locks.add(new Locked(frame.getLockId(), frame.getLockClassName()));
+			}
 		}
-
-		final String stackTrace = thread.getStackTrace().get();
-		return Arrays.stream(stackTrace.split("\n"))
-				.map(String::trim)
-				.map(stackLine -> LOCKED_RGX.matcher(stackLine.trim()))
-				.filter(Matcher::matches)
-				.map(match -> new Locked(match.group(LockedIndex.ID.get()), match.group(LockedIndex.CLASS.get())))
-				.collect(Collectors.toList());
+		return locks;
 	}
 	
 	private static void initializeStackTrace(final Map<StackTraceLock, Map<String, ThreadInfo>> stackTrace) {
@@ -156,108 +187,26 @@ public class ThreadParsing {
 					stackTrace.put(stackTraceLock, threadLockInformation);
 				});
 	}
-	
-	private static void extractLocked(
-			final String stackTraceLine, 
-			final ThreadInfo threadInfo,
-			final Map<StackTraceLock, Map<String, ThreadInfo>> stackTrace) {
-		
-		final Matcher threadLockedMatcher = THREAD_LOCKED.matcher(stackTraceLine);
-		if (threadLockedMatcher.find()) {
-			final Map<String, ThreadInfo> lockeds = stackTrace.get(StackTraceLock.LOCKED);
-			final String lockedId = threadLockedMatcher.group(LOCKED_ID.get());
-			lockeds.put(lockedId, threadInfo);
-		}
-	}
-	
-	private static void extractWaitingToLock(
-			final String stackTraceLine,
-			final ThreadInfo threadInfo,
-			final Map<StackTraceLock, Map<String, ThreadInfo>> stackTrace) {
-		
-		final Matcher waitingToLockMatcher = PatternConstants.WAITING_TO_LOCK.matcher(stackTraceLine);
-		if (waitingToLockMatcher.find()) {
-			final Map<String, ThreadInfo> waitingToLock = stackTrace.get(StackTraceLock.WAITING_TO_LOCK);
-			final String lockedId = waitingToLockMatcher.group(WAITING_TO_LOCK.get());
-			waitingToLock.put(lockedId, threadInfo);
-		}
-	}
-	
-	private static void extractParkingToWaitFor(
-			final String stackTraceLine,
-			final ThreadInfo threadInfo,
-			final Map<StackTraceLock, Map<String, ThreadInfo>> stackTrace) {
-		
-		final Matcher parkingToWaitForMatcher = PARKING_TO_WAIT_FOR.matcher(stackTraceLine);
-		if (parkingToWaitForMatcher.find()) {
-			final Map<String, ThreadInfo> waitingToLock = stackTrace.get(StackTraceLock.PARKING_TO_WAIT_FOR);
-			final String lockedId = parkingToWaitForMatcher.group(WAITING_FOR_ID.get());
-			waitingToLock.put(lockedId, threadInfo);
-		}
-	}
-	
-	private static void extractWaitingOn(final String stackTraceLine, 
-			final ThreadInfo threadInfo,
-			final Map<StackTraceLock, Map<String, ThreadInfo>> stackTrace) {
-		
-		final Matcher waitingOnMatcher = WAITING_ON.matcher(stackTraceLine);
-		if (waitingOnMatcher.find()) {
-			final Map<String, ThreadInfo> waitingToLock = stackTrace.get(StackTraceLock.WAITING_ON);
-			final String lockedId = waitingOnMatcher.group(WAITING_ON_ID.get());
-			waitingToLock.put(lockedId, threadInfo);
-		}
-	}
-
-	private static List<String> uniqueStackTrace(final List<String> threadStackTrace) {
-		final Set<String> m = new HashSet<>();
-		threadStackTrace.stream().filter(val -> !m.contains(val)).forEach(m::add);
-		return new ArrayList<>(m);
-	}
 
-	private static String joinFieldsFromStackTraceMethod(final String[] fields) {
-		if (fields.length == 2) {
-			return fields[1];
-		}
-		final StringBuilder sb = new StringBuilder();
-		for (int i = 1; i < fields.length; i++) {
-			sb.append(fields[i]);
-			sb.append(" ");
-		}
-		return sb.toString();
+	/**
+	 * @return by method, the number of threads with it in their stack trace.
+	 */
+	public static Map<String, Integer> mostUsedMethods(final List<ThreadInfo> threads) {
+		return MethodCounts.of(threads).toMap();
 	}
 
-	private static String extractJavaMethodNameFromStackTraceLine(final String stacktraceLine) {
-		final Matcher matcher = STACKTRACE_RGX_METHOD_NAME.matcher(stacktraceLine);
-		if (matcher.matches()) {
-			final String[] fields = stacktraceLine.split("\\s+");
-			String s = joinFieldsFromStackTraceMethod(fields);
-			return s.trim();
-		}
-		return "";
+	/**
+	 * {@link #mostUsedMethods(List)}, telling the listener how long it took.
+	 */
+	public static Map<String, Integer> mostUsedMethods(final List<ThreadInfo> threads, final ParseListener listener) {
+		return ParseMetrics.analyze(listener, "mostUsedMethods", threads, ThreadParsing::mostUsedMethods);
 	}
 
-	public static Map<String, Integer> mostUsedMethods(final List<ThreadInfo> threads) {
-		final Map<String, Integer> mostUsedMethodsGeneral = new HashMap<>();
-
-		for (final ThreadInfo th : threads) {
-			if (!th.getStackTrace().isPresent()) {
-				continue;
-			}
-			final List<String> stackTraceLines = uniqueStackTrace(Arrays.asList(th.getStackTrace().get().split("\n")));
-			for (String stackTraceLine : stackTraceLines) {
-				stackTraceLine = extractJavaMethodNameFromStackTraceLine(stackTraceLine.trim());
-				if (stackTraceLine.isEmpty()) {
-					continue;
-				}
-				if (mostUsedMethodsGeneral.containsKey(stackTraceLine)) {
-					final int count = mostUsedMethodsGeneral.get(stackTraceLine);
-					mostUsedMethodsGeneral.put(stackTraceLine, count + 1);
-				} else {
-					mostUsedMethodsGeneral.put(stackTraceLine, 1);
-				}
-			}
-		}
-		return mostUsedMethodsGeneral;
+	/**
+	 * @return the k methods found in the most threads, most used first.
+	 */
+	public static List<Map.Entry<String, Integer>> topMethods(final List<ThreadInfo> threads, final int k) {
+		return MethodCounts.of(threads).topMethods(k);
 	}
 
 	private ThreadParsing() {}
@@ -0,0 +1,394 @@
+package com.thread.dump.parser.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import com.thread.dump.parser.domain.ThreadInfo;
+
+/**
+ * Who waits for whom in a thread dump.
+ *
+ * <p>Threads and locks are the nodes of the graph: a thread waiting to lock, waiting on or parked on a lock points to
+ * the lock, and a lock points to every thread holding it, so hundreds of threads queued on the same lock cost one edge
+ * each. A thread which both waits on and holds the same monitor is in Object.wait(), it released the monitor and is
+ * waiting to be notified, neither of those edges is added.</p>
+ *
+ * <p>Everything is computed once, in time linear in the number of threads, locks and lock annotations:
+ * the deadlocks are the strongly connected components with more than one thread (Tarjan's algorithm),
+ * blocking chains are the longest paths over the components.</p>
+ *
+ * <p>It's meant for a single dump, lock addresses of different dumps are unrelated.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public final class WaitForGraph {
+
+	private final List<ThreadInfo> threads = new ArrayList<>();
+	private final Map<ThreadInfo, Integer> threadIds = new IdentityHashMap<>();
+	private final int nodeCount;
+
+	// Compressed adjacency lists: the successors of node v are edges[edgeStart[v]] ... edges[edgeStart[v + 1] - 1]
+	private final int[] edgeStart;
+	private final int[] edges;
+
+	// Strongly connected component of every node, numbered in reverse topological order.
+	private final int[] component;
+	private final List<List<ThreadInfo>> deadlocks = new ArrayList<>();
+
+	private final List<ThreadInfo> longestBlockingChain;
+	private final int[] blockedCount;
+
+	private WaitForGraph(final LockIndex index) {
+		final Set<String> lockIds = index.lockIds();
+		final List<int[]> edgeList = new ArrayList<>();
+
+		int lockNode = 0;
+		for (final String lockId : lockIds) {
+			final List<ThreadInfo> holders = index.holders(lockId);
+			final List<ThreadInfo> waiters = index.waiters(lockId);
+
+			final Set<ThreadInfo> inWait = inObjectWait(holders, waiters);
+			for (final ThreadInfo waiter : waiters) {
+				if (!inWait.contains(waiter)) {
+					edgeList.add(new int[] {threadId(waiter), -(lockNode + 1)});
+				}
+			}
+			for (final ThreadInfo holder : holders) {
+				if (!inWait.contains(holder)) {
+					edgeList.add(new int[] {-(lockNode + 1), threadId(holder)});
+				}
+			}
+			lockNode++;
+		}
+
+		// Threads come first, then the locks.
+		this.nodeCount = threads.size() + lockIds.size();
+		this.edgeStart = new int[nodeCount + 1];
+		this.edges = new int[edgeList.size()];
+		for (final int[] edge : edgeList) {
+			edgeStart[node(edge[0]) + 1]++;
+		}
+		for (int v = 0; v < nodeCount; v++) {
+			edgeStart[v + 1] += edgeStart[v];
+		}
+		final int[] position = Arrays.copyOf(edgeStart, nodeCount);
+		for (final int[] edge : edgeList) {
+			edges[position[node(edge[0])]++] = node(edge[1]);
+		}
+
+		this.component = new int[nodeCount];
+		final int componentCount = findComponents();
+		this.longestBlockingChain = findLongestBlockingChain(componentCount);
+		this.blockedCount = countBlockedThreads();
+	}
+
+	public static WaitForGraph of(final LockIndex index) {
+		return new WaitForGraph(index);
+	}
+
+	public static WaitForGraph of(final List<ThreadInfo> threads) {
+		return new WaitForGraph(LockIndex.of(threads));
+	}
+
+	private static Set<ThreadInfo> inObjectWait(final List<ThreadInfo> holders, final List<ThreadInfo> waiters) {
+		if (holders.isEmpty() || waiters.isEmpty()) {
+			return Collections.emptySet();
+		}
+		final Set<ThreadInfo> holding = Collections.newSetFromMap(new IdentityHashMap<>(holders.size()));
+		holding.addAll(holders);
+		final Set<ThreadInfo> inWait = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (final ThreadInfo waiter : waiters) {
+			if (holding.contains(waiter)) {
+				inWait.add(waiter);
+			}
+		}
+		return inWait;
+	}
+
+	private int threadId(final ThreadInfo thread) {
+		return threadIds.computeIfAbsent(thread, th -> {
+			threads.add(th);
+			return threads.size() - 1;
+		});
+	}
+
+	// Locks are stored as -(lock + 1) until the number of threads is known.
+	private int node(final int id) {
+		return id >= 0 ? id : threads.size() - id - 1;
+	}
+
+	private boolean isThread(final int node) {
+		return node < threads.size();
+	}
+
+	/**
+	 * Iterative Tarjan, the JVM stack can't hold a recursion as deep as a 50k threads chain.
+	 * @return the number of components.
+	 */
+	private int findComponents() {
+		final int[] order = new int[nodeCount];
+		final int[] low = new int[nodeCount];
+		final int[] nextEdge = new int[nodeCount];
+		final boolean[] onStack = new boolean[nodeCount];
+		final int[] stack = new int[nodeCount];
+		final int[] calls = new int[nodeCount];
+		Arrays.fill(order, -1);
+
+		int visited = 0;
+		int stackSize = 0;
+		int componentCount = 0;
+		for (int root = 0; root < nodeCount; root++) {
+			if (order[root] >= 0) {
+				continue;
+			}
+			int depth = 0;
+			calls[depth++] = root;
+			order[root] = low[root] = visited++;
+			nextEdge[root] = edgeStart[root];
+			stack[stackSize++] = root;
+			onStack[root] = true;
+
+			while (depth > 0) {
+				final int v = calls[depth - 1];
+				if (nextEdge[v] < edgeStart[v + 1]) {
+					final int w = edges[nextEdge[v]++];
+					if (order[w] < 0) {
+						order[w] = low[w] = visited++;
+						nextEdge[w] = edgeStart[w];
+						stack[stackSize++] = w;
+						onStack[w] = true;
+						calls[depth++] = w;
+					} else if (onStack[w]) {
+						low[v] = Math.min(low[v], order[w]);
+					}
+					continue;
+				}
+
+				depth--;
+				if (depth > 0) {
+					final int caller = calls[depth - 1];
+					low[caller] = Math.min(low[caller], low[v]);
+				}
+				if (low[v] == order[v]) {
+					final List<ThreadInfo> members = new ArrayList<>();
+					int w;
+					do {
+						w = stack[--stackSize];
+						onStack[w] = false;
+						component[w] = componentCount;
+						if (isThread(w)) {
+							members.add(threads.get(w));
+						}
+					} while (w != v);
+					if (members.size() > 1) {
+						Collections.reverse(members);
+						deadlocks.add(Collections.unmodifiableList(members));
+					}
+					componentCount++;
+				}
+			}
+		}
+		return componentCount;
+	}
+
+	/**
+	 * Longest path over the components, counted in threads. A chain ends at the first deadlocked thread it reaches.
+	 */
+	private List<ThreadInfo> findLongestBlockingChain(final int componentCount) {
+		// Nodes by component, the components of the successors come first.
+		final int[] componentStart = new int[componentCount + 1];
+		for (int v = 0; v < nodeCount; v++) {
+			componentStart[component[v] + 1]++;
+		}
+		for (int c = 0; c < componentCount; c++) {
+			componentStart[c + 1] += componentStart[c];
+		}
+		final int[] byComponent = new int[nodeCount];
+		final int[] position = Arrays.copyOf(componentStart, componentCount);
+		for (int v = 0; v < nodeCount; v++) {
+			byComponent[position[component[v]]++] = v;
+		}
+
+		final int[] length = new int[nodeCount];
+		final int[] next = new int[nodeCount];
+		Arrays.fill(next, -1);
+		for (int c = 0; c < componentCount; c++) {
+			final int from = componentStart[c];
+			final int to = componentStart[c + 1];
+			if (to - from > 1) {
+				// Deadlocked, the threads wait forever whatever comes after them.
+				for (int i = from; i < to; i++) {
+					final int v = byComponent[i];
+					length[v] = 1;
+					if (!isThread(v)) {
+						for (int e = edgeStart[v]; e < edgeStart[v + 1] && next[v] < 0; e++) {
+							if (component[edges[e]] == c) {
+								next[v] = edges[e];
+							}
+						}
+					}
+				}
+				continue;
+			}
+			final int v = byComponent[from];
+			for (int e = edgeStart[v]; e < edgeStart[v + 1]; e++) {
+				final int w = edges[e];
+				if (next[v] < 0 || length[w] > length[next[v]]) {
+					next[v] = w;
+				}
+			}
+			length[v] = (isThread(v) ? 1 : 0) + (next[v] < 0 ? 0 : length[next[v]]);
+		}
+
+		int start = -1;
+		for (int v = 0; v < threads.size(); v++) {
+			if (start < 0 || length[v] > length[start]) {
+				start = v;
+			}
+		}
+		if (start < 0 || length[start] < 2) {
+			return Collections.emptyList();
+		}
+
+		final List<ThreadInfo> chain = new ArrayList<>(length[start]);
+		for (int v = start; v >= 0; v = next[v]) {
+			if (isThread(v)) {
+				chain.add(threads.get(v));
+			}
+		}
+		return Collections.unmodifiableList(chain);
+	}
+
+	/**
+	 * Threads transitively waiting for every thread. Each node is attributed to its first successor only, so the graph
+	 * becomes a forest (plus one cycle per deadlock) and the counts are subtree sizes. They are exact as long as every
+	 * thread waits for a single lock held by a single thread, which is what the JVM prints.
+	 */
+	private int[] countBlockedThreads() {
+		final int[] parent = new int[nodeCount];
+		final int[] children = new int[nodeCount];
+		final int[] size = new int[nodeCount];
+		for (int v = 0; v < nodeCount; v++) {
+			parent[v] = edgeStart[v] < edgeStart[v + 1] ? edges[edgeStart[v]] : -1;
+			if (parent[v] >= 0) {
+				children[parent[v]]++;
+			}
+			size[v] = isThread(v) ? 1 : 0;
+		}
+
+		// Leaves first, whatever is left over is on a cycle.
+		final int[] queue = new int[nodeCount];
+		int head = 0;
+		int tail = 0;
+		for (int v = 0; v < nodeCount; v++) {
+			if (children[v] == 0) {
+				queue[tail++] = v;
+			}
+		}
+		final boolean[] done = new boolean[nodeCount];
+		while (head < tail) {
+			final int v = queue[head++];
+			done[v] = true;
+			if (parent[v] >= 0) {
+				size[parent[v]] += size[v];
+				if (--children[parent[v]] == 0) {
+					queue[tail++] = parent[v];
+				}
+			}
+		}
+
+		final int[] blocked = new int[threads.size()];
+		for (int v = 0; v < threads.size(); v++) {
+			if (done[v]) {
+				blocked[v] = size[v] - 1;
+			}
+		}
+		for (int v = 0; v < nodeCount; v++) {
+			if (done[v]) {
+				continue;
+			}
+			// Everything hanging from the cycle waits for every thread on it.
+			int total = 0;
+			int w = v;
+			do {
+				total += size[w];
+				done[w] = true;
+				w = parent[w];
+			} while (w != v);
+			do {
+				if (isThread(w)) {
+					blocked[w] = total - 1;
+				}
+				w = parent[w];
+			} while (w != v);
+		}
+		return blocked;
+	}
+
+	/**
+	 * @return the threads waiting for a lock or holding one, in the order the locks were found.
+	 */
+	public List<ThreadInfo> getThreads() {
+		return Collections.unmodifiableList(threads);
+	}
+
+	/**
+	 * @return the threads holding the locks this thread waits for.
+	 */
+	public List<ThreadInfo> waitsFor(final ThreadInfo thread) {
+		final Integer v = threadIds.get(thread);
+		if (v == null) {
+			return Collections.emptyList();
+		}
+		final List<ThreadInfo> holders = new ArrayList<>();
+		for (int e = edgeStart[v]; e < edgeStart[v + 1]; e++) {
+			final int lock = edges[e];
+			for (int h = edgeStart[lock]; h < edgeStart[lock + 1]; h++) {
+				holders.add(threads.get(edges[h]));
+			}
+		}
+		return holders;
+	}
+
+	/**
+	 * @return the groups of threads waiting for each other, every group is a deadlock.
+	 */
+	public List<List<ThreadInfo>> deadlocks() {
+		return Collections.unmodifiableList(deadlocks);
+	}
+
+	/**
+	 * @return the longest sequence of threads each one waiting for the next one, empty if no thread waits for another.
+	 */
+	public List<ThreadInfo> longestBlockingChain() {
+		return longestBlockingChain;
+	}
+
+	/**
+	 * @return the number of threads waiting, directly or not, for the thread.
+	 */
+	public int blockedCount(final ThreadInfo thread) {
+		final Integer v = threadIds.get(thread);
+		return v == null ? 0 : blockedCount[v];
+	}
+
+	/**
+	 * @return the thread with the most threads waiting for it, empty if no thread waits for another.
+	 */
+	public Optional<ThreadInfo> biggestBlocker() {
+		int biggest = -1;
+		for (int v = 0; v < blockedCount.length; v++) {
+			if (blockedCount[v] > 0 && (biggest < 0 || blockedCount[v] > blockedCount[biggest])) {
+				biggest = v;
+			}
+		}
+		return biggest < 0 ? Optional.empty() : Optional.of(threads.get(biggest));
+	}
+
+}
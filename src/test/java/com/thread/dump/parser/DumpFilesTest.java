@@ -0,0 +1,137 @@
+package com.thread.dump.parser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.thread.dump.parser.domain.ThreadDump;
+import com.thread.dump.parser.domain.ThreadInfo;
+import com.thread.dump.parser.util.LockIndex;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public class DumpFilesTest {
+
+	private static final String[] SAMPLES = {"samples/tdump.sample", "samples/11.0.8.0-amazon.txt", "samples/15.0.txt"};
+
+	private Path directory;
+
+	@Before
+	public void createDirectory() throws IOException {
+		directory = Files.createTempDirectory("compressed-dumps");
+	}
+
+	@After
+	public void deleteDirectory() throws IOException {
+		try (final Stream<Path> files = Files.list(directory)) {
+			for (final Path file : (Iterable<Path>) files::iterator) {
+				Files.delete(file);
+			}
+		}
+		Files.delete(directory);
+	}
+
+	private static byte[] gzip(final byte[] content) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (final OutputStream out = new GZIPOutputStream(bytes)) {
+			out.write(content);
+		}
+		return bytes.toByteArray();
+	}
+
+	private Path gzipped(final String sample) throws IOException {
+		// No .gz extension, the format is told by the content.
+		final Path path = directory.resolve(Paths.get(sample).getFileName() + ".bin");
+		Files.write(path, gzip(Files.readAllBytes(Paths.get(sample))));
+		return path;
+	}
+
+	/**
+	 * The samples, the last one gzipped, and a directory.
+	 */
+	private Path zipped() throws IOException {
+		final Path path = directory.resolve("bundle.zip");
+		try (final ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(path))) {
+			zip.putNextEntry(new ZipEntry("dumps/"));
+			zip.closeEntry();
+			for (int i = 0; i < SAMPLES.length; i++) {
+				final byte[] content = Files.readAllBytes(Paths.get(SAMPLES[i]));
+				final boolean last = i == SAMPLES.length - 1;
+				zip.putNextEntry(new ZipEntry("dumps/" + Paths.get(SAMPLES[i]).getFileName() + (last ? ".gz" : "")));
+				zip.write(last ? gzip(content) : content);
+				zip.closeEntry();
+			}
+		}
+		return path;
+	}
+
+	@Test
+	public void formatShouldBeToldByTheContent() throws IOException {
+		assertEquals(DumpFiles.Format.PLAIN, DumpFiles.formatOf(Paths.get(SAMPLES[0])));
+		assertEquals(DumpFiles.Format.GZIP, DumpFiles.formatOf(gzipped(SAMPLES[0])));
+		assertEquals(DumpFiles.Format.ZIP, DumpFiles.formatOf(zipped()));
+
+		final Path empty = Files.createFile(directory.resolve("empty.txt"));
+		assertEquals(DumpFiles.Format.PLAIN, DumpFiles.formatOf(empty));
+		assertTrue(ThreadDumpReader.fromFile(empty.toString()).isEmpty());
+	}
+
+	@Test
+	public void gzippedFilesShouldBeParsedAsTheOriginalOnes() throws IOException {
+		for (final String sample : SAMPLES) {
+			final Path gzipped = gzipped(sample);
+			final List<ThreadInfo> expected = ThreadDumpReader.fromFile(sample);
+			assertEquals(expected, ThreadDumpReader.fromFile(gzipped.toString()));
+			assertEquals(expected, ThreadDumpReader.fromFileInParallel(gzipped.toString()));
+			try (final Stream<ThreadInfo> threads = ThreadDumpReader.stream(gzipped)) {
+				assertEquals(expected, threads.collect(Collectors.toList()));
+			}
+		}
+
+		final List<ThreadDump> dumps = MultiDumpReader.fromFile(gzipped(SAMPLES[1]).toString());
+		assertEquals(2, dumps.size());
+		assertEquals(MultiDumpReader.fromFile(SAMPLES[1]).get(1).getThreads(), dumps.get(1).getThreads());
+	}
+
+	@Test
+	public void zipEntriesShouldBeParsedOnTheirOwn() throws IOException {
+		final LockIndex locks = new LockIndex();
+		final Map<String, List<ThreadInfo>> entries = ThreadDumpReader.fromZip(zipped(), ParseOptions.defaults().withLockIndex(locks));
+
+		final List<String> names = Arrays.stream(SAMPLES).map(sample -> "dumps/" + Paths.get(sample).getFileName()).collect(Collectors.toList());
+		names.set(names.size() - 1, names.get(names.size() - 1) + ".gz");
+		assertEquals(names, new ArrayList<>(entries.keySet()));
+
+		final List<ThreadInfo> all = new ArrayList<>();
+		for (int i = 0; i < SAMPLES.length; i++) {
+			final List<ThreadInfo> expected = ThreadDumpReader.fromFile(SAMPLES[i]);
+			assertEquals(expected, entries.get(names.get(i)));
+			all.addAll(expected);
+		}
+		assertEquals(LockIndex.of(entries.values().stream().flatMap(List::stream).collect(Collectors.toList())).lockIds(), locks.lockIds());
+
+		// As a single file, the entries one after the other.
+		assertEquals(all, ThreadDumpReader.fromFile(zipped().toString()));
+		assertEquals(1 + 2 + 1, MultiDumpReader.fromFile(zipped().toString()).size());
+	}
+
+}
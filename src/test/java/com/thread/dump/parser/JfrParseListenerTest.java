@@ -0,0 +1,51 @@
+package com.thread.dump.parser;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.thread.dump.parser.domain.ThreadInfo;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public class JfrParseListenerTest {
+
+	@Test
+	public void everyParseShouldBeRecorded() throws Exception {
+		final ParseOptions options = ParseOptions.defaults().withListener(new JfrParseListener());
+		// Nothing is recorded without a recording.
+		ThreadDumpReader.fromFile("samples/tdump.sample", options);
+
+		final Path file = Files.createTempFile("parse", ".jfr");
+		try {
+			final List<ThreadInfo> threads;
+			try (final Recording recording = new Recording()) {
+				recording.enable("com.thread.dump.parser.Parse");
+				recording.start();
+				threads = ThreadDumpReader.fromFile("samples/tdump.sample", options);
+				recording.stop();
+				recording.dump(file);
+			}
+
+			final List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+			assertEquals(1, events.size());
+			final RecordedEvent event = events.get(0);
+			assertEquals(threads.size(), event.getLong("threads"));
+			assertTrue(event.getLong("lines") > threads.size());
+			assertTrue(event.getDuration("totalNanos").toNanos() > 0);
+			assertTrue(event.getDuration("stackNanos").toNanos() > 0);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.thread.dump.parser;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.thread.dump.parser.domain.ThreadDump;
+import com.thread.dump.parser.domain.ThreadInfo;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public class MultiDumpReaderTest {
+
+	private static String read(final String path) throws Exception {
+		return new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void dumpsOfTheSameFileShouldShareTheirFrames() throws Exception {
+		final List<ThreadDump> dumps = MultiDumpReader.fromFile("samples/11.0.8.0-amazon.txt");
+		final ThreadInfo first = dumps.get(0).getThreads().get(0);
+		final ThreadInfo second = dumps.get(1).getThreads().get(dumps.get(1).getThreads().indexOf(first));
+
+		assertEquals(first.getStackFrames(), second.getStackFrames());
+		for (int i = 0; i < first.getStackFrames().size(); i++) {
+			if (!first.getStackFrames().get(i).isLock()) {
+				assertSame(first.getStackFrames().get(i), second.getStackFrames().get(i));
+			}
+		}
+	}
+
+	@Test
+	public void shouldSplitConsecutiveDumps() throws Exception {
+		final List<ThreadDump> dumps = MultiDumpReader.fromFile("samples/11.0.8.0-amazon.txt");
+		assertEquals(2, dumps.size());
+
+		assertEquals(LocalDateTime.of(2020, 9, 3, 17, 19, 30), dumps.get(0).getTimestamp().get());
+		assertEquals(LocalDateTime.of(2020, 9, 3, 17, 20, 41), dumps.get(1).getTimestamp().get());
+		assertEquals("OpenJDK 64-Bit Server VM (11.0.8+10-LTS mixed mode)", dumps.get(0).getBanner());
+
+		final List<ThreadInfo> allThreads = ThreadDumpReader.fromFile("samples/11.0.8.0-amazon.txt");
+		assertEquals(allThreads.size(), dumps.get(0).getThreads().size() + dumps.get(1).getThreads().size());
+		assertEquals(allThreads.get(0), dumps.get(0).getThreads().get(0));
+		assertEquals(allThreads.get(allThreads.size() - 1), dumps.get(1).getThreads().get(dumps.get(1).getThreads().size() - 1));
+	}
+
+	@Test
+	public void shouldIgnoreLoggingBetweenDumps() throws Exception {
+		final String[] samples = {"samples/1.8-amazon.0.txt", "samples/15.0.txt", "samples/tdump.sample"};
+		final StringBuilder log = new StringBuilder("INFO  [main] Starting application\n");
+		for (final String sample : samples) {
+			log.append(read(sample));
+			log.append("\"GET /index.html\" 200 1234 tid=0x1 nid=0x2 something\n");
+			log.append("INFO  [http-nio-8080-exec-1] Request served\n");
+		}
+
+		final List<ThreadDump> dumps = MultiDumpReader.fromString(log.toString());
+		assertEquals(samples.length, dumps.size());
+		for (int i = 0; i < samples.length; i++) {
+			assertEquals(ThreadDumpReader.fromFile(samples[i]), dumps.get(i).getThreads());
+		}
+		assertEquals("Java HotSpot(TM) 64-Bit Server VM (20.141-b32 mixed mode)", dumps.get(2).getBanner());
+	}
+
+	@Test
+	public void dumpsShouldBeHandedOutOneAfterTheOther() throws Exception {
+		final List<ThreadDump> expected = MultiDumpReader.fromFile("samples/11.0.8.0-amazon.txt");
+		final List<ThreadDump> dumps = new ArrayList<>();
+		MultiDumpReader.forEach("samples/11.0.8.0-amazon.txt", dumps::add);
+
+		assertEquals(expected.size(), dumps.size());
+		for (int i = 0; i < dumps.size(); i++) {
+			assertEquals(expected.get(i).getTimestamp(), dumps.get(i).getTimestamp());
+			assertEquals(expected.get(i).getThreads(), dumps.get(i).getThreads());
+		}
+	}
+
+	@Test
+	public void shouldNotFindDumpsInRandomFile() throws Exception {
+		assertTrue(MultiDumpReader.fromFile(new File("samples/x.txt").getPath()).isEmpty());
+	}
+
+}
@@ -0,0 +1,72 @@
+package com.thread.dump.parser;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.thread.dump.parser.domain.StackCount;
+import com.thread.dump.parser.domain.ThreadInfo;
+import com.thread.dump.parser.util.StackSampler;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public class SamplingProfilerTest {
+
+	@Test
+	public void liveSamplesShouldHaveTheCurrentStack() {
+		final StackSampler sampler = new StackSampler(10, 10_000);
+		final SamplingProfiler profiler = SamplingProfiler.live(sampler);
+		for (int i = 0; i < 20; i++) {
+			profiler.sample();
+		}
+		assertEquals(20, sampler.sampleCount());
+		assertTrue(sampler.topStacks(Integer.MAX_VALUE).stream().map(StackCount::getStackFrames).anyMatch(frames -> frames.stream()
+				.anyMatch(frame -> "liveSamplesShouldHaveTheCurrentStack".equals(frame.getMethodName()))));
+		// The recent samples, 10 of the 20.
+		final long recent = sampler.topRecentStacks(Integer.MAX_VALUE).stream().mapToLong(StackCount::getCount).sum();
+		final long all = sampler.topStacks(Integer.MAX_VALUE).stream().mapToLong(StackCount::getCount).sum();
+		assertTrue(recent > 0 && recent < all);
+	}
+
+	@Test
+	public void samplesShouldBeTakenInTheBackground() throws Exception {
+		try (final SamplingProfiler profiler = SamplingProfiler.live(new StackSampler(10, 10_000)).start(5, TimeUnit.MILLISECONDS)) {
+			final StackSampler sampler = profiler.getSampler();
+			final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			while (sampler.sampleCount() < 5) {
+				assertTrue(System.nanoTime() < deadline);
+				Thread.sleep(5);
+			}
+			assertTrue(sampler.topStacks(1).get(0).getCount() > 0);
+		}
+	}
+
+	@Test
+	public void samplingShouldGoOnAfterAFailedSample() throws Exception {
+		final AtomicInteger calls = new AtomicInteger();
+		final List<Exception> errors = new CopyOnWriteArrayList<>();
+		final SamplingProfiler profiler = new SamplingProfiler(() -> {
+			if (calls.getAndIncrement() == 0) {
+				throw new IllegalStateException("First sample");
+			}
+			return Collections.<ThreadInfo>emptyList();
+		}, new StackSampler(10, 10_000)).withErrorHandler(errors::add);
+		try (final SamplingProfiler started = profiler.start(5, TimeUnit.MILLISECONDS)) {
+			final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			while (started.getSampler().sampleCount() < 3) {
+				assertTrue(System.nanoTime() < deadline);
+				Thread.sleep(5);
+			}
+		}
+		assertEquals(1, errors.size());
+		assertEquals("First sample", errors.get(0).getMessage());
+	}
+
+}
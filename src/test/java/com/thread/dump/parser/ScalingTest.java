@@ -0,0 +1,150 @@
+package com.thread.dump.parser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.thread.dump.parser.domain.ThreadInfo;
+import com.thread.dump.parser.util.LockIndex;
+import com.thread.dump.parser.util.MethodCounts;
+import com.thread.dump.parser.util.ThreadParsing;
+import com.thread.dump.parser.util.WaitForGraph;
+
+import static org.junit.Assert.*;
+
+/**
+ * Parses and analyzes generated dumps of growing sizes, failing if the time or the memory grows faster than linearly.
+ * Those measures are {@link ScalingTests}, only run with -Pscaling.
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public class ScalingTest {
+
+	private static final int[] SIZES = {1_000, 10_000, 100_000};
+
+	// Linear growth is a ratio of 10 between sizes, quadratic is 100. The slack absorbs GC and JIT noise.
+	private static final double MAX_GROWTH = 10 * 3;
+
+	private static Path directory;
+
+	@BeforeClass
+	public static void createDirectory() throws IOException {
+		directory = Files.createTempDirectory("synthetic-dumps");
+	}
+
+	@AfterClass
+	public static void deleteDirectory() throws IOException {
+		for (final int threads : SIZES) {
+			Files.deleteIfExists(directory.resolve(threads + ".txt"));
+		}
+		Files.deleteIfExists(directory);
+	}
+
+	private static Path dump(final int threads) throws IOException {
+		final Path path = directory.resolve(threads + ".txt");
+		if (!Files.exists(path)) {
+			new SyntheticThreadDump().withThreads(threads).withContention(SyntheticThreadDump.Contention.ONE_MONITOR).writeTo(path);
+		}
+		return path;
+	}
+
+	/**
+	 * Everything a client does with a big dump: parsing, locks, deadlocks, identical stacks and top methods.
+	 */
+	private static Object[] parseAndAnalyze(final Path path) throws IOException {
+		final LockIndex locks = new LockIndex();
+		final List<ThreadInfo> threads = ThreadDumpReader.fromFile(path.toString(), ParseOptions.defaults().withLockIndex(locks));
+		return new Object[] {
+			threads,
+			locks,
+			WaitForGraph.of(locks),
+			ThreadParsing.groupByIdenticalStack(threads),
+			MethodCounts.of(threads).topMethods(10)
+		};
+	}
+
+	private static long bestTime(final Path path, final int runs) throws IOException {
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < runs; i++) {
+			final long start = System.nanoTime();
+			assertNotNull(parseAndAnalyze(path));
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best;
+	}
+
+	private static long usedMemory() {
+		final Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static long retainedMemory(final Path path) throws IOException {
+		final long before = usedMemory();
+		final Object[] retained = parseAndAnalyze(path);
+		final long after = usedMemory();
+		assertNotNull(retained);
+		return Math.max(1, after - before);
+	}
+
+	@Test
+	public void generatedDumpsShouldBeParsedAsGenerated() throws IOException {
+		for (final SyntheticThreadDump.HeaderStyle style : SyntheticThreadDump.HeaderStyle.values()) {
+			for (final SyntheticThreadDump.Contention contention : SyntheticThreadDump.Contention.values()) {
+				final SyntheticThreadDump generator = new SyntheticThreadDump().withThreads(1_000).withHeaderStyle(style).withContention(contention);
+				final String message = style + " " + contention;
+
+				final String content = generator.asString();
+				assertEquals(message, content, generator.asString());
+
+				final List<ThreadInfo> threads = ThreadDumpReader.fromString(content);
+				assertEquals(message, 1_000, threads.size());
+				assertTrue(message, threads.stream().allMatch(th -> th.getId() != null && th.getNativeId() != null && th.getState() != null));
+
+				final WaitForGraph graph = WaitForGraph.of(threads);
+				assertEquals(message, generator.deadlockedThreads(), graph.deadlocks().stream().mapToInt(List::size).sum());
+				if (contention == SyntheticThreadDump.Contention.ONE_MONITOR) {
+					assertEquals(message, generator.blockedOnOneMonitor(), graph.blockedCount(threads.get(0)));
+				}
+			}
+		}
+	}
+
+	@Test
+	@Category(ScalingTests.class)
+	public void timeShouldGrowLinearly() throws IOException {
+		// Warm up
+		bestTime(dump(SIZES[0]), 5);
+
+		long previous = 0;
+		for (final int threads : SIZES) {
+			// The biggest dump takes long enough for a single run to be stable.
+			final long time = bestTime(dump(threads), threads == SIZES[SIZES.length - 1] ? 1 : 3);
+			if (previous > 0) {
+				final double growth = (double) time / previous;
+				assertTrue(String.format("%d threads took %.1f times longer than a tenth of them", threads, growth), growth < MAX_GROWTH);
+			}
+			previous = time;
+		}
+	}
+
+	@Test
+	@Category(ScalingTests.class)
+	public void memoryShouldGrowLinearly() throws IOException {
+		// 1k threads are too few for a meaningful heap measure, the pools and tables of a single dump dominate.
+		final long small = retainedMemory(dump(SIZES[1]));
+		final long big = retainedMemory(dump(SIZES[2]));
+
+		final double growth = (double) big / small;
+		assertTrue(String.format("%d threads retained %.1f times the memory of a tenth of them", SIZES[2], growth), growth < MAX_GROWTH);
+	}
+
+}
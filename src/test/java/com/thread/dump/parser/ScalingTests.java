@@ -0,0 +1,10 @@
+package com.thread.dump.parser;
+
+/**
+ * JUnit category of the tests measuring time and memory, left out of the default build as they depend on the load of
+ * the machine. Run them with {@code mvn test -Pscaling}.
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public interface ScalingTests {
+}
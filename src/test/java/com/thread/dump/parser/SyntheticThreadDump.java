@@ -0,0 +1,254 @@
+package com.thread.dump.parser;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Deterministic generator of jstack-like thread dumps, as big as needed.
+ *
+ * <p>The same settings always produce the same dump. Besides idle pool workers, the dump can have lock contention:
+ * many threads blocked on the same monitor, or pairs of threads in a deadlock.</p>
+ *
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+final class SyntheticThreadDump {
+
+	enum HeaderStyle {
+		/** "name" #12 daemon prio=5 os_prio=0 tid=0x00007f3990fb3000 nid=0x1a2b ... */
+		JDK_8,
+		/** Adds cpu= and elapsed= */
+		JDK_11,
+		/** Adds the decimal nid between brackets after the number, nid= is decimal too. Some workers carry virtual threads. */
+		JDK_21
+	}
+
+	enum Contention {
+		NONE,
+		/** Thread 0 holds a monitor every odd thread is blocked on. */
+		ONE_MONITOR,
+		/** Every tenth thread and the one after it are deadlocked on two monitors. */
+		DEADLOCKS
+	}
+
+	private static final String[] PACKAGES = {"com.example.orders", "com.example.billing", "com.example.inventory", "com.example.web"};
+	private static final String[] CLASSES = {"Service", "Repository", "Controller", "Client", "Handler", "Mapper"};
+	private static final String[] METHODS = {"handle", "process", "find", "save", "call", "map", "validate"};
+	private static final long MONITOR_BASE = 0x000000076ab00000L;
+
+	// Distinct application call paths, threads share them like the workers of real pools do.
+	private static final int CALL_PATHS = 64;
+
+	private int threads = 1000;
+	private int stackDepth = 10;
+	private Contention contention = Contention.NONE;
+	private HeaderStyle headerStyle = HeaderStyle.JDK_11;
+	private long seed = 42;
+
+	SyntheticThreadDump withThreads(final int threads) {
+		this.threads = threads;
+		return this;
+	}
+
+	/**
+	 * @param stackDepth the application frames of every thread, the JDK frames come on top of those.
+	 * Threads run through one of a few dozens of application call paths.
+	 */
+	SyntheticThreadDump withStackDepth(final int stackDepth) {
+		this.stackDepth = stackDepth;
+		return this;
+	}
+
+	SyntheticThreadDump withContention(final Contention contention) {
+		this.contention = contention;
+		return this;
+	}
+
+	SyntheticThreadDump withHeaderStyle(final HeaderStyle headerStyle) {
+		this.headerStyle = headerStyle;
+		return this;
+	}
+
+	SyntheticThreadDump withSeed(final long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+	/**
+	 * @return the number of threads in a deadlock.
+	 */
+	int deadlockedThreads() {
+		return contention == Contention.DEADLOCKS ? 2 * ((threads + 8) / 10) : 0;
+	}
+
+	/**
+	 * @return the number of threads blocked on the monitor of thread 0.
+	 */
+	int blockedOnOneMonitor() {
+		return contention == Contention.ONE_MONITOR ? threads / 2 : 0;
+	}
+
+	String asString() throws IOException {
+		final StringWriter writer = new StringWriter();
+		writeTo(writer);
+		return writer.toString();
+	}
+
+	Path writeTo(final Path path) throws IOException {
+		try (final Writer writer = new BufferedWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8), 1 << 16)) {
+			writeTo(writer);
+		}
+		return path;
+	}
+
+	void writeTo(final Writer out) throws IOException {
+		final Random random = new Random(seed);
+		final String[] callPaths = new String[CALL_PATHS];
+		for (int i = 0; i < callPaths.length; i++) {
+			callPaths[i] = applicationFrames(random, stackDepth);
+		}
+
+		out.write("2020-09-03 17:19:30\n");
+		out.write("Full thread dump OpenJDK 64-Bit Server VM (" + vmVersion() + " mixed mode):\n\n");
+
+		for (int i = 0; i < threads; i++) {
+			writeThread(out, i, random, callPaths[random.nextInt(callPaths.length)]);
+		}
+		out.write("JNI global refs: 29, weak refs: 0\n\n");
+	}
+
+	private String vmVersion() {
+		switch (headerStyle) {
+			case JDK_8:
+				return "25.262-b10";
+			case JDK_11:
+				return "11.0.8+10-LTS";
+			default:
+				return "21.0.2+13-LTS";
+		}
+	}
+
+	private void writeThread(final Writer out, final int i, final Random random, final String callPath) throws IOException {
+		final Role role = roleOf(i);
+		out.write(header(i, role, random));
+		out.write("   java.lang.Thread.State: ");
+		out.write(role.state);
+		out.write('\n');
+		if (headerStyle == HeaderStyle.JDK_21 && role == Role.IDLE && i % 3 == 0) {
+			out.write("   Carrying virtual thread #" + (threads + i) + "\n");
+		}
+
+		switch (role) {
+			case OWNER:
+				out.write("\tat java.net.SocketInputStream.socketRead0(" + module() + "Native Method)\n");
+				out.write("\t- locked <" + monitor(0) + "> (a com.example.pool.ConnectionPool)\n");
+				out.write(callPath);
+				break;
+			case BLOCKED:
+				out.write("\tat com.example.pool.ConnectionPool.borrow(ConnectionPool.java:120)\n");
+				out.write("\t- waiting to lock <" + monitor(0) + "> (a com.example.pool.ConnectionPool)\n");
+				out.write(callPath);
+				break;
+			case DEADLOCKED_FIRST:
+			case DEADLOCKED_SECOND:
+				final int first = role == Role.DEADLOCKED_FIRST ? i : i - 1;
+				final long held = role == Role.DEADLOCKED_FIRST ? first + 1 : first + 2;
+				final long wanted = role == Role.DEADLOCKED_FIRST ? first + 2 : first + 1;
+				out.write("\tat com.example.transfer.Account.transfer(Account.java:57)\n");
+				out.write("\t- waiting to lock <" + monitor(wanted) + "> (a com.example.transfer.Account)\n");
+				out.write("\t- locked <" + monitor(held) + "> (a com.example.transfer.Account)\n");
+				out.write(callPath);
+				break;
+			default:
+				out.write("\tat jdk.internal.misc.Unsafe.park(" + module() + "Native Method)\n");
+				out.write("\t- parking to wait for  <" + monitor(threads + 2L + i) + "> (a java.util.concurrent.locks.AbstractQueuedSynchronizer$ConditionObject)\n");
+				out.write("\tat java.util.concurrent.locks.LockSupport.park(" + module() + "LockSupport.java:194)\n");
+				out.write("\tat java.util.concurrent.LinkedBlockingQueue.take(" + module() + "LinkedBlockingQueue.java:433)\n");
+				out.write(callPath);
+		}
+		out.write("\tat java.lang.Thread.run(" + module() + "Thread.java:834)\n\n");
+		out.write("   Locked ownable synchronizers:\n\t- None\n\n");
+	}
+
+	private enum Role {
+		IDLE("WAITING (parking)"),
+		OWNER("RUNNABLE"),
+		BLOCKED("BLOCKED (on object monitor)"),
+		DEADLOCKED_FIRST("BLOCKED (on object monitor)"),
+		DEADLOCKED_SECOND("BLOCKED (on object monitor)");
+
+		private final String state;
+
+		Role(final String state) {
+			this.state = state;
+		}
+	}
+
+	private Role roleOf(final int i) {
+		switch (contention) {
+			case ONE_MONITOR:
+				if (i == 0) {
+					return Role.OWNER;
+				}
+				return i % 2 == 1 ? Role.BLOCKED : Role.IDLE;
+			case DEADLOCKS:
+				if (i % 10 == 0 && i + 1 < threads) {
+					return Role.DEADLOCKED_FIRST;
+				}
+				return i % 10 == 1 ? Role.DEADLOCKED_SECOND : Role.IDLE;
+			default:
+				return Role.IDLE;
+		}
+	}
+
+	private String header(final int i, final Role role, final Random random) {
+		final String name = role == Role.IDLE ? "pool-1-thread-" + i : "worker-" + i;
+		final String status = role == Role.IDLE ? "waiting on condition" : role == Role.OWNER ? "runnable" : "waiting for monitor entry";
+		final long tid = 0x00007f3990000000L + i * 0x800L;
+		final int nid = 10_000 + i;
+		final boolean daemon = i % 4 == 0;
+
+		final StringBuilder sb = new StringBuilder(200);
+		sb.append('"').append(name).append("\" #").append(i + 20);
+		if (daemon) {
+			sb.append(" daemon");
+		}
+		if (headerStyle == HeaderStyle.JDK_21) {
+			sb.append(" [").append(nid).append(']');
+		}
+		sb.append(" prio=5 os_prio=0");
+		if (headerStyle != HeaderStyle.JDK_8) {
+			sb.append(" cpu=").append(random.nextInt(100_000) / 100.0).append("ms elapsed=").append(random.nextInt(100_000) / 100.0).append('s');
+		}
+		sb.append(" tid=0x").append(String.format("%016x", tid));
+		sb.append(" nid=").append(headerStyle == HeaderStyle.JDK_21 ? Integer.toString(nid) : "0x" + Integer.toHexString(nid));
+		sb.append(' ').append(status).append("  [0x").append(String.format("%016x", tid + 0x100000L)).append("]\n");
+		return sb.toString();
+	}
+
+	private static String applicationFrames(final Random random, final int count) {
+		final StringBuilder out = new StringBuilder();
+		for (int f = 0; f < count; f++) {
+			final String pkg = PACKAGES[random.nextInt(PACKAGES.length)];
+			final String cls = CLASSES[random.nextInt(CLASSES.length)] + random.nextInt(20);
+			final String method = METHODS[random.nextInt(METHODS.length)];
+			out.append("\tat ").append(pkg).append('.').append(cls).append('.').append(method)
+					.append('(').append(cls).append(".java:").append(10 + random.nextInt(400)).append(")\n");
+		}
+		return out.toString();
+	}
+
+	private String module() {
+		return headerStyle == HeaderStyle.JDK_8 ? "" : "java.base@" + (headerStyle == HeaderStyle.JDK_11 ? "11.0.8" : "21.0.2") + "/";
+	}
+
+	private static String monitor(final long number) {
+		return String.format("0x%016x", MONITOR_BASE + number * 16);
+	}
+
+}
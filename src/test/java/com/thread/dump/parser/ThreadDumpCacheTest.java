@@ -0,0 +1,200 @@
+package com.thread.dump.parser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.thread.dump.parser.domain.ThreadInfo;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public class ThreadDumpCacheTest {
+
+	private Path directory;
+	private final AtomicInteger parses = new AtomicInteger();
+
+	@Before
+	public void createDirectory() throws IOException {
+		directory = Files.createTempDirectory("cached-dumps");
+	}
+
+	@After
+	public void deleteDirectory() throws IOException {
+		try (final Stream<Path> files = Files.list(directory)) {
+			for (final Path file : (Iterable<Path>) files::iterator) {
+				Files.delete(file);
+			}
+		}
+		Files.delete(directory);
+	}
+
+	private Path dump(final String name, final int threads) throws IOException {
+		return new SyntheticThreadDump().withThreads(threads).writeTo(directory.resolve(name));
+	}
+
+	private ThreadDumpCache cache(final int maximumEntries, final long maximumThreads) {
+		return new ThreadDumpCache(maximumEntries, maximumThreads, path -> {
+			parses.incrementAndGet();
+			return ThreadDumpReader.fromFile(path.toString());
+		});
+	}
+
+	@Test
+	public void sameFileShouldBeParsedOnce() throws IOException {
+		final ThreadDumpCache cache = cache(10, 10_000);
+		final Path path = dump("a.txt", 100);
+
+		final List<ThreadInfo> first = cache.fromFile(path);
+		assertEquals(ThreadDumpReader.fromFile(path.toString()), first);
+		assertSame(first, cache.fromFile(path.toString()));
+		assertSame(first, cache.fromFile(directory.resolve("..").resolve(directory.getFileName()).resolve("a.txt")));
+
+		assertEquals(1, parses.get());
+		assertEquals(1, cache.missCount());
+		assertEquals(2, cache.hitCount());
+		assertEquals(1, cache.size());
+		assertEquals(100, cache.threadCount());
+	}
+
+	@Test
+	public void changedFileShouldBeParsedAgain() throws IOException {
+		final ThreadDumpCache cache = cache(10, 10_000);
+		final Path path = dump("a.txt", 100);
+		assertEquals(100, cache.fromFile(path).size());
+
+		dump("a.txt", 50);
+		Files.setLastModifiedTime(path, FileTime.fromMillis(Files.getLastModifiedTime(path).toMillis() + 1000));
+		assertEquals(50, cache.fromFile(path).size());
+		assertEquals(2, parses.get());
+		assertEquals(1, cache.size());
+		assertEquals(50, cache.threadCount());
+
+		cache.invalidate(path);
+		assertEquals(50, cache.fromFile(path).size());
+		assertEquals(3, parses.get());
+		assertEquals(0, cache.evictionCount());
+	}
+
+	@Test
+	public void leastRecentlyUsedFilesShouldBeEvicted() throws IOException {
+		final ThreadDumpCache cache = cache(2, 10_000);
+		final Path a = dump("a.txt", 10);
+		final Path b = dump("b.txt", 10);
+		final Path c = dump("c.txt", 10);
+
+		cache.fromFile(a);
+		cache.fromFile(b);
+		cache.fromFile(a);
+		cache.fromFile(c);
+		assertEquals(1, cache.evictionCount());
+		assertEquals(2, cache.size());
+
+		// b was evicted, a was used after it.
+		cache.fromFile(a);
+		assertEquals(3, parses.get());
+		cache.fromFile(b);
+		assertEquals(4, parses.get());
+	}
+
+	@Test
+	public void filesShouldBeEvictedToStayWithinTheThreadsBudget() throws IOException {
+		final ThreadDumpCache cache = cache(100, 250);
+		cache.fromFile(dump("a.txt", 100));
+		cache.fromFile(dump("b.txt", 100));
+		assertEquals(0, cache.evictionCount());
+
+		cache.fromFile(dump("c.txt", 100));
+		assertEquals(1, cache.evictionCount());
+		assertEquals(200, cache.threadCount());
+
+		// Too big on its own, it's kept alone.
+		assertEquals(1000, cache.fromFile(dump("d.txt", 1000)).size());
+		assertEquals(1, cache.size());
+		assertEquals(1000, cache.threadCount());
+	}
+
+	@Test
+	public void concurrentCallersShouldShareOneParse() throws Exception {
+		final Path path = dump("a.txt", 1000);
+		final CountDownLatch parsing = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final ThreadDumpCache cache = new ThreadDumpCache(10, 10_000, p -> {
+			parses.incrementAndGet();
+			parsing.countDown();
+			try {
+				assertTrue(release.await(10, TimeUnit.SECONDS));
+			} catch (final InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			return ThreadDumpReader.fromFile(p.toString());
+		});
+
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			final List<Future<List<ThreadInfo>>> results = new ArrayList<>();
+			results.add(executor.submit(() -> cache.fromFile(path)));
+			assertTrue(parsing.await(10, TimeUnit.SECONDS));
+			for (int i = 0; i < 7; i++) {
+				results.add(executor.submit(() -> cache.fromFile(path)));
+			}
+			while (cache.hitCount() < 7) {
+				Thread.sleep(1);
+			}
+			release.countDown();
+
+			for (final Future<List<ThreadInfo>> result : results) {
+				assertSame(results.get(0).get(), result.get());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(1, parses.get());
+		assertEquals(1, cache.missCount());
+		assertEquals(7, cache.hitCount());
+	}
+
+	@Test
+	public void failuresShouldNotBeCached() throws IOException {
+		final ThreadDumpCache cache = new ThreadDumpCache(10, 10_000, path -> {
+			if (parses.incrementAndGet() == 1) {
+				throw new IOException("Disk error");
+			}
+			return ThreadDumpReader.fromFile(path.toString());
+		});
+		final Path path = dump("a.txt", 10);
+		try {
+			cache.fromFile(path);
+			fail("The parse failed");
+		} catch (final IOException expected) {
+			assertEquals("Disk error", expected.getMessage());
+		}
+		assertEquals(0, cache.size());
+		assertEquals(10, cache.fromFile(path).size());
+
+		try {
+			cache.fromFile(Paths.get(directory.toString(), "missing.txt"));
+			fail("No such file");
+		} catch (final IOException expected) {
+			// Missing
+		}
+	}
+
+}
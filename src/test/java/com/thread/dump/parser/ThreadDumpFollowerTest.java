@@ -0,0 +1,172 @@
+package com.thread.dump.parser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.thread.dump.parser.domain.StackFrame;
+import com.thread.dump.parser.domain.ThreadDump;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public class ThreadDumpFollowerTest {
+
+	private Path log;
+	private final List<ThreadDump> dumps = new ArrayList<>();
+
+	@Before
+	public void createLog() throws IOException {
+		log = Files.createTempFile("stdout", ".log");
+	}
+
+	@After
+	public void deleteLog() throws IOException {
+		Files.deleteIfExists(log);
+		Files.deleteIfExists(log.resolveSibling(log.getFileName() + ".1"));
+	}
+
+	private static String dump(final int threads) throws IOException {
+		return new SyntheticThreadDump().withThreads(threads).asString();
+	}
+
+	private void append(final String content) throws IOException {
+		Files.write(log, content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+	}
+
+	@Test
+	public void appendedDumpsShouldBeParsedOnceFinished() throws IOException {
+		append("application started\n");
+		final ThreadDumpFollower follower = new ThreadDumpFollower(log, dumps::add).fromBeginning();
+		assertEquals(0, follower.poll());
+
+		// Written in pieces, cut in the middle of a line.
+		final String first = dump(10);
+		final int middle = first.length() / 2 + 3;
+		append(first.substring(0, middle));
+		assertEquals(0, follower.poll());
+		append(first.substring(middle));
+		assertEquals(1, follower.poll());
+		assertEquals(ThreadDumpReader.fromString(first), dumps.get(0).getThreads());
+		assertEquals("OpenJDK 64-Bit Server VM (11.0.8+10-LTS mixed mode)", dumps.get(0).getBanner());
+
+		append("GET /orders 200\n" + dump(20).replace("\n", "\r\n") + dump(30));
+		assertEquals(2, follower.poll());
+		assertEquals(20, dumps.get(1).getThreads().size());
+		assertEquals(30, dumps.get(2).getThreads().size());
+		assertEquals(0, follower.poll());
+	}
+
+	@Test
+	public void dumpsAlreadyInTheFileShouldBeSkippedByDefault() throws IOException {
+		append(dump(10));
+		final ThreadDumpFollower follower = new ThreadDumpFollower(log, dumps::add);
+		assertEquals(0, follower.poll());
+		append(dump(5));
+		assertEquals(1, follower.poll());
+		assertEquals(5, dumps.get(0).getThreads().size());
+	}
+
+	@Test
+	public void truncatedFileShouldBeReadFromItsBeginning() throws IOException {
+		append(dump(50));
+		final ThreadDumpFollower follower = new ThreadDumpFollower(log, dumps::add).fromBeginning();
+		assertEquals(1, follower.poll());
+		append(dump(50).substring(0, 500));
+
+		Files.write(log, dump(5).getBytes(StandardCharsets.UTF_8));
+		assertEquals(1, follower.poll());
+		assertEquals(5, dumps.get(1).getThreads().size());
+	}
+
+	@Test
+	public void rotatedFileShouldBeReadFromItsBeginning() throws IOException {
+		final ThreadDumpFollower follower = new ThreadDumpFollower(log, dumps::add).fromBeginning();
+		append(dump(10));
+		assertEquals(1, follower.poll());
+		append(dump(10).substring(0, 500));
+
+		Files.move(log, log.resolveSibling(log.getFileName() + ".1"));
+		assertEquals(0, follower.poll());
+		// Bigger than what was read of the old file.
+		Files.write(log, dump(100).getBytes(StandardCharsets.UTF_8));
+		if (Files.readAttributes(log, BasicFileAttributes.class).fileKey() != null) {
+			assertEquals(1, follower.poll());
+			assertEquals(100, dumps.get(1).getThreads().size());
+		}
+	}
+
+	@Test
+	public void dumpsShouldBeFollowedInTheBackground() throws Exception {
+		final CountDownLatch parsed = new CountDownLatch(2);
+		try (final ThreadDumpFollower follower = new ThreadDumpFollower(log, dump -> parsed.countDown())) {
+			follower.start(10, TimeUnit.MILLISECONDS);
+			try {
+				follower.start(10, TimeUnit.MILLISECONDS);
+				fail("Already started");
+			} catch (final IllegalStateException expected) {
+				// Once
+			}
+			Thread.sleep(50);
+			append(dump(10));
+			append(dump(10));
+			assertTrue(parsed.await(10, TimeUnit.SECONDS));
+		}
+	}
+
+	@Test
+	public void framePoolShouldBeBounded() throws IOException {
+		append(dump(10) + dump(10));
+		new ThreadDumpFollower(log, dumps::add).fromBeginning().poll();
+		new ThreadDumpFollower(log, dumps::add).fromBeginning().withMaximumPooledFrames(1).poll();
+		assertEquals(4, dumps.size());
+
+		// Shared by the dumps, unless there are too many.
+		final StackFrame frame = dumps.get(0).getThreads().get(0).getStackFrames().get(0);
+		assertSame(frame, dumps.get(1).getThreads().get(0).getStackFrames().get(0));
+		final StackFrame bounded = dumps.get(2).getThreads().get(0).getStackFrames().get(0);
+		assertEquals(frame.getLine(), bounded.getLine());
+		assertNotSame(bounded, dumps.get(3).getThreads().get(0).getStackFrames().get(0));
+	}
+
+	@Test
+	public void failingConsumerShouldNotStopTheFollower() throws Exception {
+		final CountDownLatch parsed = new CountDownLatch(2);
+		final List<Exception> errors = new CopyOnWriteArrayList<>();
+		final AtomicBoolean failed = new AtomicBoolean();
+		final Consumer<ThreadDump> consumer = dump -> {
+			if (failed.compareAndSet(false, true)) {
+				throw new IllegalStateException("Once");
+			}
+			parsed.countDown();
+		};
+		try (final ThreadDumpFollower follower = new ThreadDumpFollower(log, consumer).withErrorHandler(errors::add)) {
+			follower.start(10, TimeUnit.MILLISECONDS);
+			Thread.sleep(50);
+			append(dump(10));
+			Thread.sleep(50);
+			append(dump(10));
+			append(dump(10));
+			assertTrue(parsed.await(10, TimeUnit.SECONDS));
+		}
+		assertEquals(1, errors.size());
+		assertEquals("Once", errors.get(0).getMessage());
+	}
+
+}
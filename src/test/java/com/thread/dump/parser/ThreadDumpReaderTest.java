@@ -0,0 +1,291 @@
+package com.thread.dump.parser;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import com.thread.dump.parser.domain.StackFrame;
+import com.thread.dump.parser.domain.ThreadInfo;
+import com.thread.dump.parser.util.LockIndex;
+import com.thread.dump.parser.util.StackFramePool;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public class ThreadDumpReaderTest {
+
+	private static File[] samples() {
+		final File[] samples = new File("samples").listFiles();
+		assertNotNull(samples);
+		Arrays.sort(samples);
+		return samples;
+	}
+
+	private static void assertSameThreads(final List<ThreadInfo> expected, final List<ThreadInfo> got) {
+		assertEquals(expected.size(), got.size());
+		for (int i = 0; i < expected.size(); i++) {
+			final ThreadInfo expectedThread = expected.get(i);
+			final ThreadInfo gotThread = got.get(i);
+			assertEquals(expectedThread, gotThread);
+			assertEquals(expectedThread.getState(), gotThread.getState());
+			assertEquals(expectedThread.isDaemon(), gotThread.isDaemon());
+			assertEquals(expectedThread.getStackTrace(), gotThread.getStackTrace());
+		}
+	}
+
+	@Test
+	public void streamShouldMatchFromFileOnAllSamples() throws Exception {
+		for (final File sample : samples()) {
+			final Path path = sample.toPath();
+			final List<ThreadInfo> expected = ThreadDumpReader.fromFile(sample.getPath());
+			try (final Stream<ThreadInfo> threads = ThreadDumpReader.stream(path)) {
+				assertSameThreads(expected, threads.collect(Collectors.toList()));
+			}
+		}
+	}
+
+	@Test
+	public void streamShouldBeLazy() throws Exception {
+		try (final Stream<ThreadInfo> threads = ThreadDumpReader.stream(new File("samples/tdump.sample").toPath())) {
+			final List<String> names = threads.limit(2).map(ThreadInfo::getName).collect(Collectors.toList());
+			assertEquals(Arrays.asList("Attach Listener", "RMI TCP Connection(idle)"), names);
+		}
+	}
+
+	@Test
+	public void mappedFileShouldMatchFromFileOnAllSamples() throws Exception {
+		for (final File sample : samples()) {
+			final List<ThreadInfo> expected = ThreadDumpReader.fromFile(sample.getPath());
+			assertSameThreads(expected, ThreadDumpReader.fromMappedFile(sample.toPath()));
+		}
+	}
+
+	@Test
+	public void mappedFileShouldHandleLinesAcrossWindows() throws Exception {
+		final File sample = new File("samples/tdump.sample");
+		final List<ThreadInfo> expected = ThreadDumpReader.fromFile(sample.getPath());
+		try (final FileChannel channel = FileChannel.open(sample.toPath(), StandardOpenOption.READ)) {
+			final List<ThreadInfo> got = new ArrayList<>();
+			new ThreadDumpIterator(new MappedLineSource(channel, 4096), ParseOptions.defaults()).forEachRemaining(got::add);
+			assertSameThreads(expected, got);
+		}
+	}
+
+	@Test
+	public void parallelParsingShouldMatchFromFileOnAllSamples() throws Exception {
+		for (final File sample : samples()) {
+			final List<ThreadInfo> expected = ThreadDumpReader.fromFile(sample.getPath());
+			assertSameThreads(expected, ThreadDumpReader.fromFileInParallel(sample.getPath()));
+
+			// Tiny chunks, so every thread boundary gets a chance to be a chunk boundary.
+			final List<String> lines = Files.readAllLines(sample.toPath(), Charset.defaultCharset());
+			assertSameThreads(expected, ThreadDumpReader.parseInParallel(lines, 1, ParseOptions.defaults()));
+		}
+	}
+
+	@Test
+	public void framePoolShouldBeSharedAcrossParses() throws Exception {
+		final StackFramePool pool = new StackFramePool();
+		final ParseOptions options = ParseOptions.defaults().withFramePool(pool);
+
+		final List<ThreadInfo> first = ThreadDumpReader.fromFile("samples/tdump.sample", options);
+		final int frames = pool.size();
+		final List<ThreadInfo> second = ThreadDumpReader.fromMappedFile(new File("samples/tdump.sample").toPath(), options);
+
+		assertSameThreads(first, second);
+		assertEquals(frames, pool.size());
+		for (int i = 0; i < first.size(); i++) {
+			final List<StackFrame> expected = first.get(i).getStackFrames();
+			final List<StackFrame> got = second.get(i).getStackFrames();
+			for (int j = 0; j < expected.size(); j++) {
+				if (!expected.get(j).isLock()) {
+					assertSame(expected.get(j), got.get(j));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void framePoolShouldNotGrowWithUniqueLines() throws Exception {
+		final String carrier = "\"ForkJoinPool-1-worker-1\" #31 daemon prio=5 os_prio=0 cpu=1.00ms elapsed=10.00s tid=0x00007f3990001000 nid=0x1f waiting on condition  [0x00007f3990000000]\n"
+				+ "   java.lang.Thread.State: WAITING (parking)\n"
+				+ "\tat jdk.internal.misc.Unsafe.park(java.base@21/Native Method)\n"
+				+ "\t- parking to wait for  <0x%016x> (a java.util.concurrent.ForkJoinPool)\n"
+				+ "\tat java.util.concurrent.ForkJoinPool.runWorker(java.base@21/ForkJoinPool.java:1891)\n"
+				+ "\t- Carrying virtual thread #%d\n\n";
+		final StackFramePool pool = new StackFramePool();
+		final ParseOptions options = ParseOptions.defaults().withFramePool(pool);
+		ThreadDumpReader.fromString(String.format(carrier, 0x700000000L, 36), options);
+		final int size = pool.size();
+		for (int i = 1; i <= 10; i++) {
+			final List<ThreadInfo> threads = ThreadDumpReader.fromString(String.format(carrier, 0x700000000L + i, 36 + i), options);
+			assertEquals("- Carrying virtual thread #" + (36 + i), threads.get(0).getStackFrames().get(3).getLine());
+		}
+		assertEquals(size, pool.size());
+	}
+
+	@Test
+	public void parallelParsingShouldIndexLocksInOrder() throws Exception {
+		for (final File sample : samples()) {
+			final LockIndex expected = new LockIndex();
+			ThreadDumpReader.fromFile(sample.getPath(), ParseOptions.defaults().withLockIndex(expected));
+
+			final LockIndex got = new LockIndex();
+			final List<String> lines = Files.readAllLines(sample.toPath(), Charset.defaultCharset());
+			ThreadDumpReader.parseInParallel(lines, 1, ParseOptions.defaults().withLockIndex(got));
+
+			assertEquals(expected.lockIds(), got.lockIds());
+			for (final String lockId : expected.lockIds()) {
+				assertEquals(expected.holders(lockId), got.holders(lockId));
+				assertEquals(expected.waiters(lockId), got.waiters(lockId));
+			}
+		}
+	}
+
+	@Test
+	public void filterShouldKeepOnlyTheAcceptedThreads() throws Exception {
+		final Predicate<ThreadInfo> filter = thread -> thread.isDaemon()
+				|| (thread.getState() != null && thread.getState().startsWith("BLOCKED"));
+		for (final File sample : samples()) {
+			final List<ThreadInfo> expected = ThreadDumpReader.fromFile(sample.getPath()).stream()
+					.filter(filter).collect(Collectors.toList());
+			assertSameThreads(expected, ThreadDumpReader.fromFile(sample.getPath(), ParseOptions.defaults().withFilter(filter)));
+			assertSameThreads(expected, ThreadDumpReader.fromMappedFile(sample.toPath(), ParseOptions.defaults().withFilter(filter)));
+
+			final List<String> lines = Files.readAllLines(sample.toPath(), Charset.defaultCharset());
+			assertSameThreads(expected, ThreadDumpReader.parseInParallel(lines, 1, ParseOptions.defaults().withFilter(filter)));
+		}
+	}
+
+	@Test
+	public void headersOnlyShouldSkipStackTraces() throws Exception {
+		for (final File sample : samples()) {
+			final List<ThreadInfo> expected = ThreadDumpReader.fromFile(sample.getPath());
+			final LockIndex locks = new LockIndex();
+			final List<ThreadInfo> got = ThreadDumpReader.fromMappedFile(sample.toPath(),
+					ParseOptions.defaults().withHeadersOnly().withLockIndex(locks));
+			assertEquals(expected.size(), got.size());
+			for (int i = 0; i < expected.size(); i++) {
+				assertEquals(expected.get(i), got.get(i));
+				assertEquals(expected.get(i).getState(), got.get(i).getState());
+				assertEquals(expected.get(i).isDaemon(), got.get(i).isDaemon());
+				assertTrue(got.get(i).getStackFrames().isEmpty());
+				assertTrue(got.get(i).getLockedSynchronizers().isEmpty());
+				assertEquals(StackFrame.EMPTY_STACK_SIGNATURE, got.get(i).getStackSignature());
+			}
+			assertTrue(locks.lockIds().isEmpty());
+		}
+
+		final List<ThreadInfo> blocked = ThreadDumpReader.fromFile("samples/tdump.sample",
+				ParseOptions.defaults().withHeadersOnly().withFilter(thread -> "BLOCKED".equals(thread.getState())));
+		assertFalse(blocked.isEmpty());
+		assertTrue(blocked.stream().allMatch(thread -> thread.getStackFrames().isEmpty()));
+	}
+
+	@Test
+	public void lazyStackTracesShouldMatchFromFileOnAllSamples() throws Exception {
+		for (final File sample : samples()) {
+			final List<ThreadInfo> expected = ThreadDumpReader.fromFile(sample.getPath());
+			final List<ThreadInfo> got = ThreadDumpReader.fromMappedFileLazily(sample.toPath());
+			assertSameThreads(expected, got);
+			for (int i = 0; i < expected.size(); i++) {
+				assertEquals(expected.get(i).getStackSignature(), got.get(i).getStackSignature());
+				assertEquals(expected.get(i).getStackFrames().size(), got.get(i).getStackFrames().size());
+				assertEquals(expected.get(i).getLockedSynchronizers().size(), got.get(i).getLockedSynchronizers().size());
+			}
+		}
+
+		final List<ThreadInfo> threads = ThreadDumpReader.fromMappedFileLazily(new File("samples/tdump.sample").toPath(),
+				ParseOptions.defaults().withFilter(thread -> "BLOCKED".equals(thread.getState())));
+		assertFalse(threads.isEmpty());
+		final List<StackFrame> frames = threads.get(0).getStackFrames();
+		assertFalse(frames.isEmpty());
+		// Loaded once
+		assertSame(frames, threads.get(0).getStackFrames());
+	}
+
+	@Test
+	public void lazyStackTracesShouldHandleLinesAcrossWindows() throws Exception {
+		final File sample = new File("samples/tdump.sample");
+		final List<ThreadInfo> expected = ThreadDumpReader.fromFile(sample.getPath());
+		try (final FileChannel channel = FileChannel.open(sample.toPath(), StandardOpenOption.READ)) {
+			final List<ThreadInfo> got = new ArrayList<>();
+			new ThreadDumpIterator(new MappedLineSource(channel, 4096), ParseOptions.defaults(),
+					new MappedStackTraces(channel, new StackFramePool())).forEachRemaining(got::add);
+			assertSameThreads(expected, got);
+		}
+	}
+
+	@Test
+	public void listenerShouldBeToldHowEveryParseWent() throws Exception {
+		final File sample = new File("samples/tdump.sample");
+		final List<ParseMetrics> parses = new CopyOnWriteArrayList<>();
+		final LockIndex locks = new LockIndex();
+		final List<ThreadInfo> threads = ThreadDumpReader.fromMappedFile(sample.toPath(),
+				ParseOptions.defaults().withListener(parses::add).withLockIndex(locks));
+
+		assertEquals(1, parses.size());
+		final ParseMetrics metrics = parses.get(0);
+		assertEquals(threads.size(), metrics.getThreads());
+		assertEquals(Files.readAllLines(sample.toPath(), Charset.defaultCharset()).size(), metrics.getLines());
+		assertEquals(Long.valueOf(sample.length()), metrics.getInputLength().get());
+		assertTrue(metrics.getHeaderNanos() > 0 && metrics.getStackNanos() > 0 && metrics.getLockNanos() > 0);
+		assertTrue(metrics.getTotalNanos() >= metrics.getReadNanos() + metrics.getHeaderNanos() + metrics.getStackNanos());
+		assertTrue(metrics.getThreadsPerSecond() > 0);
+
+		// Every part on its own
+		parses.clear();
+		final List<String> lines = Files.readAllLines(sample.toPath(), Charset.defaultCharset());
+		ThreadDumpReader.parseInParallel(lines, 100, ParseOptions.defaults().withListener(parses::add));
+		assertTrue(parses.size() > 1);
+		assertEquals(threads.size(), parses.stream().mapToLong(ParseMetrics::getThreads).sum());
+		assertEquals(lines.size(), parses.stream().mapToLong(ParseMetrics::getLines).sum());
+	}
+
+	@Test
+	public void streamsShouldBeMeasuredOnTheThreadThatConsumesThem() throws Exception {
+		final Path sample = new File("samples/tdump.sample").toPath();
+		final List<ParseMetrics> parses = new CopyOnWriteArrayList<>();
+		final ParseOptions options = ParseOptions.defaults().withListener(parses::add);
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			// Built here, consumed by another thread.
+			try (final Stream<ThreadInfo> threads = ThreadDumpReader.stream(sample, options)) {
+				final long count = executor.submit(() -> threads.count()).get();
+				assertEquals(1, parses.size());
+				assertEquals(count, parses.get(0).getThreads());
+				assertTrue(parses.get(0).getAllocatedBytes().isPresent());
+			}
+
+			// Started by another thread, finished by this one.
+			parses.clear();
+			try (final Stream<ThreadInfo> threads = ThreadDumpReader.stream(sample, options)) {
+				final Iterator<ThreadInfo> iterator = threads.iterator();
+				executor.submit(iterator::next).get();
+				iterator.forEachRemaining(thread -> {});
+			}
+			assertEquals(1, parses.size());
+			assertFalse(parses.get(0).getAllocatedBytes().isPresent());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,179 @@
+package com.thread.dump.parser;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.junit.Test;
+
+import com.thread.dump.parser.domain.StackFrame;
+import com.thread.dump.parser.domain.StackTraceLock;
+import com.thread.dump.parser.domain.ThreadInfo;
+import com.thread.dump.parser.util.LockIndex;
+import com.thread.dump.parser.util.StackFramePool;
+import com.thread.dump.parser.util.ThreadParsing;
+import com.thread.dump.parser.util.WaitForGraph;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public class ThreadMXBeanCaptureTest {
+
+	private static ThreadInfo find(final List<ThreadInfo> threads, final Thread thread) {
+		return threads.stream().filter(th -> th.getName().equals(thread.getName())).findFirst().orElseThrow(AssertionError::new);
+	}
+
+	private static void awaitState(final Thread thread, final Thread.State state) throws InterruptedException {
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (thread.getState() != state) {
+			assertTrue(thread.getName() + " is " + thread.getState(), System.nanoTime() < deadline);
+			Thread.sleep(1);
+		}
+	}
+
+	@Test
+	public void currentThreadShouldBeCaptured() {
+		final List<ThreadInfo> threads = ThreadMXBeanCapture.capture();
+		final ThreadInfo current = find(threads, Thread.currentThread());
+
+		assertEquals(Long.toString(Thread.currentThread().getId()), current.getId());
+		assertEquals(Thread.currentThread().getId(), (long) current.getNumber().get());
+		assertEquals("RUNNABLE", current.getState());
+		assertTrue(current.getStackFrames().stream().anyMatch(frame -> frame.isMethod()
+				&& "currentThreadShouldBeCaptured".equals(frame.getMethodName())
+				&& ThreadMXBeanCaptureTest.class.getName().equals(frame.getClassName())));
+		assertEquals(ThreadParsing.stackSignature(copyOf(current)), current.getStackSignature());
+	}
+
+	/**
+	 * Without the stack signature, for it to be computed again.
+	 */
+	private static ThreadInfo copyOf(final ThreadInfo thread) {
+		final ThreadInfo copy = new ThreadInfo();
+		copy.setStackFrames(thread.getStackFrames());
+		return copy;
+	}
+
+	@Test
+	public void framesShouldBeTheOnesParsedFromTheirLines() {
+		final StackFramePool pool = new StackFramePool();
+		final StackTraceElement[] elements = {
+			new StackTraceElement("java.lang.Thread", "run", "Thread.java", 834),
+			new StackTraceElement("sun.misc.Unsafe", "park", null, -2),
+			new StackTraceElement("com.app.Generated$$Lambda$1", "apply", null, -1),
+			new StackTraceElement("com.app.Service", "handle", "Service.java", -1)
+		};
+		for (final StackTraceElement element : elements) {
+			final StackFrame captured = pool.frame(element);
+			final StackFrame parsed = new StackFramePool().frame(captured.getLine());
+			assertSame(captured, pool.frame(element));
+			assertEquals(parsed.getLine(), captured.getLine());
+			assertEquals(parsed.getMethod(), captured.getMethod());
+			assertEquals(parsed.getClassName(), captured.getClassName());
+			assertEquals(parsed.getMethodName(), captured.getMethodName());
+			assertEquals(parsed.getLineNumber(), captured.getLineNumber());
+			assertEquals(parsed.isNativeMethod(), captured.isNativeMethod());
+			assertEquals(parsed.getSignature(), captured.getSignature());
+		}
+		assertEquals("at java.lang.Thread.run(Thread.java:834)", pool.frame(elements[0]).getLine());
+		assertEquals("at sun.misc.Unsafe.park(Native Method)", pool.frame(elements[1]).getLine());
+	}
+
+	@Test
+	public void modulesShouldBeTheOnesJstackPrints() {
+		final StackFramePool pool = new StackFramePool();
+		final StackTraceElement[] elements = Thread.currentThread().getStackTrace();
+		final StackFrame getStackTrace = pool.frame(elements[0]);
+		final StackFrame test = pool.frame(elements[1]);
+
+		assertEquals("modulesShouldBeTheOnesJstackPrints", test.getMethodName());
+		assertNull(test.getModule());
+		if (!"1.8".equals(System.getProperty("java.specification.version"))) {
+			assertTrue(getStackTrace.getLine(), getStackTrace.getLine().startsWith("at java.lang.Thread.getStackTrace(java.base@"));
+			assertTrue(getStackTrace.getModule().startsWith("java.base@"));
+		}
+
+		for (final StackTraceElement element : elements) {
+			final StackFrame captured = pool.frame(element);
+			final StackFrame parsed = new StackFramePool().frame(captured.getLine());
+			assertEquals(parsed.getModule(), captured.getModule());
+			assertEquals(parsed.getFileName(), captured.getFileName());
+			assertEquals(parsed.getSignature(), captured.getSignature());
+		}
+	}
+
+	@Test
+	public void locksShouldBeCapturedAsTheyAreParsed() throws Exception {
+		final Object monitor = new Object();
+		final ReentrantLock lock = new ReentrantLock();
+		final CountDownLatch release = new CountDownLatch(1);
+
+		final Thread owner = new Thread(() -> {
+			lock.lock();
+			try {
+				synchronized (monitor) {
+					release.await();
+				}
+			} catch (final InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			} finally {
+				lock.unlock();
+			}
+		}, "capture-owner");
+		final Thread blocked = new Thread(() -> {
+			synchronized (monitor) {
+				monitor.notifyAll();
+			}
+		}, "capture-blocked");
+		final Thread parked = new Thread(lock::lock, "capture-parked");
+		parked.setDaemon(true);
+
+		owner.start();
+		awaitState(owner, Thread.State.WAITING);
+		blocked.start();
+		parked.start();
+		try {
+			awaitState(blocked, Thread.State.BLOCKED);
+			awaitState(parked, Thread.State.WAITING);
+
+			final LockIndex locks = new LockIndex();
+			final List<ThreadInfo> threads = ThreadMXBeanCapture.capture(ParseOptions.defaults().withLockIndex(locks));
+			final ThreadInfo ownerInfo = find(threads, owner);
+			final ThreadInfo blockedInfo = find(threads, blocked);
+			final ThreadInfo parkedInfo = find(threads, parked);
+
+			final StackFrame held = ownerInfo.getStackFrames().stream()
+					.filter(frame -> frame.getLock() == StackTraceLock.LOCKED).findFirst().orElseThrow(AssertionError::new);
+			assertEquals(Object.class.getName(), held.getLockClassName());
+			assertEquals("- locked <" + held.getLockId() + "> (a java.lang.Object)", held.getLine());
+
+			final StackFrame waiting = blockedInfo.getStackFrames().get(1);
+			assertEquals(StackTraceLock.WAITING_TO_LOCK, waiting.getLock());
+			assertEquals(held.getLockId(), waiting.getLockId());
+
+			assertEquals(1, ownerInfo.getLockedSynchronizers().size());
+			final String synchronizer = ownerInfo.getLockedSynchronizers().get(0).getLockId();
+			assertTrue(parkedInfo.getStackFrames().stream().anyMatch(frame -> frame.getLock() == StackTraceLock.PARKING_TO_WAIT_FOR
+					&& synchronizer.equals(frame.getLockId())));
+
+			assertEquals(1, locks.holders(held.getLockId()).size());
+			assertSame(ownerInfo, locks.holders(held.getLockId()).get(0));
+			assertSame(blockedInfo, locks.waiters(held.getLockId()).get(0));
+			assertSame(parkedInfo, locks.waiters(synchronizer).get(0));
+
+			final WaitForGraph graph = WaitForGraph.of(locks);
+			assertEquals(2, graph.blockedCount(ownerInfo));
+			assertTrue(graph.deadlocks().isEmpty());
+			assertTrue(ThreadParsing.holds(threads).containsKey(ownerInfo));
+		} finally {
+			release.countDown();
+			owner.join();
+			blocked.join();
+			parked.join();
+		}
+	}
+
+}
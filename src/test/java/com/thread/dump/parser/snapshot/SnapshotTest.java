@@ -0,0 +1,211 @@
+package com.thread.dump.parser.snapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.thread.dump.parser.ThreadDumpReader;
+import com.thread.dump.parser.domain.StackFrame;
+import com.thread.dump.parser.domain.StackTraceLock;
+import com.thread.dump.parser.domain.ThreadInfo;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public class SnapshotTest {
+
+	private static void assertSameThread(final String message, final ThreadInfo expected, final ThreadInfo actual) {
+		assertEquals(message, expected, actual);
+		assertEquals(message, expected.getState(), actual.getState());
+		assertEquals(message, expected.isDaemon(), actual.isDaemon());
+		assertEquals(message, expected.getNumber(), actual.getNumber());
+		assertEquals(message, expected.getPriority(), actual.getPriority());
+		assertEquals(message, expected.getOsPriority(), actual.getOsPriority());
+		assertEquals(message, expected.getCpuMillis(), actual.getCpuMillis());
+		assertEquals(message, expected.getElapsedSeconds(), actual.getElapsedSeconds());
+		assertEquals(message, expected.getStatus(), actual.getStatus());
+		assertEquals(message, expected.getStackTrace(), actual.getStackTrace());
+		assertEquals(message, expected.getStackSignature(), actual.getStackSignature());
+		assertSameFrames(message, expected.getStackFrames(), actual.getStackFrames());
+		assertSameFrames(message, expected.getLockedSynchronizers(), actual.getLockedSynchronizers());
+	}
+
+	private static void assertSameFrames(final String message, final List<StackFrame> expected, final List<StackFrame> actual) {
+		assertEquals(message, expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			final StackFrame e = expected.get(i);
+			final StackFrame a = actual.get(i);
+			assertEquals(message, e.getType(), a.getType());
+			assertEquals(message, e.getLine(), a.getLine());
+			assertEquals(message, e.getMethod(), a.getMethod());
+			assertEquals(message, e.getClassName(), a.getClassName());
+			assertEquals(message, e.getMethodName(), a.getMethodName());
+			assertEquals(message, e.getModule(), a.getModule());
+			assertEquals(message, e.getFileName(), a.getFileName());
+			assertEquals(message, e.getLineNumber(), a.getLineNumber());
+			assertEquals(message, e.isNativeMethod(), a.isNativeMethod());
+			assertEquals(message, e.getLock(), a.getLock());
+			assertEquals(message, e.getLockId(), a.getLockId());
+			assertEquals(message, e.getLockClassName(), a.getLockClassName());
+			assertEquals(message, e.getSignature(), a.getSignature());
+		}
+	}
+
+	private static Path snapshotOf(final List<ThreadInfo> threads) throws IOException {
+		final Path path = Files.createTempFile("threads", ".snapshot");
+		path.toFile().deleteOnExit();
+		SnapshotWriter.write(threads, path);
+		return path;
+	}
+
+	@Test
+	public void samplesShouldBeReadAsTheyWereWritten() throws Exception {
+		final File[] samples = new File("samples").listFiles();
+		assertNotNull(samples);
+		for (final File sample : samples) {
+			final List<ThreadInfo> threads = ThreadDumpReader.fromFile(sample.getPath());
+			final Path snapshot = snapshotOf(threads);
+
+			final List<ThreadInfo> read = SnapshotReader.read(snapshot);
+			assertEquals(sample.getName(), threads.size(), read.size());
+			for (int i = 0; i < threads.size(); i++) {
+				assertSameThread(sample.getName() + " thread " + i, threads.get(i), read.get(i));
+			}
+			Files.delete(snapshot);
+		}
+	}
+
+	@Test
+	public void snapshotShouldBeSmallerThanTheDump() throws Exception {
+		final File sample = new File("samples/tdump.sample");
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SnapshotWriter.write(ThreadDumpReader.fromFile(sample.getPath()), out);
+		assertTrue(out.size() < sample.length());
+	}
+
+	@Test
+	public void threadsShouldBeDecodedOnDemandAndShareTheirFrames() throws Exception {
+		final List<ThreadInfo> threads = ThreadDumpReader.fromFile("samples/tdump.sample");
+		try (final SnapshotReader snapshot = SnapshotReader.open(snapshotOf(threads))) {
+			assertEquals(threads.size(), snapshot.size());
+			final int last = threads.size() - 1;
+			assertSameThread("last", threads.get(last), snapshot.get(last));
+			assertSameThread("first", threads.get(0), snapshot.threads().get(0));
+
+			// The same frame, decoded once.
+			final ThreadInfo again = snapshot.get(last);
+			for (int i = 0; i < again.getStackFrames().size(); i++) {
+				assertSame(snapshot.get(last).getStackFrames().get(i), again.getStackFrames().get(i));
+			}
+		}
+	}
+
+	@Test
+	public void threadsBuiltByHandShouldBeReadAsTheyWereWritten() throws Exception {
+		final ThreadInfo empty = new ThreadInfo();
+
+		final ThreadInfo withText = new ThreadInfo();
+		withText.setName("worker é中");
+		withText.setId("0x1");
+		withText.setDaemon(true);
+		withText.setNumber(Long.MAX_VALUE);
+		withText.setPriority(-1);
+		withText.setCpuMillis(Double.NaN);
+		withText.setStackTrace("at a.B.c(B.java:1)\n");
+
+		final ThreadInfo withFrames = new ThreadInfo();
+		withFrames.setName("locks");
+		withFrames.setStackFrames(Arrays.asList(
+				StackFrame.lock("- locked <0x1> (a java.lang.Object)", StackTraceLock.LOCKED, "0x1", "java.lang.Object"),
+				StackFrame.lock("- waiting to lock <?>", StackTraceLock.WAITING_TO_LOCK, null, null),
+				StackFrame.unknown("No compile task")));
+		withFrames.setLockedSynchronizers(Collections.singletonList(
+				StackFrame.lock("- <0x2> (a java.util.concurrent.locks.ReentrantLock$NonfairSync)", StackTraceLock.LOCKED, "0x2",
+						"java.util.concurrent.locks.ReentrantLock$NonfairSync")));
+		withFrames.setStackSignature(-1);
+
+		final List<ThreadInfo> threads = Arrays.asList(empty, withText, withFrames);
+		final List<ThreadInfo> read = SnapshotReader.read(snapshotOf(threads));
+		for (int i = 0; i < threads.size(); i++) {
+			assertSameThread("thread " + i, threads.get(i), read.get(i));
+		}
+		assertEquals(Collections.emptyList(), SnapshotReader.read(snapshotOf(Collections.emptyList())));
+	}
+
+	@Test
+	public void otherFilesShouldBeRejected() throws Exception {
+		for (final byte[] content : new byte[][] {new byte[0], "JTDS".getBytes(), Files.readAllBytes(new File("samples/tdump.sample").toPath())}) {
+			final Path path = Files.createTempFile("threads", ".snapshot");
+			Files.write(path, content);
+			try {
+				SnapshotReader.open(path).close();
+				fail("Opened a file of " + content.length + " bytes");
+			} catch (final IOException expected) {
+				// Not a snapshot
+			} finally {
+				Files.delete(path);
+			}
+		}
+	}
+
+	@Test
+	public void unknownLocksShouldBeRejected() throws Exception {
+		final ThreadInfo thread = new ThreadInfo();
+		thread.setStackFrames(Collections.singletonList(
+				StackFrame.lock("- locked <0x1> (a java.lang.Object)", StackTraceLock.LOCKED, "0x1", "java.lang.Object")));
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SnapshotWriter.write(Collections.singletonList(thread), out);
+		final byte[] bytes = out.toByteArray();
+
+		// The frame count, then the only frame: its type, its line and its lock.
+		final int frames = (int) ByteBuffer.wrap(bytes).getLong(bytes.length - SnapshotFormat.FOOTER_SIZE + Long.BYTES);
+		assertEquals(1, bytes[frames]);
+		assertEquals(SnapshotFormat.FRAME_LOCK, bytes[frames + 1]);
+		assertEquals(StackTraceLock.LOCKED.ordinal(), bytes[frames + 3]);
+		bytes[frames + 3] = (byte) StackTraceLock.values().length;
+
+		final Path path = Files.createTempFile("threads", ".snapshot");
+		Files.write(path, bytes);
+		try {
+			SnapshotReader.open(path).close();
+			fail("Opened a snapshot with an unknown lock");
+		} catch (final IOException expected) {
+			assertTrue(expected.getMessage().startsWith("Corrupt thread dump snapshot"));
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void truncatedSnapshotsShouldBeRejected() throws Exception {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SnapshotWriter.write(ThreadDumpReader.fromFile("samples/tdump.sample"), out);
+		final byte[] bytes = out.toByteArray();
+		// Keeps the footer, the sections it points to are cut.
+		final byte[] truncated = new byte[bytes.length / 2];
+		System.arraycopy(bytes, 0, truncated, 0, 64);
+		System.arraycopy(bytes, bytes.length - (truncated.length - 64), truncated, 64, truncated.length - 64);
+
+		final Path path = Files.createTempFile("threads", ".snapshot");
+		Files.write(path, truncated);
+		try {
+			SnapshotReader.open(path).close();
+			fail("Opened a truncated snapshot");
+		} catch (final IOException expected) {
+			// Corrupt
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+}
@@ -0,0 +1,145 @@
+package com.thread.dump.parser.util;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.thread.dump.parser.MultiDumpReader;
+import com.thread.dump.parser.ThreadDumpReader;
+import com.thread.dump.parser.domain.ThreadDump;
+import com.thread.dump.parser.domain.ThreadInfo;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public class ColumnarThreadStoreTest {
+
+	private static List<ThreadDump> dumps() throws Exception {
+		final List<ThreadDump> dumps = new ArrayList<>(MultiDumpReader.fromFile("samples/11.0.8.0-amazon.txt"));
+		final ThreadDump sample = new ThreadDump();
+		sample.setThreads(ThreadDumpReader.fromFile("samples/tdump.sample"));
+		dumps.add(sample);
+		// Without threads
+		dumps.add(1, new ThreadDump());
+		return dumps;
+	}
+
+	@Test
+	public void rowsShouldHaveTheColumnsOfTheirThreads() throws Exception {
+		final List<ThreadDump> dumps = dumps();
+		final ColumnarThreadStore store = new ColumnarThreadStore();
+		dumps.forEach(store::add);
+
+		assertEquals(dumps.size(), store.dumpCount());
+		assertEquals(dumps.stream().mapToInt(dump -> dump.getThreads().size()).sum(), store.threadCount());
+		assertEquals(LocalDateTime.of(2020, 9, 3, 17, 19, 30), store.timestamp(0));
+		assertNull(store.timestamp(3));
+		assertEquals(store.firstRow(1), store.endRow(1));
+
+		for (int dump = 0; dump < dumps.size(); dump++) {
+			final List<ThreadInfo> threads = dumps.get(dump).getThreads();
+			assertEquals(threads.size(), store.endRow(dump) - store.firstRow(dump));
+			for (int i = 0; i < threads.size(); i++) {
+				final ThreadInfo thread = threads.get(i);
+				final int row = store.firstRow(dump) + i;
+				assertEquals(dump, store.dumpOf(row));
+				assertEquals(thread.getName(), store.name(row));
+				assertEquals(ColumnarThreadStore.idOf(thread.getId()), store.tid(row));
+				assertEquals(ColumnarThreadStore.idOf(thread.getNativeId()), store.nid(row));
+				assertEquals(ThreadParsing.stackSignature(thread), store.stackSignature(store.stackId(row)));
+				// The frames are the ones of the first thread with the stack, lock addresses can differ
+				assertEquals(ThreadParsing.stackFrames(thread).size(), store.stackFrames(store.stackId(row)).size());
+				if (thread.getState() != null && thread.getState().startsWith("BLOCKED")) {
+					assertEquals(Thread.State.BLOCKED, store.state(row));
+				}
+			}
+		}
+		assertEquals(ThreadParsing.groupByIdenticalStack(dumps.get(3).getThreads()).size(),
+				(int) dumps.get(3).getThreads().stream().map(ThreadParsing::stackSignature).distinct().count());
+	}
+
+	@Test
+	public void countsShouldBeTheOnesOfTheThreads() throws Exception {
+		final List<ThreadDump> dumps = dumps();
+		final ColumnarThreadStore store = new ColumnarThreadStore();
+		dumps.forEach(store::add);
+
+		for (final Thread.State state : Thread.State.values()) {
+			final int[] perDump = store.countPerDump(state);
+			final Map<String, int[]> expectedPerPool = new HashMap<>();
+			for (int dump = 0; dump < dumps.size(); dump++) {
+				int expected = 0;
+				for (final ThreadInfo thread : dumps.get(dump).getThreads()) {
+					if (state.name().equalsIgnoreCase(thread.getState() == null ? "" : thread.getState().split(" ")[0])) {
+						expected++;
+						expectedPerPool.computeIfAbsent(ColumnarThreadStore.poolOf(thread.getName()), pool -> new int[dumps.size()])[dump]++;
+					}
+				}
+				assertEquals(state + " in dump " + dump, expected, perDump[dump]);
+			}
+
+			final Map<String, int[]> perPool = store.countPerPool(state);
+			assertEquals(expectedPerPool.keySet(), perPool.keySet());
+			expectedPerPool.forEach((pool, counts) -> assertArrayEquals(state + " " + pool, counts, perPool.get(pool)));
+		}
+		assertTrue(store.countPerDump(Thread.State.RUNNABLE)[0] > 0);
+	}
+
+	@Test
+	public void threadsShouldBeFoundAcrossDumps() throws Exception {
+		final List<ThreadDump> dumps = dumps();
+		final ColumnarThreadStore store = new ColumnarThreadStore();
+		dumps.forEach(store::add);
+
+		final ThreadInfo thread = dumps.get(0).getThreads().get(0);
+		final int[] rows = store.rowsOf(ColumnarThreadStore.idOf(thread.getId()));
+		assertEquals(2, rows.length);
+		assertEquals(0, store.dumpOf(rows[0]));
+		assertEquals(2, store.dumpOf(rows[1]));
+		assertEquals(thread.getName(), store.name(rows[1]));
+
+		final int stack = store.stackId(rows[0]);
+		final int[] perDump = store.countPerDump(stack);
+		assertTrue(perDump[0] > 0);
+		assertEquals(0, perDump[1]);
+	}
+
+	@Test
+	public void storeShouldGrow() throws Exception {
+		final List<ThreadInfo> threads = ThreadDumpReader.fromFile("samples/tdump.sample");
+		final ColumnarThreadStore store = new ColumnarThreadStore();
+		for (int i = 0; i < 200; i++) {
+			store.add(LocalDateTime.of(2020, 1, 1, 0, 0).plusSeconds(10L * i), i % 10 == 0 ? Collections.emptyList() : threads);
+		}
+		assertEquals(200, store.dumpCount());
+		assertEquals(180 * threads.size(), store.threadCount());
+		assertEquals(LocalDateTime.of(2020, 1, 1, 0, 33, 10), store.timestamp(199));
+		assertEquals(199, store.dumpOf(store.threadCount() - 1));
+		assertEquals(11, store.dumpOf(store.firstRow(11)));
+		assertEquals(threads.stream().map(ThreadParsing::stackSignature).distinct().count(), store.stackCount());
+	}
+
+	@Test
+	public void columnsShouldBeEncoded() {
+		assertEquals(Thread.State.BLOCKED.ordinal(), ColumnarThreadStore.stateOf("BLOCKED (on object monitor)"));
+		assertEquals(Thread.State.RUNNABLE.ordinal(), ColumnarThreadStore.stateOf("runnable"));
+		assertEquals(Thread.State.WAITING.ordinal(), ColumnarThreadStore.stateOf("waiting on condition"));
+		assertEquals(ColumnarThreadStore.UNKNOWN_STATE, ColumnarThreadStore.stateOf(null));
+
+		assertEquals(0x00007f3990fb3000L, ColumnarThreadStore.idOf("0x00007f3990fb3000"));
+		assertEquals(10012, ColumnarThreadStore.idOf("10012"));
+		assertEquals(ColumnarThreadStore.UNKNOWN_ID, ColumnarThreadStore.idOf("none"));
+
+		assertEquals("pool-1-thread-", ColumnarThreadStore.poolOf("pool-1-thread-17"));
+		assertEquals("GC Thread#", ColumnarThreadStore.poolOf("GC Thread#0"));
+		assertEquals("main", ColumnarThreadStore.poolOf("main"));
+	}
+
+}
@@ -0,0 +1,96 @@
+package com.thread.dump.parser.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.thread.dump.parser.MultiDumpReader;
+import com.thread.dump.parser.ThreadDumpReader;
+import com.thread.dump.parser.domain.ThreadInfo;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public class FoldedStacksTest {
+
+	private static final String DUMP = "Full thread dump OpenJDK 64-Bit Server VM (11.0.8+10-LTS mixed mode):\n\n"
+			+ "\"worker 1\" #10 prio=5 os_prio=0 tid=0x00007f3990001000 nid=0x10 waiting on condition  [0x00007f3990000000]\n"
+			+ "   java.lang.Thread.State: WAITING (parking)\n"
+			+ "\tat jdk.internal.misc.Unsafe.park(java.base@11.0.8/Native Method)\n"
+			+ "\t- parking to wait for  <0x0000000700000010> (a java.util.concurrent.locks.AbstractQueuedSynchronizer$ConditionObject)\n"
+			+ "\tat java.util.concurrent.LinkedBlockingQueue.take(java.base@11.0.8/LinkedBlockingQueue.java:433)\n"
+			+ "\tat java.lang.Thread.run(java.base@11.0.8/Thread.java:834)\n\n"
+			+ "\"worker;2\" #11 prio=5 os_prio=0 tid=0x00007f3990002000 nid=0x11 waiting on condition  [0x00007f3990000000]\n"
+			+ "   java.lang.Thread.State: WAITING (parking)\n"
+			+ "\tat jdk.internal.misc.Unsafe.park(java.base@11.0.8/Native Method)\n"
+			+ "\t- parking to wait for  <0x0000000700000020> (a java.util.concurrent.locks.AbstractQueuedSynchronizer$ConditionObject)\n"
+			+ "\tat java.util.concurrent.LinkedBlockingQueue.take(java.base@11.0.8/LinkedBlockingQueue.java:433)\n"
+			+ "\tat java.lang.Thread.run(java.base@11.0.8/Thread.java:834)\n\n"
+			+ "\"http\" #12 prio=5 os_prio=0 tid=0x00007f3990003000 nid=0x12 runnable  [0x00007f3990000000]\n"
+			+ "   java.lang.Thread.State: RUNNABLE\n"
+			+ "\tat java.net.SocketInputStream.socketRead0(java.base@11.0.8/Native Method)\n"
+			+ "\tat com.app.Client.call(Client.java:10)\n"
+			+ "\tat java.lang.Thread.run(java.base@11.0.8/Thread.java:834)\n\n"
+			+ "\"GC Thread#0\" os_prio=0 tid=0x00007f3990004000 nid=0x13 runnable\n\n"
+			+ "JNI global refs: 29, weak refs: 0\n";
+
+	private static String folded(final FoldedStacks stacks) throws IOException {
+		final StringWriter out = new StringWriter();
+		stacks.writeTo(out);
+		return out.toString();
+	}
+
+	@Test
+	public void stacksShouldBeFoldedRootFirst() throws IOException {
+		final List<ThreadInfo> threads = ThreadDumpReader.fromString(DUMP);
+		final FoldedStacks stacks = new FoldedStacks().add(threads).add(threads);
+
+		assertEquals(2, stacks.size());
+		assertEquals("java.lang.Thread.run;java.util.concurrent.LinkedBlockingQueue.take;jdk.internal.misc.Unsafe.park 4\n"
+				+ "java.lang.Thread.run;com.app.Client.call;java.net.SocketInputStream.socketRead0 2\n", folded(stacks));
+	}
+
+	@Test
+	public void stacksShouldBeFilteredByState() throws IOException {
+		final FoldedStacks stacks = new FoldedStacks().withStates(Thread.State.RUNNABLE, Thread.State.BLOCKED)
+				.add(ThreadDumpReader.fromString(DUMP));
+		assertEquals("java.lang.Thread.run;com.app.Client.call;java.net.SocketInputStream.socketRead0 1\n", folded(stacks));
+	}
+
+	@Test
+	public void threadNamesShouldBeTheRootFrames() throws IOException {
+		final FoldedStacks stacks = new FoldedStacks().withThreadNames().withStates(Thread.State.WAITING)
+				.add(ThreadDumpReader.fromString(DUMP));
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		stacks.writeTo(out);
+		assertEquals("worker_1;java.lang.Thread.run;java.util.concurrent.LinkedBlockingQueue.take;jdk.internal.misc.Unsafe.park 1\n"
+				+ "worker:2;java.lang.Thread.run;java.util.concurrent.LinkedBlockingQueue.take;jdk.internal.misc.Unsafe.park 1\n",
+				new String(out.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void dumpsShouldBeMerged() throws IOException {
+		final String sample = new File("samples", "11.0.8.0-amazon.txt").getPath();
+		final FoldedStacks stacks = new FoldedStacks();
+		MultiDumpReader.forEach(sample, stacks::add);
+
+		long threads = 0;
+		for (final String line : folded(stacks).split("\n")) {
+			final String[] fields = line.split(" ");
+			assertEquals(line, 2, fields.length);
+			assertFalse(line, fields[0].isEmpty());
+			threads += Long.parseLong(fields[1]);
+		}
+		final long expected = MultiDumpReader.fromFile(sample).stream().flatMap(dump -> dump.getThreads().stream())
+				.filter(thread -> thread.getStackFrames().stream().anyMatch(frame -> frame.isMethod())).count();
+		assertEquals(expected, threads);
+	}
+
+}
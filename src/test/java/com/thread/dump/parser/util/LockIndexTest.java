@@ -0,0 +1,112 @@
+package com.thread.dump.parser.util;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.thread.dump.parser.MultiDumpReader;
+import com.thread.dump.parser.ParseOptions;
+import com.thread.dump.parser.ThreadDumpReader;
+import com.thread.dump.parser.domain.StackFrame;
+import com.thread.dump.parser.domain.StackTraceLock;
+import com.thread.dump.parser.domain.ThreadInfo;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public class LockIndexTest {
+
+	private static final String SAMPLE = "samples/11.0.2.0.txt";
+
+	private static List<String> names(final List<ThreadInfo> threads) {
+		return threads.stream().map(ThreadInfo::getName).collect(Collectors.toList());
+	}
+
+	@Test
+	public void shouldIndexLocksWhileParsing() throws Exception {
+		final LockIndex index = new LockIndex();
+		final List<ThreadInfo> threads = ThreadDumpReader.fromFile(SAMPLE, ParseOptions.defaults().withLockIndex(index));
+
+		final String classLock = "0x0000000629723d18";
+		assertEquals(1, index.holders(classLock).size());
+		assertEquals(1, index.waiters(classLock).size());
+		assertEquals("http-nio-8080-exec-1", index.waiters(classLock).get(0).getName());
+
+		final ThreadInfo holder = index.holders(classLock).get(0);
+		assertTrue(threads.contains(holder));
+		assertTrue(index.holdsOf(holder).stream().anyMatch(lock -> classLock.equals(lock.getLockId())));
+
+		final ThreadInfo waiter = index.waiters(classLock).get(0);
+		final List<StackFrame> waits = index.waitsOf(waiter);
+		assertEquals(1, waits.size());
+		assertEquals(StackTraceLock.WAITING_TO_LOCK, waits.get(0).getLock());
+		assertEquals("java.lang.Class for com.thdump.calls.Call5", waits.get(0).getLockClassName());
+
+		assertTrue(index.holders("0x0000000000000bad").isEmpty());
+		assertTrue(index.locksOf(new ThreadInfo()).isEmpty());
+	}
+
+	@Test
+	public void shouldIndexLockedOwnableSynchronizers() throws Exception {
+		final LockIndex index = new LockIndex();
+		final List<ThreadInfo> threads = ThreadDumpReader.fromFile(SAMPLE, ParseOptions.defaults().withLockIndex(index));
+
+		final List<ThreadInfo> holders = index.holders("0x000000062a206020");
+		assertEquals(1, holders.size());
+
+		final List<StackFrame> synchronizers = holders.get(0).getLockedSynchronizers();
+		assertEquals(1, synchronizers.size());
+		assertEquals(StackTraceLock.LOCKED, synchronizers.get(0).getLock());
+		assertEquals("java.util.concurrent.locks.ReentrantLock$NonfairSync", synchronizers.get(0).getLockClassName());
+
+		// "- None" is not a synchronizer.
+		final long synchronizerLines = Files.lines(Paths.get(SAMPLE)).filter(line -> line.trim().startsWith("- <")).count();
+		assertEquals(synchronizerLines, threads.stream().mapToInt(th -> th.getLockedSynchronizers().size()).sum());
+	}
+
+	@Test
+	public void indexFromParsedThreadsShouldMatchTheOneFromParsing() throws Exception {
+		for (final File sample : new File("samples").listFiles()) {
+			final LockIndex parsed = new LockIndex();
+			final List<ThreadInfo> threads = ThreadDumpReader.fromFile(sample.getPath(), ParseOptions.defaults().withLockIndex(parsed));
+			assertIndexesMatch(parsed, LockIndex.of(threads));
+
+		}
+	}
+
+	@Test
+	public void everyDumpOfAFileShouldBeIndexed() throws Exception {
+		final LockIndex index = new LockIndex();
+		MultiDumpReader.fromFile("samples/11.0.8.0-amazon.txt", ForkJoinPool.commonPool(),
+				ParseOptions.defaults().withLockIndex(index));
+
+		final LockIndex single = new LockIndex();
+		ThreadDumpReader.fromFile("samples/11.0.8.0-amazon.txt", ParseOptions.defaults().withLockIndex(single));
+
+		assertEquals(single.lockIds(), index.lockIds());
+		for (final String lockId : single.lockIds()) {
+			assertEquals(names(single.holders(lockId)), names(index.holders(lockId)));
+			assertEquals(names(single.waiters(lockId)), names(index.waiters(lockId)));
+		}
+	}
+
+	private static void assertIndexesMatch(final LockIndex expected, final LockIndex got) {
+		assertEquals(expected.lockIds(), got.lockIds());
+		assertEquals(expected.threads(), got.threads());
+		for (final String lockId : expected.lockIds()) {
+			assertEquals(expected.holders(lockId), got.holders(lockId));
+			assertEquals(expected.waiters(lockId), got.waiters(lockId));
+		}
+		for (final ThreadInfo thread : expected.threads()) {
+			assertEquals(expected.locksOf(thread), got.locksOf(thread));
+		}
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.thread.dump.parser.util;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.thread.dump.parser.ThreadDumpReader;
+import com.thread.dump.parser.domain.StackFrame;
+import com.thread.dump.parser.domain.ThreadInfo;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public class MethodCountsTest {
+
+	private static Map<String, Integer> countByHand(final List<ThreadInfo> threads) {
+		final Map<String, Integer> counts = new HashMap<>();
+		for (final ThreadInfo thread : threads) {
+			final Set<String> methods = new HashSet<>();
+			for (final StackFrame frame : thread.getStackFrames()) {
+				if (frame.isMethod() && methods.add(frame.getMethod())) {
+					counts.merge(frame.getMethod(), 1, Integer::sum);
+				}
+			}
+		}
+		return counts;
+	}
+
+	private static List<ThreadInfo> allSamples() throws Exception {
+		final File[] samples = new File("samples").listFiles();
+		Arrays.sort(samples);
+		final List<ThreadInfo> threads = new ArrayList<>();
+		for (final File sample : samples) {
+			threads.addAll(ThreadDumpReader.fromFile(sample.getPath()));
+		}
+		return threads;
+	}
+
+	@Test
+	public void shouldCountEveryMethodOncePerThread() throws Exception {
+		final List<ThreadInfo> threads = allSamples();
+		final Map<String, Integer> expected = countByHand(threads);
+
+		final MethodCounts counts = MethodCounts.of(threads);
+		assertEquals(expected, counts.toMap());
+		assertEquals(expected.size(), counts.size());
+		expected.forEach((method, count) -> assertEquals(count.intValue(), counts.count(method)));
+		assertEquals(0, counts.count("com.app.Nowhere.nothing(Nowhere.java:1)"));
+	}
+
+	@Test
+	public void mergedCountsShouldMatchASingleCount() throws Exception {
+		final List<ThreadInfo> threads = allSamples();
+
+		final MethodCounts merged = new MethodCounts();
+		for (int from = 0; from < threads.size(); from += 1000) {
+			final MethodCounts part = new MethodCounts();
+			threads.subList(from, Math.min(threads.size(), from + 1000)).forEach(part::add);
+			merged.merge(part);
+		}
+		assertEquals(countByHand(threads), merged.toMap());
+	}
+
+	@Test
+	public void topMethodsShouldBeSortedByCount() throws Exception {
+		final List<ThreadInfo> threads = allSamples();
+		final List<Map.Entry<String, Integer>> expected = countByHand(threads).entrySet().stream()
+				.sorted(Comparator.comparing(Map.Entry<String, Integer>::getValue).reversed().thenComparing(Map.Entry::getKey))
+				.limit(25)
+				.collect(Collectors.toList());
+
+		assertEquals(expected, MethodCounts.of(threads).topMethods(25));
+		assertEquals(expected.subList(0, 1), ThreadParsing.topMethods(threads, 1));
+		assertTrue(MethodCounts.of(threads).topMethods(0).isEmpty());
+		assertEquals(MethodCounts.of(threads).size(), MethodCounts.of(threads).topMethods(Integer.MAX_VALUE).size());
+	}
+
+}
@@ -0,0 +1,119 @@
+package com.thread.dump.parser.util;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.thread.dump.parser.ThreadDumpReader;
+import com.thread.dump.parser.domain.StackCount;
+import com.thread.dump.parser.domain.StackGroup;
+import com.thread.dump.parser.domain.ThreadInfo;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public class StackSamplerTest {
+
+	private static List<ThreadInfo> sample(final String name) throws Exception {
+		return ThreadDumpReader.fromFile(new File("samples", name).getPath());
+	}
+
+	@Test
+	public void stacksShouldBeCountedAsTheyAreGrouped() throws Exception {
+		final List<ThreadInfo> threads = sample("tdump.sample");
+		final StackSampler sampler = new StackSampler(10, 10_000);
+		for (int i = 0; i < 3; i++) {
+			sampler.add(threads);
+		}
+
+		final List<StackGroup> groups = ThreadParsing.groupByIdenticalStack(threads);
+		final List<StackCount> top = sampler.topStacks(Integer.MAX_VALUE);
+		assertEquals(groups.size(), sampler.size());
+		assertEquals(groups.size(), top.size());
+		assertEquals(3L * groups.get(0).size(), top.get(0).getCount());
+		assertEquals(groups.get(0).getStackSignature(), top.get(0).getStackSignature());
+		assertEquals(groups.get(0).getStackFrames(), top.get(0).getStackFrames());
+		assertEquals(3L * threads.size(), top.stream().mapToLong(StackCount::getCount).sum());
+		assertEquals(3, sampler.sampleCount());
+		assertEquals(2, sampler.topStacks(2).size());
+	}
+
+	@Test
+	public void recentStacksShouldBeTheOnesOfTheLastSamples() throws Exception {
+		final List<ThreadInfo> first = sample("tdump.sample");
+		final List<ThreadInfo> second = sample("11.0.2.0.txt");
+		final StackSampler sampler = new StackSampler(2, 10_000);
+		for (int i = 0; i < 5; i++) {
+			sampler.add(first);
+		}
+		sampler.add(second);
+		sampler.add(second);
+
+		final long recent = sampler.topRecentStacks(Integer.MAX_VALUE).stream().mapToLong(StackCount::getCount).sum();
+		assertEquals(2L * second.size(), recent);
+		final long all = sampler.topStacks(Integer.MAX_VALUE).stream().mapToLong(StackCount::getCount).sum();
+		assertEquals(5L * first.size() + 2L * second.size(), all);
+	}
+
+	@Test
+	public void stacksBeyondTheMaximumShouldBeDropped() throws Exception {
+		final List<ThreadInfo> threads = sample("tdump.sample");
+		final int stacks = ThreadParsing.groupByIdenticalStack(threads).size();
+		final StackSampler sampler = new StackSampler(10, 3);
+		sampler.add(threads);
+		sampler.add(threads);
+
+		assertEquals(3, sampler.size());
+		assertTrue(stacks > 3);
+		final long counted = sampler.topStacks(10).stream().mapToLong(StackCount::getCount).sum();
+		assertEquals(2L * threads.size(), counted + sampler.droppedCount());
+
+		sampler.clear();
+		assertEquals(0, sampler.size());
+		assertEquals(0, sampler.sampleCount());
+		assertTrue(sampler.topRecentStacks(10).isEmpty());
+	}
+
+	@Test
+	public void recentStacksShouldIncludeTheDroppedOnes() throws Exception {
+		final List<ThreadInfo> first = sample("tdump.sample");
+		final List<ThreadInfo> second = sample("11.0.2.0.txt");
+		final StackSampler sampler = new StackSampler(2, 1);
+		sampler.add(first);
+		sampler.add(first);
+		assertEquals(1, sampler.size());
+		sampler.add(second);
+		sampler.add(second);
+
+		final List<StackCount> recent = sampler.topRecentStacks(Integer.MAX_VALUE);
+		final List<StackGroup> groups = ThreadParsing.groupByIdenticalStack(second);
+		assertEquals(2L * second.size(), recent.stream().mapToLong(StackCount::getCount).sum());
+		assertEquals(groups.size(), recent.size());
+		assertEquals(groups.get(0).getStackSignature(), recent.get(0).getStackSignature());
+		assertEquals(groups.get(0).getStackFrames(), recent.get(0).getStackFrames());
+		assertEquals(1, sampler.size());
+
+		// Once out of the ring buffer, the stacks of the first dump are gone.
+		sampler.add(first);
+		sampler.add(first);
+		assertEquals(2L * first.size(), sampler.topRecentStacks(Integer.MAX_VALUE).stream().mapToLong(StackCount::getCount).sum());
+	}
+
+	@Test
+	public void onlyTheFilteredThreadsShouldBeCounted() throws Exception {
+		final List<ThreadInfo> threads = sample("tdump.sample");
+		final StackSampler sampler = new StackSampler(10, 10_000).withFilter(thread -> "RUNNABLE".equals(thread.getState()));
+		sampler.add(threads);
+		sampler.add(Collections.emptyList());
+
+		final long runnable = threads.stream().filter(thread -> "RUNNABLE".equals(thread.getState())).count();
+		assertTrue(runnable > 0);
+		assertEquals(runnable, sampler.topStacks(Integer.MAX_VALUE).stream().mapToLong(StackCount::getCount).sum());
+		assertEquals(runnable, sampler.topRecentStacks(Integer.MAX_VALUE).stream().mapToLong(StackCount::getCount).sum());
+	}
+
+}
@@ -0,0 +1,136 @@
+package com.thread.dump.parser.util;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.thread.dump.parser.ThreadDumpReader;
+import com.thread.dump.parser.domain.StuckThread;
+import com.thread.dump.parser.domain.ThreadInfo;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public class StuckThreadDetectorTest {
+
+	private static String header(final String name, final int nid, final String state) {
+		return String.format("\"%s\" #%d prio=5 os_prio=0 tid=0x00007f39900%05x nid=0x%x runnable  [0x00007f3990000000]%n"
+				+ "   java.lang.Thread.State: %s%n", name, nid, nid, nid, state);
+	}
+
+	private static String request(final int line) {
+		return header("http-nio-8080-exec-1", 1, "RUNNABLE")
+				+ "\tat java.net.SocketInputStream.socketRead0(Native Method)\n"
+				+ "\tat com.app.Client.call(Client.java:" + line + ")\n\n";
+	}
+
+	private static String blocked(final String lockId) {
+		return header("http-nio-8080-exec-2", 2, "BLOCKED (on object monitor)")
+				+ "\tat com.app.Cache.get(Cache.java:10)\n"
+				+ "\t- waiting to lock <" + lockId + "> (a java.lang.Object)\n"
+				+ "\tat com.app.Service.handle(Service.java:20)\n\n";
+	}
+
+	private static String parkedOnLock() {
+		return header("http-nio-8080-exec-3", 3, "WAITING (parking)")
+				+ "\tat jdk.internal.misc.Unsafe.park(Native Method)\n"
+				+ "\t- parking to wait for  <0x0000000700000030> (a java.util.concurrent.locks.ReentrantLock$NonfairSync)\n"
+				+ "\tat java.util.concurrent.locks.ReentrantLock.lock(ReentrantLock.java:225)\n\n";
+	}
+
+	private static String idle() {
+		return header("pool-1-thread-1", 4, "WAITING (parking)")
+				+ "\tat jdk.internal.misc.Unsafe.park(Native Method)\n"
+				+ "\t- parking to wait for  <0x0000000700000040> (a java.util.concurrent.locks.AbstractQueuedSynchronizer$ConditionObject)\n"
+				+ "\tat java.util.concurrent.LinkedBlockingQueue.take(LinkedBlockingQueue.java:433)\n\n";
+	}
+
+	private static String reLocking() {
+		return header("Finalizer", 5, "WAITING (on object monitor)")
+				+ "\tat java.lang.Object.wait(Native Method)\n"
+				+ "\t- waiting on <0x0000000700000050> (a java.lang.ref.ReferenceQueue$Lock)\n"
+				+ "\tat java.lang.ref.ReferenceQueue.remove(ReferenceQueue.java:155)\n"
+				+ "\t- waiting to lock <0x0000000700000050> (a java.lang.ref.ReferenceQueue$Lock)\n\n";
+	}
+
+	private static String gc() {
+		return "\"GC Thread#0\" os_prio=0 cpu=1.00ms elapsed=10.00s tid=0x00007f3990000100 nid=0x64 runnable\n\n";
+	}
+
+	private static List<ThreadInfo> dump(final String... threads) throws IOException {
+		return ThreadDumpReader.fromString("Full thread dump OpenJDK 64-Bit Server VM (11.0.8+10-LTS mixed mode):\n\n"
+				+ String.join("", threads) + "JNI global refs: 29, weak refs: 0\n");
+	}
+
+	private static List<String> names(final List<StuckThread> stuck) {
+		return stuck.stream().map(thread -> thread.getThread().getName()).collect(Collectors.toList());
+	}
+
+	@Test
+	public void threadsShouldBeStuckAfterTheGivenDumps() throws IOException {
+		final StuckThreadDetector detector = new StuckThreadDetector(3);
+		final List<ThreadInfo> threads = dump(request(1), blocked("0x0000000700000010"), parkedOnLock(), idle(), gc());
+		assertEquals(5, threads.size());
+
+		assertTrue(detector.add(threads).isEmpty());
+		assertTrue(detector.add(dump(request(1), blocked("0x0000000700000010"), parkedOnLock(), idle(), gc())).isEmpty());
+
+		final List<StuckThread> stuck = detector.add(dump(request(1), blocked("0x0000000700000010"), parkedOnLock(), idle(), gc()));
+		assertEquals(names(stuck).toString(), 3, stuck.size());
+
+		assertEquals("http-nio-8080-exec-1", stuck.get(0).getThread().getName());
+		assertEquals(StuckThread.Reason.SAME_STACK, stuck.get(0).getReason());
+		assertFalse(stuck.get(0).getLockId().isPresent());
+
+		assertEquals(StuckThread.Reason.SAME_LOCK, stuck.get(1).getReason());
+		assertEquals("0x0000000700000010", stuck.get(1).getLockId().get());
+		assertEquals(3, stuck.get(1).getDumps());
+
+		assertEquals(StuckThread.Reason.SAME_LOCK, stuck.get(2).getReason());
+		assertEquals("0x0000000700000030", stuck.get(2).getLockId().get());
+
+		assertEquals(4, detector.add(dump(request(1), blocked("0x0000000700000010"), parkedOnLock())).get(0).getDumps());
+	}
+
+	@Test
+	public void threadsWhichMovedShouldStartOver() throws IOException {
+		final StuckThreadDetector detector = new StuckThreadDetector(2);
+		detector.add(dump(request(1), blocked("0x0000000700000010")));
+		assertEquals(2, detector.add(dump(request(1), blocked("0x0000000700000010"))).size());
+
+		assertTrue(detector.add(dump(request(2), blocked("0x0000000700000020"))).isEmpty());
+		// Gone from a dump, it starts over when it's back.
+		assertTrue(detector.add(dump(request(2))).stream().allMatch(thread -> thread.getThread().getNativeId().equals("0x1")));
+		assertTrue(detector.add(dump(blocked("0x0000000700000020"))).isEmpty());
+
+		detector.clear();
+		assertTrue(detector.add(dump(request(2))).isEmpty());
+	}
+
+	@Test
+	public void idleThreadsInObjectWaitShouldNotBeStuck() throws IOException {
+		for (final String version : new String[] { "9.0.4", "10.0.2", "11.0.2" }) {
+			final StuckThreadDetector detector = new StuckThreadDetector(2);
+			List<StuckThread> stuck = null;
+			for (int i = 0; i < 4; i++) {
+				stuck = detector.add(ThreadDumpReader.fromFile("samples/" + version + "." + i + ".txt"));
+			}
+			assertTrue(version + ": " + names(stuck), stuck.stream().map(thread -> thread.getThread().getName())
+					.noneMatch(name -> name.equals("Finalizer") || name.equals("Common-Cleaner")));
+		}
+
+		final StuckThreadDetector detector = new StuckThreadDetector(2);
+		detector.add(dump(reLocking()));
+		assertTrue(detector.add(dump(reLocking())).isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void oneDumpShouldNotBeEnough() {
+		new StuckThreadDetector(1);
+	}
+
+}
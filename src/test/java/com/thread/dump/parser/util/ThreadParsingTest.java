@@ -1,12 +1,22 @@
 package com.thread.dump.parser.util;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
 
+import com.thread.dump.parser.ParseListener;
+import com.thread.dump.parser.ParseMetrics;
 import com.thread.dump.parser.ThreadDumpReader;
 import com.thread.dump.parser.domain.Locked;
+import com.thread.dump.parser.domain.StackFrame;
+import com.thread.dump.parser.domain.StackGroup;
+import com.thread.dump.parser.domain.StackTraceLock;
 import org.junit.Test;
 
 import com.thread.dump.parser.domain.ThreadInfo;
@@ -73,6 +83,43 @@ public class ThreadParsingTest {
 		assertTrue(threadInfo.isPresent());
 	}
 	
+	@Test
+	public void shouldExtractAllHeaderFields() {
+		final ThreadInfo thread = ThreadParsing.extractThreadInfoFromLine(
+				"\"Finalizer\" #3 daemon prio=8 os_prio=0 cpu=0.77ms elapsed=741.83s tid=0x00007f6f5c29e000 nid=0x6b90 in Object.wait()  [0x00007f6f13ffe000]").get();
+
+		assertEquals("Finalizer", thread.getName());
+		assertEquals(Optional.of(3L), thread.getNumber());
+		assertTrue(thread.isDaemon());
+		assertEquals(Optional.of(8), thread.getPriority());
+		assertEquals(Optional.of(0), thread.getOsPriority());
+		assertEquals(0.77, thread.getCpuMillis().get(), 0.0001);
+		assertEquals(741.83, thread.getElapsedSeconds().get(), 0.0001);
+		assertEquals("0x00007f6f5c29e000", thread.getId());
+		assertEquals("0x6b90", thread.getNativeId());
+		assertEquals(Optional.of("in Object.wait()"), thread.getStatus());
+	}
+
+	@Test
+	public void shouldExtractHeaderFieldsOfVmThreads() {
+		final ThreadInfo thread = ThreadParsing.extractThreadInfoFromLine(
+				"\"G1 Refine#0\" os_prio=0 cpu=3.43ms elapsed=741.86s tid=0x00007f6f5c20c000 nid=0x6b8c runnable  ").get();
+
+		assertEquals("G1 Refine#0", thread.getName());
+		assertFalse(thread.getNumber().isPresent());
+		assertFalse(thread.isDaemon());
+		assertFalse(thread.getPriority().isPresent());
+		assertEquals(Optional.of(0), thread.getOsPriority());
+		assertEquals(Optional.of("runnable"), thread.getStatus());
+	}
+
+	@Test
+	public void shouldNotExtractThreadInfoFromInvalidHeader() {
+		assertFalse(ThreadParsing.extractThreadInfoFromLine("\"no ids\" daemon prio=5 runnable").isPresent());
+		assertFalse(ThreadParsing.extractThreadInfoFromLine("\"no status\" tid=0x1 nid=0x2").isPresent());
+		assertFalse(ThreadParsing.extractThreadInfoFromLine("at java.lang.Thread.run(Thread.java:748)").isPresent());
+	}
+
 	@Test
 	public void shouldReturnNonEmptyThreadState() {
 		final Optional<Thread.State> threadState = ThreadParsing.extractThreadState(THREAD_STATE);
@@ -158,6 +205,110 @@ public class ThreadParsingTest {
 		}
 	}
 
+	@Test
+	public void shouldParseStackFrames() {
+		final StackFrame method = ThreadParsing.extractStackFrame("at java.lang.Thread.run(java.base@11.0.2/Thread.java:834)");
+		assertEquals(StackFrame.Type.METHOD, method.getType());
+		assertEquals("java.lang.Thread.run(java.base@11.0.2/Thread.java:834)", method.getMethod());
+		assertEquals("java.lang.Thread", method.getClassName());
+		assertEquals("run", method.getMethodName());
+		assertEquals("java.base@11.0.2", method.getModule());
+		assertEquals("Thread.java", method.getFileName());
+		assertEquals(834, method.getLineNumber());
+		assertFalse(method.isNativeMethod());
+
+		final StackFrame nativeMethod = ThreadParsing.extractStackFrame("at java.lang.Object.wait(Native Method)");
+		assertEquals("java.lang.Object", nativeMethod.getClassName());
+		assertEquals("wait", nativeMethod.getMethodName());
+		assertNull(nativeMethod.getModule());
+		assertTrue(nativeMethod.isNativeMethod());
+
+		final StackFrame lock = ThreadParsing.extractStackFrame("- parking to wait for  <0x00000000c2c09e58> (a java.util.concurrent.locks.AbstractQueuedSynchronizer$ConditionObject)");
+		assertEquals(StackFrame.Type.LOCK, lock.getType());
+		assertEquals(StackTraceLock.PARKING_TO_WAIT_FOR, lock.getLock());
+		assertEquals("0x00000000c2c09e58", lock.getLockId());
+		assertEquals("java.util.concurrent.locks.AbstractQueuedSynchronizer$ConditionObject", lock.getLockClassName());
+
+		final StackFrame classLock = ThreadParsing.extractStackFrame("- waiting to lock <0x000000008a5d7f70> (a java.lang.Class for com.thdump.calls.Call5)");
+		assertEquals(StackTraceLock.WAITING_TO_LOCK, classLock.getLock());
+		assertEquals("java.lang.Class for com.thdump.calls.Call5", classLock.getLockClassName());
+
+		assertEquals(StackFrame.Type.UNKNOWN, ThreadParsing.extractStackFrame("- None").getType());
+	}
+
+	@Test
+	public void shouldParseStackFramesOnce() throws IOException {
+		final List<ThreadInfo> threads = ThreadDumpReader.fromString(THREAD_INFO_WITH_LOCKS);
+		final List<StackFrame> frames = threads.get(0).getStackFrames();
+
+		assertEquals(31, frames.size());
+		assertEquals("java.security.Provider.getService(Provider.java:1039)", frames.get(0).getMethod());
+		assertEquals(StackTraceLock.LOCKED, frames.get(1).getLock());
+		assertSame(frames, ThreadParsing.stackFrames(threads.get(0)));
+	}
+
+	@Test
+	public void shouldRetrieveLockingInfo() throws IOException {
+		final List<ThreadInfo> threads = ThreadDumpReader.fromString(THREAD_INFO_WITH_LOCKS);
+		final Map<StackTraceLock, Map<String, ThreadInfo>> lockingInfo = ThreadParsing.lockingInfo(threads);
+
+		assertEquals(3, lockingInfo.get(StackTraceLock.LOCKED).size());
+		assertEquals(threads.get(0), lockingInfo.get(StackTraceLock.LOCKED).get("0x00000007bc531138"));
+		assertTrue(lockingInfo.get(StackTraceLock.WAITING_TO_LOCK).isEmpty());
+	}
+
+	@Test
+	public void stackTracesSetByHandShouldBeSplitOnAnyLineEnding() {
+		for (final String newLine : new String[] { "\n", "\r\n" }) {
+			final ThreadInfo thread = new ThreadInfo();
+			thread.setName("main");
+			thread.setStackTrace("at a.B.c(B.java:1)" + newLine + "  - locked <0x1> (a java.lang.Object)" + newLine + "at a.B.d(B.java:2)" + newLine);
+
+			final List<StackFrame> frames = ThreadParsing.stackFrames(thread);
+			assertEquals(3, frames.size());
+			assertEquals(StackTraceLock.LOCKED, frames.get(1).getLock());
+			final List<Locked> holds = ThreadParsing.holdsForThread(thread);
+			assertEquals(1, holds.size());
+			assertEquals("0x1", holds.get(0).getLockID());
+			assertEquals("java.lang.Object", holds.get(0).getLockedObjectName());
+
+			final Map<String, Integer> methods = ThreadParsing.mostUsedMethods(Collections.singletonList(thread));
+			assertEquals(Integer.valueOf(1), methods.get("a.B.c(B.java:1)"));
+			assertEquals(Integer.valueOf(1), methods.get("a.B.d(B.java:2)"));
+		}
+	}
+
+	@Test
+	public void reLockShouldNotBeWaitingToLock() throws IOException {
+		final List<ThreadInfo> threads = ThreadDumpReader.fromFile("samples/11.0.2.0.txt");
+		final Map<StackTraceLock, Map<String, ThreadInfo>> lockingInfo = ThreadParsing.lockingInfo(threads);
+
+		// The same as matching the lines with the patterns
+		final Map<String, ThreadInfo> locked = new HashMap<>();
+		final Map<String, ThreadInfo> waitingToLock = new HashMap<>();
+		for (final ThreadInfo thread : threads) {
+			for (final String line : thread.getStackTrace().orElse("").split("\n")) {
+				final Matcher lockedMatcher = PatternConstants.LOCKED_RGX.matcher(line);
+				if (lockedMatcher.find()) {
+					locked.put(lockedMatcher.group(PatternConstants.LockedIndex.ID.get()), thread);
+				}
+				final Matcher waitingMatcher = PatternConstants.WAITING_TO_LOCK.matcher(line);
+				if (waitingMatcher.find()) {
+					waitingToLock.put(waitingMatcher.group(1).split(">")[0], thread);
+				}
+			}
+		}
+		assertEquals(locked, lockingInfo.get(StackTraceLock.LOCKED));
+		assertEquals(waitingToLock, lockingInfo.get(StackTraceLock.WAITING_TO_LOCK));
+		assertTrue(lockingInfo.get(StackTraceLock.WAITING_TO_LOCK).values().stream()
+				.noneMatch(thread -> "Finalizer".equals(thread.getName()) || "Common-Cleaner".equals(thread.getName())));
+
+		final StackFrame reLock = ThreadParsing.extractStackFrame("- waiting to re-lock in wait() <0x0000000626a44d90> (a java.lang.ref.ReferenceQueue$Lock)");
+		assertEquals(StackTraceLock.WAITING_TO_RE_LOCK, reLock.getLock());
+		assertEquals("0x0000000626a44d90", reLock.getLockId());
+		assertEquals("Finalizer", lockingInfo.get(StackTraceLock.WAITING_TO_RE_LOCK).get(reLock.getLockId()).getName());
+	}
+
 	@Test
 	public void shouldIdentifyTopMethodsInThreadDump() throws IOException {
 		final List<ThreadInfo> threads = ThreadDumpReader.fromFile("samples/tdump.sample");
@@ -378,5 +529,99 @@ public class ThreadParsingTest {
 			}
 		}
 	}
-	
+
+	private static String worker(final int number, final String lockId) {
+		return "\"pool-1-thread-" + number + "\" #" + number + " prio=5 os_prio=0 tid=0x" + Integer.toHexString(number)
+				+ " nid=0x" + Integer.toHexString(number) + " waiting on condition [0x0000000000000000]\n"
+				+ "   java.lang.Thread.State: WAITING (parking)\n"
+				+ "\tat sun.misc.Unsafe.park(Native Method)\n"
+				+ "\t- parking to wait for  <" + lockId + "> (a java.util.concurrent.locks.AbstractQueuedSynchronizer$ConditionObject)\n"
+				+ "\tat java.util.concurrent.LinkedBlockingQueue.take(LinkedBlockingQueue.java:442)\n"
+				+ "\tat java.lang.Thread.run(Thread.java:748)\n\n";
+	}
+
+	@Test
+	public void shouldGroupThreadsWithTheSameStack() throws IOException {
+		final StringBuilder dump = new StringBuilder();
+		for (int i = 0; i < 3000; i++) {
+			dump.append(worker(i, "0x" + Long.toHexString(0x76ab00000L + i * 16)));
+		}
+		dump.append(DAEMON_THREAD_INFORMATION).append("\n\n");
+		final List<ThreadInfo> threads = ThreadDumpReader.fromString(dump.toString());
+
+		final List<StackGroup> groups = ThreadParsing.groupByIdenticalStack(threads);
+		assertEquals(2, groups.size());
+		assertEquals(3000, groups.get(0).size());
+		assertEquals("pool-1-thread-0", groups.get(0).getThreads().get(0).getName());
+		assertEquals(4, groups.get(0).getStackFrames().size());
+		assertEquals(1, groups.get(1).size());
+	}
+
+	@Test
+	public void stackSignatureShouldNotDependOnHowTheThreadWasBuilt() throws IOException {
+		for (final ThreadInfo parsed : ThreadDumpReader.fromFile("samples/tdump.sample")) {
+			final ThreadInfo built = new ThreadInfo();
+			parsed.getStackTrace().ifPresent(built::setStackTrace);
+			assertNotEquals(0, parsed.getStackSignature());
+			assertEquals(parsed.getStackSignature(), ThreadParsing.stackSignature(built));
+		}
+	}
+
+	@Test
+	public void stackSignaturesShouldMatchTheStackTraces() throws IOException {
+		final File[] samples = new File("samples").listFiles();
+		for (final File sample : samples) {
+			final List<ThreadInfo> threads = ThreadDumpReader.fromFile(sample.getPath());
+			final Map<String, Integer> byStack = new HashMap<>();
+			for (final ThreadInfo thread : threads) {
+				final String stack = thread.getStackTrace().orElse("").replaceAll("<0x[0-9a-f]+>", "<>");
+				byStack.merge(stack, 1, Integer::sum);
+			}
+			final List<StackGroup> groups = ThreadParsing.groupByIdenticalStack(threads);
+			assertEquals(sample.getName(), byStack.size(), groups.size());
+			for (final StackGroup group : groups) {
+				final String stack = group.getThreads().get(0).getStackTrace().orElse("").replaceAll("<0x[0-9a-f]+>", "<>");
+				assertEquals(byStack.get(stack).intValue(), group.size());
+			}
+		}
+	}
+
+	@Test
+	public void analysesShouldBeReportedToTheListener() throws IOException {
+		final List<ThreadInfo> threads = ThreadDumpReader.fromFile(new File("samples", "tdump.sample").getPath());
+		final List<ParseMetrics> analyses = new CopyOnWriteArrayList<>();
+		final ParseListener listener = analyses::add;
+
+		assertEquals(ThreadParsing.lockingInfo(threads), ThreadParsing.lockingInfo(threads, listener));
+		assertEquals(ThreadParsing.holds(threads), ThreadParsing.holds(threads, listener));
+		assertEquals(ThreadParsing.mostUsedMethods(threads), ThreadParsing.mostUsedMethods(threads, listener));
+
+		assertEquals(3, analyses.size());
+		assertEquals("lockingInfo", analyses.get(0).getAnalysis().get());
+		assertEquals("holds", analyses.get(1).getAnalysis().get());
+		assertEquals("mostUsedMethods", analyses.get(2).getAnalysis().get());
+		for (final ParseMetrics metrics : analyses) {
+			assertEquals(threads.size(), metrics.getThreads());
+			assertEquals(0, metrics.getLines());
+			assertFalse(metrics.getInputLength().isPresent());
+			assertTrue(metrics.getAnalysisNanos() > 0);
+			assertEquals(metrics.getTotalNanos(), metrics.getAnalysisNanos());
+		}
+
+		// A listener that isn't interested isn't told.
+		analyses.clear();
+		ThreadParsing.lockingInfo(threads, new ParseListener() {
+			@Override
+			public void parsed(final ParseMetrics metrics) {
+				analyses.add(metrics);
+			}
+
+			@Override
+			public boolean isEnabled() {
+				return false;
+			}
+		});
+		assertTrue(analyses.isEmpty());
+	}
+
 }
@@ -0,0 +1,116 @@
+package com.thread.dump.parser.util;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.thread.dump.parser.ThreadDumpReader;
+import com.thread.dump.parser.domain.ThreadInfo;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Leo Gutiérrez (leogutierrezramirez@gmail.com)
+ */
+public class WaitForGraphTest {
+
+	private static void thread(final StringBuilder dump, final String name, final String... locks) {
+		final int number = dump.length();
+		dump.append('"').append(name).append("\" #").append(number).append(" prio=5 os_prio=0 tid=0x").append(Integer.toHexString(number))
+				.append(" nid=0x").append(Integer.toHexString(number)).append(" waiting for monitor entry  [0x0000000000000000]\n")
+				.append("   java.lang.Thread.State: BLOCKED (on object monitor)\n")
+				.append("\tat com.app.Service.call(Service.java:42)\n");
+		for (final String lock : locks) {
+			dump.append("\t- ").append(lock).append(" (a java.lang.Object)\n");
+		}
+		dump.append("\tat java.lang.Thread.run(Thread.java:748)\n\n");
+	}
+
+	private static List<String> names(final List<ThreadInfo> threads) {
+		return threads.stream().map(ThreadInfo::getName).collect(Collectors.toList());
+	}
+
+	private static ThreadInfo named(final List<ThreadInfo> threads, final String name) {
+		return threads.stream().filter(th -> name.equals(th.getName())).findFirst().get();
+	}
+
+	@Test
+	public void shouldFindDeadlocks() throws IOException {
+		final StringBuilder dump = new StringBuilder();
+		thread(dump, "t1", "waiting to lock <0xb>", "locked <0xa>");
+		thread(dump, "t2", "waiting to lock <0xa>", "locked <0xb>");
+		thread(dump, "t3", "waiting to lock <0xa>");
+		thread(dump, "idle");
+
+		final List<ThreadInfo> threads = ThreadDumpReader.fromString(dump.toString());
+		final WaitForGraph graph = WaitForGraph.of(threads);
+
+		assertEquals(1, graph.deadlocks().size());
+		assertEquals(Arrays.asList("t1", "t2"), names(graph.deadlocks().get(0)).stream().sorted().collect(Collectors.toList()));
+		assertEquals(Arrays.asList("t1"), names(graph.waitsFor(named(threads, "t2"))));
+		assertEquals(Arrays.asList("t3", "t1"), names(graph.longestBlockingChain()));
+		assertEquals(0, graph.blockedCount(named(threads, "idle")));
+	}
+
+	@Test
+	public void everyWaiterShouldCount() throws IOException {
+		final StringBuilder dump = new StringBuilder();
+		thread(dump, "owner", "locked <0xd>");
+		thread(dump, "middle", "waiting to lock <0xd>", "locked <0xc>");
+		for (int i = 0; i < 400; i++) {
+			thread(dump, "pool-" + i, "parking to wait for  <0xc>");
+		}
+
+		final List<ThreadInfo> threads = ThreadDumpReader.fromString(dump.toString());
+		final WaitForGraph graph = WaitForGraph.of(threads);
+
+		assertTrue(graph.deadlocks().isEmpty());
+		assertEquals(400, graph.blockedCount(named(threads, "middle")));
+		assertEquals(401, graph.blockedCount(named(threads, "owner")));
+		assertEquals("owner", graph.biggestBlocker().get().getName());
+		assertEquals(Arrays.asList("pool-0", "middle", "owner"), names(graph.longestBlockingChain()));
+	}
+
+	@Test
+	public void threadsInObjectWaitShouldNotBlockThemselves() throws IOException {
+		final StringBuilder dump = new StringBuilder();
+		thread(dump, "waiting", "waiting on <0xe>", "locked <0xe>");
+
+		final WaitForGraph graph = WaitForGraph.of(ThreadDumpReader.fromString(dump.toString()));
+
+		assertTrue(graph.deadlocks().isEmpty());
+		assertTrue(graph.longestBlockingChain().isEmpty());
+		assertFalse(graph.biggestBlocker().isPresent());
+	}
+
+	@Test
+	public void shouldHandleVeryLongChains() throws IOException {
+		final int length = 50_000;
+		final StringBuilder dump = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			thread(dump, "t" + i, "waiting to lock <0x" + Integer.toHexString(i + 1) + ">", "locked <0x" + Integer.toHexString(i) + ">");
+		}
+		thread(dump, "last", "locked <0x" + Integer.toHexString(length) + ">");
+
+		final WaitForGraph graph = WaitForGraph.of(ThreadDumpReader.fromString(dump.toString()));
+
+		assertEquals(length + 1, graph.longestBlockingChain().size());
+		assertEquals("last", graph.biggestBlocker().get().getName());
+		assertEquals(length, graph.blockedCount(graph.biggestBlocker().get()));
+	}
+
+	@Test
+	public void shouldFindTheBlockerInSample() throws IOException {
+		final List<ThreadInfo> threads = ThreadDumpReader.fromFile("samples/11.0.2.0.txt");
+		final WaitForGraph graph = WaitForGraph.of(threads);
+
+		final List<ThreadInfo> holders = graph.waitsFor(named(threads, "http-nio-8080-exec-1"));
+		assertEquals(1, holders.size());
+		assertTrue(graph.blockedCount(holders.get(0)) >= 1);
+		assertTrue(graph.deadlocks().isEmpty());
+	}
+
+}